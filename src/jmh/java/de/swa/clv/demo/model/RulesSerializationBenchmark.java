@@ -0,0 +1,41 @@
+package de.swa.clv.demo.model;
+
+import de.swa.clv.ValidationRules;
+import de.swa.clv.demo.validation.SerializedRules;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing the rules, as done for {@code GET /validation-rules} and for compiling the rules, compared with reading
+ * them from the resources generated by the build, as done at startup (see SerializedRules).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesSerializationBenchmark {
+
+    @Benchmark
+    public String serializeAllRules() {
+        return ValidationRules.serializeToJson(Article.rules, AccessoryRules.rules);
+    }
+
+    @Benchmark
+    public String serializeArticleRules() {
+        return Article.rules.serializeToJson();
+    }
+
+    @Benchmark
+    public String readSerializedRules() {
+        return SerializedRules.serializeToJson(Article.rules, AccessoryRules.rules);
+    }
+
+}
@@ -0,0 +1,72 @@
+package de.swa.clv.demo.repository;
+
+import de.swa.clv.demo.model.Article;
+import de.swa.clv.demo.model.Category;
+import de.swa.clv.demo.model.Status;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A page of {@link InMemoryArticleRepository#find(ArticleQuery, ArticleQuery.Cursor)} depending on the number of
+ * stored articles, of which always 100 match the selective queries. Their time should not grow with the number of
+ * non-matching articles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ArticleQueryBenchmark {
+
+    private static final int MATCHING_ARTICLES = 100;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "100000", "1000000"})
+    private int storedArticles;
+
+    private final InMemoryArticleRepository articleRepository = new InMemoryArticleRepository();
+    private final ArticleQuery selectiveStatus =
+            new ArticleQuery(Set.of(Status.DECOMMISSIONED), null, null, null, null, null, null);
+    private final ArticleQuery selectiveStatusAndCategory = new ArticleQuery(Set.of(Status.DECOMMISSIONED),
+            Set.of(Category.ENDOSCOPY), null, true, null, null, null);
+
+    @Setup
+    public void setUp() {
+        int matchingEvery = storedArticles / MATCHING_ARTICLES;
+        while (articleRepository.count() < storedArticles) {
+            Article article = new Article();
+            article.setId(articleRepository.nextId());
+            article.setName("Article " + article.getId());
+            article.setCategory(Category.ENDOSCOPY);
+            boolean matching = article.getId() % matchingEvery == 0;
+            article.setStatus(matching ? Status.DECOMMISSIONED : Status.ACTIVE);
+            article.setAnimalUse(matching);
+            articleRepository.insert(article);
+        }
+    }
+
+    @Benchmark
+    public List<Article> pageOfSelectiveStatus() {
+        return articleRepository.find(selectiveStatus, null).limit(PAGE_SIZE).toList();
+    }
+
+    @Benchmark
+    public List<Article> pageOfSelectiveStatusAndCategory() {
+        return articleRepository.find(selectiveStatusAndCategory, null).limit(PAGE_SIZE).toList();
+    }
+
+}
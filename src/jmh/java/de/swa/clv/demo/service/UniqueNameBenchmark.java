@@ -0,0 +1,83 @@
+package de.swa.clv.demo.service;
+
+import de.swa.clv.demo.model.Article;
+import de.swa.clv.demo.repository.InMemoryArticleRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code ArticleService.addNotUniqueNameError()} depending on the number of stored articles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class UniqueNameBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int storedArticles;
+
+    private final ArticleService articleService = new ArticleService();
+    private Article newArticle;
+    private Article storedArticle;
+    private Article otherArticle;
+
+    @Setup
+    public void setUp() {
+        InMemoryArticleRepository articleRepository = new InMemoryArticleRepository();
+        while (articleRepository.count() < storedArticles) {
+            Article article = new Article();
+            article.setId(articleRepository.nextId());
+            article.setName("Article " + article.getId());
+            articleRepository.insert(article);
+        }
+        ReflectionTestUtils.setField(articleService, "articleRepository", articleRepository);
+
+        newArticle = new Article();
+        newArticle.setName("Article 0");
+        // the name of a stored article, in other case
+        storedArticle = new Article();
+        storedArticle.setId(storedArticles / 2);
+        storedArticle.setName("ARTICLE " + storedArticle.getId());
+        otherArticle = new Article();
+        otherArticle.setName(storedArticle.getName());
+    }
+
+    @Benchmark
+    public List<String> newName() {
+        List<String> errors = new ArrayList<>(1);
+        articleService.addNotUniqueNameError(newArticle, errors);
+        return errors;
+    }
+
+    @Benchmark
+    public List<String> ownName() {
+        List<String> errors = new ArrayList<>(1);
+        articleService.addNotUniqueNameError(storedArticle, errors);
+        return errors;
+    }
+
+    @Benchmark
+    public List<String> nameOfOtherArticle() {
+        List<String> errors = new ArrayList<>(1);
+        articleService.addNotUniqueNameError(otherArticle, errors);
+        return errors;
+    }
+
+}
@@ -0,0 +1,165 @@
+package de.swa.clv.demo.validation;
+
+import de.swa.clv.demo.model.Accessory;
+import de.swa.clv.demo.model.Article;
+import de.swa.clv.demo.model.Category;
+import de.swa.clv.demo.model.PermissionSet;
+import de.swa.clv.demo.model.Status;
+import de.swa.clv.demo.model.SubCategory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static de.swa.clv.demo.validation.ValidatorProvider.VALIDATOR;
+
+/**
+ * The validation done by ArticleService for creates and updates, i.e. with the compiled rules, and the generic
+ * validator as baseline. For invalid articles the returned {@link ValidationResult} is compared with the exceptions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArticleValidationBenchmark {
+
+    // The permission sets of the update benchmarks, comma separated
+    @Param({"", "MANAGER", "DecommissionAssets", "MANAGER,DecommissionAssets"})
+    private String permissions;
+
+    private final ValidationRulesCheck validationRulesCheck = new ValidationRulesCheck() {};
+    private PermissionSet permissionSet;
+    private Article validArticle;
+    private Article invalidArticle;
+    private Article currentArticle;
+    private Article editedArticle;
+
+    @Setup
+    public void setUp() {
+        permissionSet = permissions.isEmpty() ? PermissionSet.EMPTY : PermissionSet.of(permissions.split(","));
+        validArticle = newValidArticle(null, Status.NEW);
+
+        invalidArticle = new Article();
+        invalidArticle.setMaintenanceNextDate(LocalDate.of(2000, 1, 1));
+        invalidArticle.setCategory(Category.ENDOSCOPY);
+        invalidArticle.setSubCategory(SubCategory.CAMERAHEAD);
+        invalidArticle.setAccessories(List.of(new Accessory("...", 1), new Accessory("Acc1", 1),
+                new Accessory("Acc1", 1), new Accessory("Acc2", 20)));
+
+        currentArticle = newValidArticle(1, Status.ACTIVE);
+        editedArticle = newValidArticle(1, Status.INACTIVE);
+        editedArticle.setName("Diagnostic Video Gastroscope");
+        editedArticle.setLastModifiedOn(currentArticle.getLastModifiedOn());
+    }
+
+    @Benchmark
+    public List<String> createValidArticle() {
+        return validationRulesCheck.getValidationErrors(validArticle, permissionSet);
+    }
+
+    @Benchmark
+    public List<String> createInvalidArticle() {
+        return validationRulesCheck.getValidationErrors(invalidArticle, permissionSet);
+    }
+
+    // The invalid path as the services take it, compare with the two exception variants below
+    @Benchmark
+    public ValidationResult createInvalidArticleResult() {
+        return validationRulesCheck.getValidationResult(invalidArticle, permissionSet);
+    }
+
+    @Benchmark
+    public List<String> createInvalidArticleException() {
+        try {
+            // like requireValidationRulesPass(), but without its logging
+            ValidationResult result = validationRulesCheck.getValidationResult(invalidArticle, permissionSet);
+            if (!result.isValid()) {
+                throw result.toException();
+            }
+            return List.of();
+        } catch (ValidationException e) {
+            return e.getFieldErrors();
+        }
+    }
+
+    // The exception before it became stackless; the stack is shallow here, deeper in a request the gap is larger
+    @Benchmark
+    public List<String> createInvalidArticleExceptionWithStackTrace() {
+        try {
+            List<String> errors = validationRulesCheck.getValidationErrors(invalidArticle, permissionSet);
+            if (!errors.isEmpty()) {
+                throw new ExceptionWithStackTrace(errors.toString(), errors);
+            }
+            return errors;
+        } catch (ExceptionWithStackTrace e) {
+            return e.fieldErrors;
+        }
+    }
+
+    private static final class ExceptionWithStackTrace extends RuntimeException {
+
+        private final transient List<String> fieldErrors;
+
+        ExceptionWithStackTrace(String message, List<String> fieldErrors) {
+            super(message);
+            this.fieldErrors = fieldErrors;
+        }
+    }
+
+    @Benchmark
+    public List<String> updateArticle() {
+        return validationRulesCheck.getValidationErrors(editedArticle, currentArticle, permissionSet);
+    }
+
+    @Benchmark
+    public List<String> createValidArticleWithGenericValidator() {
+        List<String> errors = VALIDATOR.validateMandatoryRules(validArticle, permissionSet.toUserPermissions(),
+                Article.rules);
+        errors.addAll(VALIDATOR.validateContentRules(validArticle, permissionSet.toUserPermissions(),
+                Article.rules));
+        return errors;
+    }
+
+    @Benchmark
+    public List<String> updateArticleWithGenericValidator() {
+        List<String> errors = VALIDATOR.validateMandatoryRules(editedArticle, permissionSet.toUserPermissions(),
+                Article.rules);
+        errors.addAll(VALIDATOR.validateContentRules(editedArticle, permissionSet.toUserPermissions(),
+                Article.rules));
+        errors.addAll(VALIDATOR.validateImmutableRules(currentArticle, editedArticle,
+                permissionSet.toUserPermissions(), Article.rules));
+        errors.addAll(VALIDATOR.validateUpdateRules(currentArticle, editedArticle, permissionSet.toUserPermissions(),
+                Article.rules));
+        return errors;
+    }
+
+    private static Article newValidArticle(Integer id, Status status) {
+        // a workday that is in the allowed range and not in the company vacation (August)
+        LocalDate maintenanceNextDate = LocalDate.now().plusDays(7);
+        while (maintenanceNextDate.getDayOfWeek() == DayOfWeek.SATURDAY
+                || maintenanceNextDate.getDayOfWeek() == DayOfWeek.SUNDAY
+                || maintenanceNextDate.getMonth() == Month.AUGUST) {
+            maintenanceNextDate = maintenanceNextDate.plusDays(1);
+        }
+        return new Article(id, "Diagnostic Video Colonoscope", "DVC-H123T/Z", status, (short) 9,
+                maintenanceNextDate, Category.ENDOSCOPY, SubCategory.SINUSCOPE,
+                List.of(new Accessory("Biopsy Forcep", 3), new Accessory("Polyp Traps", 5)), new Date(0));
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ Benchmarks the validation of CrossLanguageValidation_ES6.js under Node, optionally against another version of it:
+
+   node src/jmh/js/CrossLanguageValidationBenchmark.mjs [rules] [baseline]
+
+ rules     the validation rules as file or URL, default: http://localhost:8080/validation-rules
+ baseline  another version of the script, e.g. the one of a previous commit:
+           git show HEAD~1:src/main/resources/static/CrossLanguageValidation_ES6.js > target/baseline.js
+
+ Reports the time and the allocated heap bytes per validation of all rules of a created and an updated article. Before
+ measuring, it checks that both versions return the same errors.
+ */
+import {copyFileSync, mkdtempSync, readFileSync} from "node:fs";
+import {tmpdir} from "node:os";
+import {dirname, join} from "node:path";
+import {fileURLToPath, pathToFileURL} from "node:url";
+import {performance} from "node:perf_hooks";
+import {GCProfiler, getHeapStatistics} from "node:v8";
+
+const CURRENT = join(dirname(fileURLToPath(import.meta.url)),
+    "../../main/resources/static/CrossLanguageValidation_ES6.js");
+const WARMUP_MILLIS = +(process.env.WARMUP_MILLIS ?? 2000);
+const MEASURE_MILLIS = +(process.env.MEASURE_MILLIS ?? 5000);
+const PERMISSIONS = [[], ["MANAGER"], ["DecommissionAssets"], ["MANAGER", "DecommissionAssets"]];
+const ACCESSORY_COUNTS = [2, 50];
+
+// The script is no ES module by its file name, so it is imported from a copy
+async function importScript(file) {
+    const copy = join(mkdtempSync(join(tmpdir(), "clv-")), "CrossLanguageValidation_ES6.mjs");
+    copyFileSync(file, copy);
+    return import(pathToFileURL(copy).href);
+}
+
+async function loadRules(rules) {
+    if (/^https?:/.test(rules)) {
+        const response = await fetch(rules);
+        return response.json();
+    }
+    return JSON.parse(readFileSync(rules, "utf8"));
+}
+
+function article(id, accessoryCount) {
+    const accessories = [];
+    for (let i = 0; i < accessoryCount; i++) {
+        accessories.push({name: "Accessory " + String.fromCharCode(65 + i % 26) + i, amount: 1 + i % 5});
+    }
+    const nextDate = new Date();
+    nextDate.setDate(nextDate.getDate() + 30);
+    return {
+        id: id,
+        lastModifiedOn: id === null ? null : "2023-08-01T12:00:00.000+00:00",
+        name: "Endoscope 1",
+        number: "4711",
+        status: id === null ? "NEW" : "ACTIVE",
+        medicalSet: null,
+        animalUse: false,
+        everLeftWarehouse: false,
+        maintenanceNextDate: nextDate.toISOString().substring(0, 10),
+        maintenanceIntervalMonth: 6,
+        category: "ENDOSCOPY",
+        subCategory: "LARYNGOSCOPE",
+        accessories: accessories
+    };
+}
+
+function validateAll(clv, current, edited, userPerms) {
+    const errors = clv.validateMandatoryRules("article", edited, userPerms);
+    errors.push(...clv.validateContentRules("article", edited, userPerms));
+    if (current !== null) {
+        errors.push(...clv.validateImmutableRules("article", current, edited, userPerms));
+        errors.push(...clv.validateUpdateRules("article", current, edited, userPerms));
+    }
+    return errors;
+}
+
+function cases() {
+    const all = [];
+    for (const accessoryCount of ACCESSORY_COUNTS) {
+        for (const userPerms of PERMISSIONS) {
+            const created = article(null, accessoryCount);
+            const current = article(1, accessoryCount);
+            const edited = {...current, status: "INACTIVE", accessories: [...current.accessories].reverse()};
+            const perms = JSON.stringify(userPerms);
+            all.push({name: `create, ${accessoryCount} accessories, ${perms}`, current: null, edited: created, userPerms});
+            all.push({name: `update, ${accessoryCount} accessories, ${perms}`, current, edited, userPerms});
+        }
+    }
+    return all;
+}
+
+// The allocated bytes are the growth of the used heap, plus what each GC has freed
+function allocatedBytes(startUsedHeapSize, gcStatistics) {
+    let bytes = 0;
+    let usedHeapSize = startUsedHeapSize;
+    for (const gc of gcStatistics) {
+        bytes += gc.beforeGC.heapStatistics.usedHeapSize - usedHeapSize;
+        usedHeapSize = gc.afterGC.heapStatistics.usedHeapSize;
+    }
+    return bytes + getHeapStatistics().used_heap_size - usedHeapSize;
+}
+
+function measure(clv, c) {
+    let sink = 0;
+    const run = millis => {
+        let ops = 0;
+        const end = performance.now() + millis;
+        while (performance.now() < end) {
+            for (let i = 0; i < 100; i++) {
+                sink += validateAll(clv, c.current, c.edited, c.userPerms).length;
+            }
+            ops += 100;
+        }
+        return ops;
+    };
+    run(WARMUP_MILLIS);
+    const gcProfiler = new GCProfiler();
+    gcProfiler.start();
+    const startUsedHeapSize = getHeapStatistics().used_heap_size;
+    const start = performance.now();
+    const ops = run(MEASURE_MILLIS);
+    const nanosPerOp = (performance.now() - start) * 1e6 / ops;
+    const bytesPerOp = allocatedBytes(startUsedHeapSize, gcProfiler.stop().statistics) / ops;
+    return {nanosPerOp, bytesPerOp, sink};
+}
+
+const [rulesArg = "http://localhost:8080/validation-rules", baselineArg] = process.argv.slice(2);
+console.debug = () => {};
+console.info = () => {};
+
+const rules = await loadRules(rulesArg);
+const versions = [{name: "current", clv: await importScript(CURRENT)}];
+if (baselineArg !== undefined) {
+    versions.push({name: "baseline", clv: await importScript(baselineArg)});
+}
+versions.forEach(version => version.clv.setValidationRules(structuredClone(rules)));
+
+let sameErrors = true;
+for (const c of cases()) {
+    const expected = JSON.stringify(validateAll(versions[0].clv, c.current, c.edited, c.userPerms));
+    for (const version of versions.slice(1)) {
+        const actual = JSON.stringify(validateAll(version.clv, c.current, c.edited, c.userPerms));
+        if (actual !== expected) {
+            console.log(`${c.name}: ${version.name} errors ${actual} differ from ${expected}`);
+            sameErrors = false;
+        }
+    }
+}
+if (!sameErrors) {
+    process.exit(1);
+}
+
+for (const c of cases()) {
+    for (const version of versions) {
+        const result = measure(version.clv, c);
+        console.log(`${c.name.padEnd(56)} ${version.name.padEnd(8)} ${result.nanosPerOp.toFixed(0).padStart(9)} ns/op `
+            + `${result.bytesPerOp.toFixed(0).padStart(9)} B/op`);
+    }
+}
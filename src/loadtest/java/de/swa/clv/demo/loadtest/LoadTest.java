@@ -0,0 +1,278 @@
+package de.swa.clv.demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.swa.clv.demo.DemoApplication;
+import de.swa.clv.demo.model.Accessory;
+import de.swa.clv.demo.model.Article;
+import de.swa.clv.demo.model.Category;
+import de.swa.clv.demo.model.Status;
+import de.swa.clv.demo.model.SubCategory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a mix of requests against the REST API at a fixed arrival rate and writes a {@link LoadTestReport}. Run it
+ * with {@code mvn -Ploadtest test-compile exec:exec@loadtest}, by default against an embedded instance of the app on a
+ * random port, see the {@code loadtest.*} properties of the profile for the rate, mix, durations and the gates.
+ * <p>
+ * The requests are sent at their scheduled times regardless of the responses (an open model), and the latency is
+ * measured from the scheduled time, so a stalling server shows in the latencies instead of lowering the rate
+ * (no coordinated omission). The request types are drawn from a seeded random sequence, so two runs send the same
+ * requests in the same order.
+ */
+public final class LoadTest {
+
+    enum RequestType {
+        GET_ARTICLE("GET /article/{id}", 200),
+        CREATE_VALID("POST /article (valid)", 200),
+        CREATE_INVALID("POST /article (invalid)", 400),
+        UPDATE_STALE("PUT /article (stale If-Match)", 412),
+        VALIDATION_RULES("GET /validation-rules", 200);
+
+        final String label;
+        final int expectedStatus;
+
+        RequestType(String label, int expectedStatus) {
+            this.label = label;
+            this.expectedStatus = expectedStatus;
+        }
+    }
+
+    record Config(String url, int rate, int warmupSeconds, int durationSeconds, Map<RequestType, Integer> mix,
+            long seed, int maxInFlight, Path report, double maxP99Millis) {
+
+        static Config fromSystemProperties() {
+            Map<RequestType, Integer> mix = new LinkedHashMap<>();
+            String mixProperty = System.getProperty("loadtest.mix",
+                    "GET_ARTICLE=40,CREATE_VALID=15,CREATE_INVALID=20,UPDATE_STALE=10,VALIDATION_RULES=15");
+            for (String part : mixProperty.split(",")) {
+                String[] typeAndWeight = part.trim().split("=");
+                mix.put(RequestType.valueOf(typeAndWeight[0].trim()), Integer.parseInt(typeAndWeight[1].trim()));
+            }
+            return new Config(System.getProperty("loadtest.url", ""),
+                    Integer.getInteger("loadtest.rate", 200),
+                    Integer.getInteger("loadtest.warmup-seconds", 10),
+                    Integer.getInteger("loadtest.duration-seconds", 30),
+                    mix,
+                    Long.getLong("loadtest.seed", 1),
+                    Integer.getInteger("loadtest.max-in-flight", 1000),
+                    Path.of(System.getProperty("loadtest.report", "target/loadtest-report.json")),
+                    Double.parseDouble(System.getProperty("loadtest.max-p99-ms", "0")));
+        }
+    }
+
+    // Dates as ISO strings, like the app's ObjectMapper
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private static final String NAME_PLACEHOLDER = "@name@";
+
+    private final Config config;
+    private final String baseUrl;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final RequestType[] weightedTypes;
+    // unique per run, so articles of former runs against the same instance don't clash
+    private final String namePrefix = "LT" + Long.toString(System.currentTimeMillis() % 1_000_000_000L, 36) + " ";
+    private final String validArticleTemplate;
+    private final byte[] invalidArticle;
+    private final ConcurrentLinkedQueue<Integer> createdIds = new ConcurrentLinkedQueue<>();
+    private int[] articleIds = {1};
+    private byte[] staleArticle;
+    private String staleETag;
+    private long nameSequence;
+
+    LoadTest(Config config, String baseUrl) throws IOException {
+        this.config = config;
+        this.baseUrl = baseUrl;
+        List<RequestType> types = new ArrayList<>();
+        config.mix().forEach((type, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                types.add(type);
+            }
+        });
+        if (types.isEmpty()) {
+            throw new IllegalArgumentException("The request mix has no weights");
+        }
+        this.weightedTypes = types.toArray(RequestType[]::new);
+        this.validArticleTemplate = OBJECT_MAPPER.writeValueAsString(validArticle(NAME_PLACEHOLDER));
+        this.invalidArticle = OBJECT_MAPPER.writeValueAsBytes(invalidArticle());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config config = Config.fromSystemProperties();
+        ConfigurableApplicationContext context = null;
+        String baseUrl = config.url();
+        if (baseUrl.isEmpty()) {
+            context = new SpringApplicationBuilder(DemoApplication.class).run("--server.port=0");
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        }
+        int exitCode;
+        try {
+            LoadTestReport report = new LoadTest(config, baseUrl).run(context != null);
+            report.write(config.report());
+            System.out.println(report.toJson());
+            List<String> violations = report.gateViolations(config.maxP99Millis());
+            violations.forEach(violation -> System.err.println("Gate failed: " + violation));
+            exitCode = violations.isEmpty() ? 0 : 1;
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    LoadTestReport run(boolean embedded) throws Exception {
+        prepareStaleUpdate();
+        Random random = new Random(config.seed());
+        // The warmup also creates the articles that are read by GET_ARTICLE
+        schedule(random, config.warmupSeconds(), null);
+        List<Integer> ids = new ArrayList<>(createdIds);
+        if (!ids.isEmpty()) {
+            articleIds = ids.stream().mapToInt(Integer::intValue).toArray();
+        }
+        LoadTestReport report = new LoadTestReport(config, embedded);
+        schedule(random, config.durationSeconds(), report);
+        report.finish();
+        return report;
+    }
+
+    // PUT the article unchanged once, so its former ETag is stale
+    private void prepareStaleUpdate() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/article/1")).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        staleArticle = response.body();
+        staleETag = response.headers().firstValue("ETag").orElseThrow();
+        HttpResponse<Void> update = client.send(put(staleArticle, staleETag), HttpResponse.BodyHandlers.discarding());
+        if (update.statusCode() != 200) {
+            throw new IllegalStateException("Preparing the stale update of article 1 failed with status "
+                    + update.statusCode());
+        }
+    }
+
+    private void schedule(Random random, int seconds, LoadTestReport report) {
+        long requests = (long) config.rate() * seconds;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.rate();
+        Semaphore inFlight = new Semaphore(config.maxInFlight());
+        long start = System.nanoTime();
+        for (long i = 0; i < requests; i++) {
+            long scheduledAt = start + i * intervalNanos;
+            long delay;
+            while ((delay = scheduledAt - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            RequestType type = weightedTypes[random.nextInt(weightedTypes.length)];
+            HttpRequest request = request(type, random);
+            if (report != null) {
+                report.recordSchedulerLag(System.nanoTime() - scheduledAt);
+            }
+            if (!inFlight.tryAcquire()) {
+                if (report != null) {
+                    report.recordDropped(type);
+                }
+                continue;
+            }
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                    .whenComplete((response, failure) -> {
+                        long latency = System.nanoTime() - scheduledAt;
+                        if (report != null) {
+                            report.record(type, failure == null ? response.statusCode() : 0, latency);
+                        } else if (type == RequestType.CREATE_VALID && failure == null
+                                && response.statusCode() == 200) {
+                            collectId(response.body());
+                        }
+                        inFlight.release();
+                    });
+        }
+        // wait for the responses of this phase
+        inFlight.acquireUninterruptibly(config.maxInFlight());
+    }
+
+    private HttpRequest request(RequestType type, Random random) {
+        return switch (type) {
+            case GET_ARTICLE -> HttpRequest.newBuilder(URI.create(baseUrl + "/article/"
+                    + articleIds[random.nextInt(articleIds.length)])).build();
+            case CREATE_VALID -> post(validArticleTemplate.replace(NAME_PLACEHOLDER, namePrefix + nameSequence++)
+                    .getBytes(StandardCharsets.UTF_8));
+            case CREATE_INVALID -> post(invalidArticle);
+            case UPDATE_STALE -> put(staleArticle, staleETag);
+            case VALIDATION_RULES -> HttpRequest.newBuilder(URI.create(baseUrl + "/validation-rules"))
+                    .header("Accept-Encoding", "gzip").build();
+        };
+    }
+
+    private HttpRequest post(byte[] article) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/article"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(article))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    private HttpRequest put(byte[] article, String ifMatch) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/article"))
+                .header("Content-Type", "application/json")
+                .header("If-Match", ifMatch)
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(article))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    private void collectId(byte[] article) {
+        try {
+            JsonNode id = OBJECT_MAPPER.readTree(article).path("id");
+            if (id.isInt()) {
+                createdIds.add(id.intValue());
+            }
+        } catch (IOException e) {
+            // not worth failing the warmup for
+        }
+    }
+
+    // Like ArticleValidationBenchmark: a workday in the allowed range and not in the company vacation (August)
+    private static Article validArticle(String name) {
+        LocalDate maintenanceNextDate = LocalDate.now().plusDays(7);
+        while (maintenanceNextDate.getDayOfWeek() == DayOfWeek.SATURDAY
+                || maintenanceNextDate.getDayOfWeek() == DayOfWeek.SUNDAY
+                || maintenanceNextDate.getMonth() == Month.AUGUST) {
+            maintenanceNextDate = maintenanceNextDate.plusDays(1);
+        }
+        return new Article(null, name, "DVC-H123T/Z", Status.NEW, (short) 9, maintenanceNextDate,
+                Category.ENDOSCOPY, SubCategory.SINUSCOPE,
+                List.of(new Accessory("Biopsy Forcep", 3), new Accessory("Polyp Traps", 5)), null);
+    }
+
+    private static Article invalidArticle() {
+        Article article = new Article();
+        article.setMaintenanceNextDate(LocalDate.of(2000, 1, 1));
+        article.setCategory(Category.ENDOSCOPY);
+        article.setSubCategory(SubCategory.CAMERAHEAD);
+        article.setAccessories(List.of(new Accessory("...", 1), new Accessory("Acc1", 1),
+                new Accessory("Acc1", 1), new Accessory("Acc2", 20)));
+        return article;
+    }
+
+}
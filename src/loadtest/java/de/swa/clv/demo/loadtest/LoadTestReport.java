@@ -0,0 +1,239 @@
+package de.swa.clv.demo.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The results of a {@link LoadTest} run as JSON document, so that runs can be compared and gated by a script:
+ * <ul>
+ * <li>latency percentiles (p50, p99, p999, max) per request type, exact as all samples are kept,</li>
+ * <li>throughput, i.e. the responses per second, and the requests dropped because too many were in flight,</li>
+ * <li>the status codes per request type and overall; status 0 stands for a failed connection or a timeout,</li>
+ * <li>the bytes allocated by the server per second and per request, and the GC count and time.</li>
+ * </ul>
+ * The allocations are those of all threads except the ones of the load generator, so they are only measured against
+ * the embedded instance. They are approximate, as threads that end during the run are missed.
+ */
+final class LoadTestReport {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final LoadTest.Config config;
+    private final boolean embedded;
+    private final Map<LoadTest.RequestType, Samples> samples = new EnumMap<>(LoadTest.RequestType.class);
+    private final Map<LoadTest.RequestType, Integer> dropped = new EnumMap<>(LoadTest.RequestType.class);
+    private final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final long startNanos;
+    private final Map<Long, Long> startAllocatedBytes;
+    private final long startGcCount;
+    private final long startGcMillis;
+    private long maxSchedulerLagNanos;
+    private long durationNanos;
+    private long allocatedBytes;
+    private long gcCount;
+    private long gcMillis;
+
+    LoadTestReport(LoadTest.Config config, boolean embedded) {
+        this.config = config;
+        this.embedded = embedded;
+        for (LoadTest.RequestType type : LoadTest.RequestType.values()) {
+            samples.put(type, new Samples());
+        }
+        this.startAllocatedBytes = embedded ? serverAllocatedBytes() : Map.of();
+        this.startGcCount = gcCount();
+        this.startGcMillis = gcMillis();
+        this.startNanos = System.nanoTime();
+    }
+
+    void record(LoadTest.RequestType type, int status, long latencyNanos) {
+        samples.get(type).add(status, latencyNanos);
+    }
+
+    // only called by the scheduler thread
+    void recordDropped(LoadTest.RequestType type) {
+        dropped.merge(type, 1, Integer::sum);
+    }
+
+    void recordSchedulerLag(long lagNanos) {
+        maxSchedulerLagNanos = Math.max(maxSchedulerLagNanos, lagNanos);
+    }
+
+    void finish() {
+        durationNanos = System.nanoTime() - startNanos;
+        if (embedded) {
+            serverAllocatedBytes().forEach((id, bytes) ->
+                    allocatedBytes += bytes - startAllocatedBytes.getOrDefault(id, 0L));
+        }
+        gcCount = gcCount() - startGcCount;
+        gcMillis = gcMillis() - startGcMillis;
+    }
+
+    // The allocated bytes by thread id of all threads but the main thread and the ones of the HttpClient
+    private Map<Long, Long> serverAllocatedBytes() {
+        Map<Long, Long> allocated = new HashMap<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread != Thread.currentThread() && !thread.getName().startsWith("HttpClient-")) {
+                long bytes = threadMXBean.getThreadAllocatedBytes(thread.getId());
+                if (bytes >= 0) {
+                    allocated.put(thread.getId(), bytes);
+                }
+            }
+        }
+        return allocated;
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).filter(count -> count > 0).sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).filter(time -> time > 0).sum();
+    }
+
+    /**
+     * @param maxP99Millis the max. p99 latency of each request type, 0 for no limit
+     * @return a description of each unexpected status code, of the dropped requests and of each p99 above the
+     * limit, empty if the run passed
+     */
+    List<String> gateViolations(double maxP99Millis) {
+        List<String> violations = new ArrayList<>();
+        dropped.forEach((type, count) -> violations.add(type.label + ": " + count + " requests dropped"));
+        samples.forEach((type, typeSamples) -> {
+            typeSamples.statusCounts().forEach((status, count) -> {
+                if (status != type.expectedStatus) {
+                    violations.add(type.label + ": " + count + " x status " + status + " instead of "
+                            + type.expectedStatus);
+                }
+            });
+            double p99 = typeSamples.percentileMillis(0.99);
+            if (maxP99Millis > 0 && p99 > maxP99Millis) {
+                violations.add(type.label + ": p99 " + p99 + " ms > " + maxP99Millis + " ms");
+            }
+        });
+        return violations;
+    }
+
+    String toJson() throws JsonProcessingException {
+        long responses = 0;
+        int droppedTotal = 0;
+        Map<Integer, Integer> statusCounts = new TreeMap<>();
+        Map<String, Object> requestTypes = new LinkedHashMap<>();
+        for (Map.Entry<LoadTest.RequestType, Samples> entry : samples.entrySet()) {
+            LoadTest.RequestType type = entry.getKey();
+            Samples typeSamples = entry.getValue();
+            Map<Integer, Integer> typeStatusCounts = typeSamples.statusCounts();
+            typeStatusCounts.forEach((status, count) -> statusCounts.merge(status, count, Integer::sum));
+            responses += typeSamples.count();
+            droppedTotal += dropped.getOrDefault(type, 0);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("endpoint", type.label);
+            result.put("count", typeSamples.count());
+            result.put("dropped", dropped.getOrDefault(type, 0));
+            result.put("p50Ms", typeSamples.percentileMillis(0.5));
+            result.put("p99Ms", typeSamples.percentileMillis(0.99));
+            result.put("p999Ms", typeSamples.percentileMillis(0.999));
+            result.put("maxMs", typeSamples.percentileMillis(1));
+            result.put("expectedStatus", type.expectedStatus);
+            result.put("statusCodes", typeStatusCounts);
+            requestTypes.put(type.name(), result);
+        }
+        double seconds = durationNanos / 1e9;
+
+        Map<String, Object> configuration = new LinkedHashMap<>();
+        configuration.put("url", embedded ? "embedded" : config.url());
+        configuration.put("ratePerSecond", config.rate());
+        configuration.put("warmupSeconds", config.warmupSeconds());
+        configuration.put("durationSeconds", config.durationSeconds());
+        configuration.put("mix", config.mix());
+        configuration.put("seed", config.seed());
+        configuration.put("maxInFlight", config.maxInFlight());
+
+        Map<String, Object> allocation = new LinkedHashMap<>();
+        allocation.put("serverBytesPerSecond", embedded ? Math.round(allocatedBytes / seconds) : null);
+        allocation.put("serverBytesPerRequest", embedded && responses > 0 ? allocatedBytes / responses : null);
+        allocation.put("gcCount", gcCount);
+        allocation.put("gcMillis", gcMillis);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", configuration);
+        report.put("seconds", round(seconds));
+        report.put("responses", responses);
+        report.put("dropped", droppedTotal);
+        report.put("throughputPerSecond", round(responses / seconds));
+        report.put("maxSchedulerLagMs", round(maxSchedulerLagNanos / 1e6));
+        report.put("requestTypes", requestTypes);
+        report.put("statusCodes", statusCounts);
+        report.put("allocation", allocation);
+        return OBJECT_MAPPER.writeValueAsString(report);
+    }
+
+    void write(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, toJson());
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    /**
+     * The latencies and status codes of one request type, recorded by the threads of the HttpClient.
+     */
+    private static final class Samples {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private final Map<Integer, Integer> statusCounts = new TreeMap<>();
+
+        synchronized void add(int status, long latencyNanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            statusCounts.merge(status, 1, Integer::sum);
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        synchronized Map<Integer, Integer> statusCounts() {
+            return new TreeMap<>(statusCounts);
+        }
+
+        // nearest rank, 0 without samples
+        synchronized double percentileMillis(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile * count);
+            return round(sorted[Math.max(rank, 1) - 1] / (double) TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+}
@@ -2,12 +2,17 @@ package de.swa.clv.demo;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication
 public class DemoApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(DemoApplication.class, args);
+		ConfigurableApplicationContext context = SpringApplication.run(DemoApplication.class, args);
+		// The training run of the cds profile (see pom.xml) only needs the classes loaded on startup
+		if (Boolean.getBoolean("clv.demo.exit-after-startup")) {
+			System.exit(SpringApplication.exit(context));
+		}
 	}
 
 }
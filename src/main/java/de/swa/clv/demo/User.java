@@ -1,13 +1,27 @@
 package de.swa.clv.demo;
 
-public class User {
-    private String[] permissions = new String[0];
+import de.swa.clv.demo.model.PermissionSet;
 
-    public String[] getPermissions() {
-        return permissions;
+/**
+ * The user of a request. Users are immutable, so a user resolved by {@link UserSessions} can be shared by concurrent
+ * requests without any synchronization.
+ */
+public final class User {
+
+    /** The user of requests without a session, i.e. without any permissions. */
+    public static final User ANONYMOUS = new User();
+
+    private final PermissionSet permissions;
+
+    public User() {
+        this(PermissionSet.EMPTY);
     }
 
-    public void setPermissions(String[] permissions) {
+    public User(PermissionSet permissions) {
         this.permissions = permissions;
     }
+
+    public PermissionSet getPermissions() {
+        return permissions;
+    }
 }
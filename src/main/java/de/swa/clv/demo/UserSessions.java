@@ -0,0 +1,115 @@
+package de.swa.clv.demo;
+
+import de.swa.clv.demo.model.PermissionSet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Resolves the user of a request by the session token of the {@value #TOKEN_HEADER} header. The demo has no login, the
+ * client chooses a random token and sets the permissions of its session via PUT /user-permissions.
+ * <p>
+ * Each session maps to an immutable {@link User}, so resolving a user is a single lock-free map lookup, and changing
+ * the permissions of a session replaces its user atomically without affecting the requests of other sessions.
+ * Requests without (known) token are done by {@link User#ANONYMOUS}.
+ * <p>
+ * The tokens are chosen by the clients, so their length is limited by {@link #MAX_TOKEN_LENGTH}, and their number by
+ * {@code clv.demo.users.max-sessions}: a new session beyond it evicts the least recently used one, whose client falls
+ * back to the anonymous user until it sets its permissions again. Each lookup records its time in the session, the
+ * least recently used session is only searched for when a new session exceeds the limit.
+ */
+@Component
+public class UserSessions {
+
+    public static final String TOKEN_HEADER = "X-User-Token";
+
+    static final int MAX_TOKEN_LENGTH = 64;
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final int maxSessions;
+    private final LongSupplier nanoTime;
+
+    private static final class Session {
+
+        final User user;
+        volatile long lastAccessNanos;
+
+        Session(User user, long lastAccessNanos) {
+            this.user = user;
+            this.lastAccessNanos = lastAccessNanos;
+        }
+    }
+
+    public UserSessions(@Value("${clv.demo.users.max-sessions:10000}") int maxSessions) {
+        this(maxSessions, System::nanoTime);
+    }
+
+    UserSessions(int maxSessions, LongSupplier nanoTime) {
+        this.maxSessions = Math.max(1, maxSessions);
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * @param token the session token, may be null
+     * @return the user of the session, {@link User#ANONYMOUS} if there is no session with this token
+     */
+    public User resolve(String token) {
+        if (token == null) {
+            return User.ANONYMOUS;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return User.ANONYMOUS;
+        }
+        session.lastAccessNanos = nanoTime.getAsLong();
+        return session.user;
+    }
+
+    /**
+     * Sets the permissions of the session, a new session is started for an unknown token. If there are
+     * {@code clv.demo.users.max-sessions} sessions, the least recently used one is evicted.
+     *
+     * @throws IllegalArgumentException if the token is null, longer than {@link #MAX_TOKEN_LENGTH} or has other than
+     * visible ASCII characters
+     */
+    public void setPermissions(String token, PermissionSet permissions) {
+        if (!isValidToken(token)) {
+            throw new IllegalArgumentException("Invalid user token: " + token);
+        }
+        Session previous = sessions.put(token, new Session(new User(permissions), nanoTime.getAsLong()));
+        // Only approximately bounded, concurrent new sessions may evict the same session
+        if (previous == null && sessions.size() > maxSessions) {
+            evictLeastRecentlyUsed(token);
+        }
+    }
+
+    private void evictLeastRecentlyUsed(String newToken) {
+        Map.Entry<String, Session> leastRecentlyUsed = null;
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            if (!entry.getKey().equals(newToken) && (leastRecentlyUsed == null
+                    || entry.getValue().lastAccessNanos - leastRecentlyUsed.getValue().lastAccessNanos < 0)) {
+                leastRecentlyUsed = entry;
+            }
+        }
+        if (leastRecentlyUsed != null) {
+            sessions.remove(leastRecentlyUsed.getKey(), leastRecentlyUsed.getValue());
+        }
+    }
+
+    private static boolean isValidToken(String token) {
+        if (token == null || token.isEmpty() || token.length() > MAX_TOKEN_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c <= ' ' || c > '~') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
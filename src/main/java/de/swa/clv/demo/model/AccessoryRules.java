@@ -1,6 +1,7 @@
 package de.swa.clv.demo.model;
 
 import de.swa.clv.ValidationRules;
+import de.swa.clv.demo.validation.CompiledValidationRules;
 import de.swa.clv.demo.validation.ValidationRulesGettable;
 
 // Demo on how to define rules for a class/record in a separate class
@@ -9,6 +10,7 @@ public class AccessoryRules implements ValidationRulesGettable<Accessory> {
     public static final ValidationRules<Accessory> rules = new ValidationRules<>(Accessory.class);
     static {
         rules.mandatory("name");
+        CompiledValidationRules.register(Accessory.class, rules);
     }
 
     @Override
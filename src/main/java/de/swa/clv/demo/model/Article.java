@@ -4,6 +4,11 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import de.swa.clv.UseType;
 import de.swa.clv.ValidationRules;
 import de.swa.clv.constraints.*;
+import de.swa.clv.demo.validation.CalendarRules;
+import de.swa.clv.demo.validation.CompiledValidationRules;
+import de.swa.clv.demo.validation.DayCalendar;
+import de.swa.clv.demo.validation.RollingCalendar;
+import de.swa.clv.demo.validation.ServerOnlyRules;
 import de.swa.clv.demo.validation.ValidationRulesGettable;
 import de.swa.clv.groups.ConditionsGroup;
 import de.swa.clv.groups.ConditionsTopGroup;
@@ -37,7 +42,9 @@ public final class Article implements ValidationRulesGettable<Article> {
            (here: 'content') and different constraints can be defined.
        (5) Enums are objects in Java and serialized as strings by default. Therefore, nested properties of enums like
            "category.subCategories[*]" can't be validated in a Javascript frontend easily.
-           With the help of the method "doNotSerialize()" it can be prevented that such rules are serialized.
+           CLV's method "doNotSerialize()" prevents that such rules are serialized, but the compiled rules are built
+           from the serialized rules. So the rule is registered as server-only rule instead, which is only removed from
+           the rules served to the frontend (see ServerOnlyRules).
            Besides, it is also likely not necessary to validate the rule in the frontend, because the synchronization of
            the select boxes, which is done in a frontend anyway, ensures that no wrong sub-category is transferred.
        (6) Example for a complex rule the multiple conditions needs to be logically linked with AND _and_ OR.
@@ -45,8 +52,15 @@ public final class Article implements ValidationRulesGettable<Article> {
            regex features as well, e.g. unicode property escapes like "\p{L}".
        (8) The 'index definition' [*] is just a shortcut for [0/1] (start/step definition).
        (9) Rule for concurrent modification detection - yes, it's that simple!
+       (10) The company vacation days move on every day, so they are not a CLV constraint with fixed values but a
+           calendar rule that is recomputed on date rollover (see CalendarRules). It replaces an EQUALS_NONE rule with
+           the vacation dates, which was the second content rule of "maintenanceNextDate", so it keeps that position
+           and error code.
      */
 
+    public static final RollingCalendar COMPANY_VACATION_DAYS =
+            new RollingCalendar(Article::getFakedCompanyVacationDays);
+
     public static final ValidationRules<Article> rules = new ValidationRules<>(Article.class);
     static {
         rules.mandatory("name");
@@ -79,7 +93,6 @@ public final class Article implements ValidationRulesGettable<Article> {
                         Condition.of("maintenanceIntervalMonth", Equals.notNull()),
                         Condition.of("maintenanceNextDate", Equals.notNull()))); // (3)
         rules.content("maintenanceNextDate", Weekday.anyOrNull(MONDAY, TUESDAY, WEDNESDAY, THURSDAY, FRIDAY)); // (4)
-        rules.content("maintenanceNextDate", Equals.none(getFakedCompanyVacationDates())); // (4)
         rules.content("maintenanceNextDate", Future.minMaxDaysOrNull(1, 365),
                 Condition.of("id", Equals.null_())); // (4)
         rules.update("maintenanceNextDate", Future.minMaxDaysOrNull(1, 365),
@@ -88,8 +101,7 @@ public final class Article implements ValidationRulesGettable<Article> {
         rules.content("category", Equals.anyOrNull(Category.values()));
         rules.mandatory("subCategory",
                 Condition.of("category", Equals.notNull()));
-        rules.content("subCategory", Equals.anyRefOrNull("category.subCategories[*]"))
-                .doNotSerialize(); // (5)
+        rules.content("subCategory", Equals.anyRefOrNull("category.subCategories[*]")); // (5)
 
         rules.immutable("everLeftWarehouse",
                 Condition.of("everLeftWarehouse", Equals.any(TRUE)));
@@ -120,10 +132,16 @@ public final class Article implements ValidationRulesGettable<Article> {
         rules.content("accessories[0/1].amount#sum", Range.max(AMOUNT_SUM_MAX)); // (8)
 
         rules.immutable("lastModifiedOn"); // (9)
+
+        CompiledValidationRules.register(Article.class, rules);
+        CalendarRules.contentNone(Article.class, rules, "maintenanceNextDate", 1, COMPANY_VACATION_DAYS); // (10)
+        ServerOnlyRules.content(Article.class, rules, "subCategory"); // (5)
     }
 
     private Integer id;
     private Date lastModifiedOn;
+    // Incremented by each update, sent as ETag instead of in the JSON body
+    private long version;
     private String name;
     private String number;
     private Status status;
@@ -153,6 +171,19 @@ public final class Article implements ValidationRulesGettable<Article> {
         this.lastModifiedOn = lastModifiedOn;
     }
 
+    /**
+     * Copies all properties. The accessories list is shared, articles replace it as a whole.
+     */
+    public Article(Article article) {
+        this(article.id, article.name, article.number, article.status, article.maintenanceIntervalMonth,
+                article.maintenanceNextDate, article.category, article.subCategory, article.accessories,
+                article.lastModifiedOn);
+        this.version = article.version;
+        this.medicalSet = article.medicalSet;
+        this.animalUse = article.animalUse;
+        this.everLeftWarehouse = article.everLeftWarehouse;
+    }
+
     public Integer getId() {
         return id;
     }
@@ -217,6 +248,15 @@ public final class Article implements ValidationRulesGettable<Article> {
         this.lastModifiedOn = lastModifiedOn;
     }
 
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public List<Accessory> getAccessories() {
         return accessories;
     }
@@ -263,8 +303,8 @@ public final class Article implements ValidationRulesGettable<Article> {
         return rules;
     }
 
-    protected static LocalDate[] getFakedCompanyVacationDates() {
-        LocalDate today = LocalDate.now();
+    // The upcoming 31 days of August, i.e. of this or of next year
+    static DayCalendar getFakedCompanyVacationDays(LocalDate today) {
         List<LocalDate> augustDates = IntStream.rangeClosed(1, 31).boxed()
                 .map(i -> {
                     LocalDate augustDate = LocalDate.of(today.getYear(), 8, i);
@@ -273,6 +313,6 @@ public final class Article implements ValidationRulesGettable<Article> {
                     }
                     return augustDate;
                 }).toList();
-        return augustDates.toArray(new LocalDate[0]);
+        return DayCalendar.of(augustDates);
     }
 }
@@ -0,0 +1,113 @@
+package de.swa.clv.demo.model;
+
+import de.swa.clv.UserPermissions;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of {@link Permission}s, represented as a bit set of their ordinals. The instances are interned,
+ * i.e. there is exactly one instance per distinct set, created at class-init time. So the {@link UserPermissions} of
+ * a set are created only once, and checking a permission is a single bitwise test without any allocation.
+ */
+public final class PermissionSet {
+
+    private static final Permission[] PERMISSIONS = Permission.values();
+
+    // All distinct sets, indexed by their bits
+    private static final PermissionSet[] INTERNED;
+    static {
+        if (PERMISSIONS.length > 16) {
+            throw new IllegalStateException("Too many permissions to intern all their sets: " + PERMISSIONS.length);
+        }
+        INTERNED = new PermissionSet[1 << PERMISSIONS.length];
+        for (int bits = 0; bits < INTERNED.length; bits++) {
+            INTERNED[bits] = new PermissionSet(bits);
+        }
+    }
+
+    public static final PermissionSet EMPTY = INTERNED[0];
+
+    private final long bits;
+    private final String[] names;
+    private final UserPermissions userPermissions;
+
+    private PermissionSet(long bits) {
+        this.bits = bits;
+        this.names = Arrays.stream(PERMISSIONS)
+                .filter(permission -> (bits & bitOf(permission)) != 0)
+                .map(Enum::name)
+                .toArray(String[]::new);
+        this.userPermissions = UserPermissions.of(names);
+    }
+
+    /**
+     * @param permissions the names of the permissions, null is the same as no permissions
+     * @throws IllegalArgumentException if a name is not the name of a {@link Permission}
+     */
+    public static PermissionSet of(String... permissions) {
+        if (permissions == null) {
+            return EMPTY;
+        }
+        long bits = 0;
+        for (String permission : permissions) {
+            long bit = bitOf(permission);
+            if (bit == 0) {
+                throw new IllegalArgumentException("Unknown permission: " + permission);
+            }
+            bits |= bit;
+        }
+        return INTERNED[(int) bits];
+    }
+
+    public static PermissionSet of(Permission... permissions) {
+        long bits = 0;
+        for (Permission permission : permissions) {
+            bits |= bitOf(permission);
+        }
+        return INTERNED[(int) bits];
+    }
+
+    public static long bitOf(Permission permission) {
+        return 1L << permission.ordinal();
+    }
+
+    /**
+     * @return the bit of the permission with the given name, or 0 if there is no such permission
+     */
+    public static long bitOf(String permission) {
+        for (Permission candidate : PERMISSIONS) {
+            if (candidate.name().equals(permission)) {
+                return bitOf(candidate);
+            }
+        }
+        return 0;
+    }
+
+    public boolean contains(Permission permission) {
+        return (bits & bitOf(permission)) != 0;
+    }
+
+    /**
+     * @param mask a combination of {@link #bitOf(Permission)} values
+     */
+    public boolean containsAny(long mask) {
+        return (bits & mask) != 0;
+    }
+
+    /**
+     * @return the (cached) permissions for the {@code Validator}
+     */
+    public UserPermissions toUserPermissions() {
+        return userPermissions;
+    }
+
+    public String[] toArray() {
+        return names.clone();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(names);
+    }
+
+}
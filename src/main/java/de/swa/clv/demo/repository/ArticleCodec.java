@@ -0,0 +1,136 @@
+package de.swa.clv.demo.repository;
+
+import de.swa.clv.demo.model.Accessory;
+import de.swa.clv.demo.model.Article;
+import de.swa.clv.demo.model.Category;
+import de.swa.clv.demo.model.Status;
+import de.swa.clv.demo.model.SubCategory;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Compact binary encoding of articles for the journal and its snapshots. Enum constants are encoded by name, so
+ * reordering them doesn't corrupt existing files. Decoding reads from a buffer, as the recovery decodes millions of
+ * articles and stream reads would cost a synchronized call per byte.
+ * <p>
+ * The version comes last: records are read from a slice of their own length, so records written before articles had
+ * a version are read with version 0.
+ */
+final class ArticleCodec {
+
+    private static final int NULL_LENGTH = -1;
+    private static final int ANIMAL_USE = 1;
+    private static final int EVER_LEFT_WAREHOUSE = 2;
+
+    private ArticleCodec() {
+    }
+
+    static void write(Article article, DataOutput out) throws IOException {
+        out.writeInt(article.getId());
+        writeNullableLong(article.getLastModifiedOn() == null ? null : article.getLastModifiedOn().getTime(), out);
+        writeString(article.getName(), out);
+        writeString(article.getNumber(), out);
+        writeEnum(article.getStatus(), out);
+        writeString(article.getMedicalSet(), out);
+        out.writeByte((article.isAnimalUse() ? ANIMAL_USE : 0)
+                | (article.isEverLeftWarehouse() ? EVER_LEFT_WAREHOUSE : 0));
+        LocalDate maintenanceNextDate = article.getMaintenanceNextDate();
+        writeNullableLong(maintenanceNextDate == null ? null : maintenanceNextDate.toEpochDay(), out);
+        Short maintenanceIntervalMonth = article.getMaintenanceIntervalMonth();
+        out.writeBoolean(maintenanceIntervalMonth != null);
+        if (maintenanceIntervalMonth != null) {
+            out.writeShort(maintenanceIntervalMonth);
+        }
+        writeEnum(article.getCategory(), out);
+        writeEnum(article.getSubCategory(), out);
+        List<Accessory> accessories = article.getAccessories();
+        out.writeInt(accessories == null ? NULL_LENGTH : accessories.size());
+        if (accessories != null) {
+            for (Accessory accessory : accessories) {
+                writeString(accessory.name(), out);
+                out.writeInt(accessory.amount());
+            }
+        }
+        out.writeLong(article.getVersion());
+    }
+
+    static Article read(ByteBuffer in) {
+        Article article = new Article();
+        article.setId(in.getInt());
+        Long lastModifiedOn = readNullableLong(in);
+        article.setLastModifiedOn(lastModifiedOn == null ? null : new Date(lastModifiedOn));
+        article.setName(readString(in));
+        article.setNumber(readString(in));
+        article.setStatus(readEnum(Status.class, in));
+        article.setMedicalSet(readString(in));
+        int flags = in.get();
+        article.setAnimalUse((flags & ANIMAL_USE) != 0);
+        article.setEverLeftWarehouse((flags & EVER_LEFT_WAREHOUSE) != 0);
+        Long maintenanceNextDate = readNullableLong(in);
+        article.setMaintenanceNextDate(maintenanceNextDate == null ? null : LocalDate.ofEpochDay(maintenanceNextDate));
+        article.setMaintenanceIntervalMonth(in.get() != 0 ? in.getShort() : null);
+        article.setCategory(readEnum(Category.class, in));
+        article.setSubCategory(readEnum(SubCategory.class, in));
+        int accessoryCount = in.getInt();
+        if (accessoryCount == NULL_LENGTH) {
+            article.setAccessories(null);
+        } else {
+            List<Accessory> accessories = new ArrayList<>(accessoryCount);
+            for (int i = 0; i < accessoryCount; i++) {
+                accessories.add(new Accessory(readString(in), in.getInt()));
+            }
+            article.setAccessories(accessories);
+        }
+        article.setVersion(in.hasRemaining() ? in.getLong() : 0);
+        return article;
+    }
+
+    private static void writeNullableLong(Long value, DataOutput out) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readNullableLong(ByteBuffer in) {
+        return in.get() != 0 ? in.getLong() : null;
+    }
+
+    // Unlike writeUTF() not limited to 64 KiB
+    private static void writeString(String value, DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeEnum(Enum<?> value, DataOutput out) throws IOException {
+        writeString(value == null ? null : value.name(), out);
+    }
+
+    private static <E extends Enum<E>> E readEnum(Class<E> type, ByteBuffer in) {
+        String name = readString(in);
+        return name == null ? null : Enum.valueOf(type, name);
+    }
+
+}
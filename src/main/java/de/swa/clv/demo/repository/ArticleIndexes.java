@@ -0,0 +1,279 @@
+package de.swa.clv.demo.repository;
+
+import de.swa.clv.demo.model.Article;
+import de.swa.clv.demo.model.Category;
+import de.swa.clv.demo.model.Status;
+import de.swa.clv.demo.model.SubCategory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The secondary indexes of the {@link InMemoryArticleRepository} for {@link ArticleQuery}:
+ * <ul>
+ * <li>a {@link ConcurrentBitmap} of the ids per status, category and subCategory value and per boolean flag</li>
+ * <li>a sorted map from maintenanceNextDate to the sorted ids with that date</li>
+ * </ul>
+ * Queries without date range join the bitmaps in id order, queries with a date range walk the date index. The indexes
+ * only provide candidates: each one is checked against the stored article, so a query never returns an article that
+ * doesn't match, even while it is updated concurrently.
+ */
+final class ArticleIndexes {
+
+    private final ConcurrentBitmap ids = new ConcurrentBitmap();
+    private final Map<Status, ConcurrentBitmap> statuses = bitmaps(Status.class);
+    private final Map<Category, ConcurrentBitmap> categories = bitmaps(Category.class);
+    private final Map<SubCategory, ConcurrentBitmap> subCategories = bitmaps(SubCategory.class);
+    private final ConcurrentBitmap animalUse = new ConcurrentBitmap();
+    private final ConcurrentBitmap everLeftWarehouse = new ConcurrentBitmap();
+    // Sets that become empty are kept, their number is bounded by the number of distinct dates
+    private final ConcurrentSkipListMap<LocalDate, ConcurrentSkipListSet<Integer>> maintenanceNextDates =
+            new ConcurrentSkipListMap<>();
+
+    /**
+     * Updates the indexes for a stored article. The new entries are added before the outdated ones are removed. Must
+     * not run concurrently for the same id, so the repository calls it within the atomic update of its map.
+     *
+     * @param old the replaced article, null for a new one
+     */
+    void update(Article old, Article updated) {
+        int id = updated.getId();
+        ids.set(id);
+        update(statuses, old == null ? null : old.getStatus(), updated.getStatus(), id);
+        update(categories, old == null ? null : old.getCategory(), updated.getCategory(), id);
+        update(subCategories, old == null ? null : old.getSubCategory(), updated.getSubCategory(), id);
+        update(animalUse, old != null && old.isAnimalUse(), updated.isAnimalUse(), id);
+        update(everLeftWarehouse, old != null && old.isEverLeftWarehouse(), updated.isEverLeftWarehouse(), id);
+        LocalDate oldDate = old == null ? null : old.getMaintenanceNextDate();
+        LocalDate newDate = updated.getMaintenanceNextDate();
+        if (!Objects.equals(oldDate, newDate)) {
+            if (newDate != null) {
+                maintenanceNextDates.computeIfAbsent(newDate, date -> new ConcurrentSkipListSet<>()).add(id);
+            }
+            if (oldDate != null) {
+                maintenanceNextDates.get(oldDate).remove(id);
+            }
+        }
+    }
+
+    /**
+     * @param articles looks up the stored article of an id, null if there is none
+     */
+    Stream<Article> find(ArticleQuery query, ArticleQuery.Cursor after, IntFunction<Article> articles) {
+        Spliterator<Article> spliterator = query.hasDateRange()
+                ? new DateOrderSpliterator(query, after, articles)
+                : new IdOrderSpliterator(query, after, articles);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    private static <E extends Enum<E>> Map<E, ConcurrentBitmap> bitmaps(Class<E> type) {
+        Map<E, ConcurrentBitmap> bitmaps = new EnumMap<>(type);
+        for (E value : type.getEnumConstants()) {
+            bitmaps.put(value, new ConcurrentBitmap());
+        }
+        return bitmaps;
+    }
+
+    private static <E extends Enum<E>> void update(Map<E, ConcurrentBitmap> bitmaps, E oldValue, E newValue, int id) {
+        if (oldValue != newValue) {
+            update(newValue == null ? null : bitmaps.get(newValue), oldValue == null ? null : bitmaps.get(oldValue),
+                    id);
+        }
+    }
+
+    private static void update(ConcurrentBitmap bitmap, boolean oldValue, boolean newValue, int id) {
+        if (oldValue != newValue) {
+            update(newValue ? bitmap : null, oldValue ? bitmap : null, id);
+        }
+    }
+
+    private static void update(ConcurrentBitmap setIn, ConcurrentBitmap clearIn, int id) {
+        if (setIn != null) {
+            setIn.set(id);
+        }
+        if (clearIn != null) {
+            clearIn.clear(id);
+        }
+    }
+
+    private static ConcurrentBitmap[] selected(Map<? extends Enum<?>, ConcurrentBitmap> bitmaps, Set<?> values) {
+        return values.stream().map(bitmaps::get).toArray(ConcurrentBitmap[]::new);
+    }
+
+    /**
+     * Walks the bitmaps in id order as leapfrog join: each selected dimension, i.e. the union of the bitmaps of the
+     * selected values resp. the bitmap of a flag that has to be set, moves the candidate to its next id that is not
+     * lower, until all of them agree. As {@link ConcurrentBitmap#nextSetBit(int)} skips empty ranges via its summary,
+     * the cost depends on the number of leaps, not on the number of non-matching articles in between.
+     * Flags that must not be set are only checked for the candidates found.
+     */
+    private final class IdOrderSpliterator extends Spliterators.AbstractSpliterator<Article> {
+
+        private final ArticleQuery query;
+        private final IntFunction<Article> articles;
+        private final ConcurrentBitmap[][] dimensions;
+        private final ConcurrentBitmap[] notSet;
+        private int nextId;
+
+        IdOrderSpliterator(ArticleQuery query, ArticleQuery.Cursor after, IntFunction<Article> articles) {
+            super(Long.MAX_VALUE, ORDERED | DISTINCT | NONNULL);
+            this.query = query;
+            this.articles = articles;
+            List<ConcurrentBitmap[]> selected = new ArrayList<>();
+            List<ConcurrentBitmap> unset = new ArrayList<>();
+            selected.add(new ConcurrentBitmap[] {ids});
+            selected.add(selected(statuses, query.statuses()));
+            selected.add(selected(categories, query.categories()));
+            selected.add(selected(subCategories, query.subCategories()));
+            flag(query.animalUse(), animalUse, selected, unset);
+            flag(query.everLeftWarehouse(), everLeftWarehouse, selected, unset);
+            // No bitmaps means no filter
+            selected.removeIf(bitmaps -> bitmaps.length == 0);
+            this.dimensions = selected.toArray(ConcurrentBitmap[][]::new);
+            this.notSet = unset.toArray(ConcurrentBitmap[]::new);
+            this.nextId = after == null ? 0 : Math.max(0, after.id() + 1);
+        }
+
+        private static void flag(Boolean value, ConcurrentBitmap bitmap, List<ConcurrentBitmap[]> selected,
+                List<ConcurrentBitmap> unset) {
+            if (Boolean.TRUE.equals(value)) {
+                selected.add(new ConcurrentBitmap[] {bitmap});
+            } else if (Boolean.FALSE.equals(value)) {
+                unset.add(bitmap);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Article> action) {
+            while (nextId >= 0) {
+                int id = nextCandidate(nextId);
+                if (id < 0) {
+                    nextId = -1;
+                    return false;
+                }
+                nextId = id + 1;
+                Article article = articles.apply(id);
+                if (article != null && query.matches(article)) {
+                    action.accept(article);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int nextCandidate(int fromId) {
+            int candidate = fromId;
+            while (candidate >= 0) {
+                int agreed = 0;
+                for (int i = 0; agreed < dimensions.length; i = (i + 1) % dimensions.length) {
+                    int next = nextSetBit(dimensions[i], candidate);
+                    if (next < 0) {
+                        return -1;
+                    }
+                    if (next == candidate) {
+                        agreed++;
+                    } else {
+                        candidate = next;
+                        agreed = 1;
+                    }
+                }
+                if (noneSet(candidate)) {
+                    return candidate;
+                }
+                candidate++;
+            }
+            return -1;
+        }
+
+        private boolean noneSet(int id) {
+            for (ConcurrentBitmap bitmap : notSet) {
+                if (bitmap.get(id)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int nextSetBit(ConcurrentBitmap[] union, int fromId) {
+            int next = -1;
+            for (ConcurrentBitmap bitmap : union) {
+                int bit = bitmap.nextSetBit(fromId);
+                if (bit >= 0 && (next < 0 || bit < next)) {
+                    next = bit;
+                }
+            }
+            return next;
+        }
+    }
+
+    /**
+     * Walks the date index from the start of the range resp. the cursor, i.e. only the articles within the range are
+     * visited.
+     */
+    private final class DateOrderSpliterator extends Spliterators.AbstractSpliterator<Article> {
+
+        private final ArticleQuery query;
+        private final ArticleQuery.Cursor after;
+        private final IntFunction<Article> articles;
+        private final Iterator<Map.Entry<LocalDate, ConcurrentSkipListSet<Integer>>> dates;
+        private LocalDate date;
+        private Iterator<Integer> idsOfDate;
+
+        DateOrderSpliterator(ArticleQuery query, ArticleQuery.Cursor after, IntFunction<Article> articles) {
+            super(Long.MAX_VALUE, ORDERED | DISTINCT | NONNULL);
+            this.query = query;
+            this.after = after;
+            this.articles = articles;
+            NavigableMap<LocalDate, ConcurrentSkipListSet<Integer>> range = maintenanceNextDates;
+            LocalDate from = query.maintenanceNextDateFrom();
+            if (after != null && (from == null || after.maintenanceNextDate().isAfter(from))) {
+                from = after.maintenanceNextDate();
+            }
+            if (from != null) {
+                range = range.tailMap(from, true);
+            }
+            if (query.maintenanceNextDateTo() != null) {
+                range = range.headMap(query.maintenanceNextDateTo(), true);
+            }
+            this.dates = range.entrySet().iterator();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Article> action) {
+            while (true) {
+                while (idsOfDate == null || !idsOfDate.hasNext()) {
+                    if (!dates.hasNext()) {
+                        return false;
+                    }
+                    Map.Entry<LocalDate, ConcurrentSkipListSet<Integer>> entry = dates.next();
+                    date = entry.getKey();
+                    idsOfDate = after != null && date.equals(after.maintenanceNextDate())
+                            ? entry.getValue().tailSet(after.id(), false).iterator()
+                            : entry.getValue().iterator();
+                }
+                Article article = articles.apply(idsOfDate.next());
+                // The date check skips an article that has moved to another date meanwhile, so it isn't returned twice
+                if (article != null && date.equals(article.getMaintenanceNextDate()) && query.matches(article)) {
+                    action.accept(article);
+                    return true;
+                }
+            }
+        }
+    }
+
+}
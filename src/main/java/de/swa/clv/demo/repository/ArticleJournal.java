@@ -0,0 +1,538 @@
+package de.swa.clv.demo.repository;
+
+import de.swa.clv.demo.model.Article;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the article writes, stored as memory-mapped segment files {@code journal-<sequence>.log} in
+ * one directory. Every record holds the complete article, so replaying a record just replaces the article.
+ * <p>
+ * Record layout: payload length (int), CRC32 of type and payload (int), type (byte), payload (see
+ * {@link ArticleCodec}). Segments are preallocated with zeros, so a zero length marks the end of a segment and a wrong
+ * checksum a torn write; replaying a segment stops at either.
+ * <p>
+ * A snapshot {@code snapshot-<sequence>.bin} holds all articles in the same record format, the journal is replayed
+ * from segment {@code <sequence>} on. Snapshots are fuzzy: the journal is rolled over to a new segment first, then the
+ * articles are read while writes go on. As every article written since the roll-over is replaced by the replay, the
+ * recovered state is exact nonetheless. Once a snapshot is complete, the snapshots and segments before the previous
+ * snapshot are deleted: if the latest snapshot is unreadable, the recovery falls back to the previous one (or to a
+ * full replay if there is none).
+ * <p>
+ * If forcing the journal to disk fails, it's unknown which records are durable, so all further appends are rejected
+ * until a restart recovers the journal from disk.
+ */
+final class ArticleJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ArticleJournal.class);
+
+    enum Durability {
+        /** Each write is forced to disk on its own before it returns. */
+        WRITE,
+        /** Concurrent writes are forced to disk together (group commit), each write returns once it is durable. */
+        BATCH,
+        /** Writes return at once, the journal is forced to disk periodically by {@link #force()}. */
+        ASYNC
+    }
+
+    record Settings(Path directory, Durability durability, int segmentSize) {
+    }
+
+    /**
+     * The state recovered from the journal; {@code fresh} if there has been no journal at all.
+     */
+    record Recovery(Map<Integer, Article> articles, boolean fresh) {
+    }
+
+    static final byte CREATE = 1;
+    static final byte UPDATE = 2;
+    private static final byte SNAPSHOT_ARTICLE = 3;
+    private static final byte SNAPSHOT_END = 4;
+
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Byte.BYTES;
+    private static final int MAX_PAYLOAD_SIZE = 64 << 20;
+    private static final Pattern SEGMENT_FILE = Pattern.compile("journal-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT_FILE = Pattern.compile("snapshot-(\\d+)\\.bin");
+
+    // The payload is only valid until the next record is read
+    private record Record(byte type, ByteBuffer payload) {
+    }
+
+    // Read instead of a record that is incomplete or has a wrong checksum
+    private static final Record TORN = new Record((byte) 0, ByteBuffer.allocate(0));
+
+    private final Path directory;
+    private final Durability durability;
+    private final int segmentSize;
+
+    private final Object writeLock = new Object();
+    private final Object forceLock = new Object();
+    private final Object snapshotLock = new Object();
+
+    // guarded by writeLock
+    private Segment segment;
+    private long writtenRecords;
+    private long snapshotRecords;
+
+    private volatile long forcedRecords;
+    private volatile RuntimeException failure;
+
+    ArticleJournal(Settings settings) {
+        this.directory = settings.directory();
+        this.durability = settings.durability();
+        this.segmentSize = settings.segmentSize();
+    }
+
+    /**
+     * Reads the latest readable snapshot and replays the journal segments written after it, then starts a new segment
+     * for the following writes. Must be called once before anything is appended.
+     *
+     * @throws IllegalStateException if no snapshot is readable and the journal before the oldest one is deleted
+     */
+    Recovery recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Long> snapshots = sequences(SNAPSHOT_FILE);
+        List<Long> segments = sequences(SEGMENT_FILE);
+        Map<Integer, Article> articles = new HashMap<>();
+        long replayFrom = -1;
+        for (int i = snapshots.size() - 1; i >= 0 && replayFrom < 0; i--) {
+            try {
+                readSnapshot(snapshotFile(snapshots.get(i)), articles);
+                replayFrom = snapshots.get(i);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Snapshot {} is not readable, falling back to the previous one", snapshotFile(snapshots.get(i)),
+                        e);
+                articles.clear();
+            }
+        }
+        if (replayFrom < 0) {
+            if (!segments.isEmpty() && segments.get(0) > 0) {
+                throw new IllegalStateException("No snapshot in " + directory + " is readable and the journal before "
+                        + segmentFile(segments.get(0)).getFileName() + " has been deleted");
+            }
+            replayFrom = 0;
+        }
+        long replayedRecords = 0;
+        long nextSegment = replayFrom;
+        for (long sequence : segments) {
+            if (sequence >= replayFrom) {
+                replayedRecords += replaySegment(segmentFile(sequence), articles);
+            }
+            nextSegment = Math.max(nextSegment, sequence + 1);
+        }
+        log.info("Recovered {} articles from {}, {} journal records replayed", articles.size(), directory,
+                replayedRecords);
+        synchronized (writeLock) {
+            segment = Segment.create(segmentFile(nextSegment), nextSegment, segmentSize);
+            // the replayed records are not in a snapshot yet
+            writtenRecords = replayedRecords;
+            snapshotRecords = 0;
+            forcedRecords = replayedRecords;
+        }
+        return new Recovery(articles, snapshots.isEmpty() && segments.isEmpty());
+    }
+
+    /**
+     * Appends a record for the given article. Unless the durability is {@link Durability#WRITE}, the record is not
+     * necessarily on disk yet, see {@link #awaitDurable(long)}.
+     *
+     * @return the number of the record
+     */
+    long append(byte type, Article article) {
+        byte[] payload = encode(article);
+        int checksum = checksum(type, payload);
+        synchronized (writeLock) {
+            checkWritable();
+            if (segment.buffer.remaining() < HEADER_SIZE + payload.length) {
+                roll(HEADER_SIZE + payload.length);
+            }
+            segment.buffer.putInt(payload.length).putInt(checksum).put(type).put(payload);
+            long record = ++writtenRecords;
+            if (durability == Durability.WRITE) {
+                force(segment, segment.buffer.position());
+                forcedRecords = record;
+            }
+            return record;
+        }
+    }
+
+    /**
+     * Waits until the given record is on disk if the durability is {@link Durability#BATCH}. The first waiting thread
+     * forces all records written so far, the threads that queue up meanwhile are served by the next force.
+     */
+    void awaitDurable(long record) {
+        if (durability != Durability.BATCH || forcedRecords >= record) {
+            return;
+        }
+        synchronized (forceLock) {
+            if (forcedRecords < record) {
+                force();
+            }
+        }
+    }
+
+    /**
+     * Forces all records written so far to disk.
+     */
+    void force() {
+        synchronized (forceLock) {
+            Segment current;
+            int position;
+            long written;
+            synchronized (writeLock) {
+                current = segment;
+                position = current.buffer.position();
+                written = writtenRecords;
+            }
+            // Older segments have been forced when the journal rolled over
+            force(current, position);
+            forcedRecords = written;
+        }
+    }
+
+    /**
+     * Writes a snapshot if records have been appended since the last one.
+     *
+     * @param articlesUpTo returns a view of all articles that reflects at least the writes up to the given record
+     * @return whether a snapshot has been written
+     */
+    boolean snapshot(LongFunction<Collection<Article>> articlesUpTo) throws IOException {
+        synchronized (snapshotLock) {
+            long replayFrom;
+            long recordsAtRoll;
+            synchronized (writeLock) {
+                if (writtenRecords == snapshotRecords) {
+                    return false;
+                }
+                checkWritable();
+                recordsAtRoll = writtenRecords;
+                roll(0);
+                replayFrom = segment.sequence;
+            }
+            Collection<Article> articles = articlesUpTo.apply(recordsAtRoll);
+            Path snapshotFile = snapshotFile(replayFrom);
+            Path tempFile = directory.resolve(snapshotFile.getFileName() + ".tmp");
+            int count = 0;
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 DataOutputStream out = new DataOutputStream(
+                         new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+                for (Article article : articles) {
+                    writeRecord(SNAPSHOT_ARTICLE, encode(article), out);
+                    count++;
+                }
+                writeRecord(SNAPSHOT_END, new byte[] {
+                        (byte) (count >>> 24), (byte) (count >>> 16), (byte) (count >>> 8), (byte) count}, out);
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(tempFile, snapshotFile, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (writeLock) {
+                snapshotRecords = Math.max(snapshotRecords, recordsAtRoll);
+            }
+            // The previous snapshot is kept for the recovery, in case this one gets unreadable
+            long previousSnapshot = sequences(SNAPSHOT_FILE).stream()
+                    .filter(sequence -> sequence < replayFrom)
+                    .reduce((first, second) -> second)
+                    .orElse(0L);
+            deleteBefore(previousSnapshot);
+            log.info("Snapshot {} with {} articles written", snapshotFile.getFileName(), count);
+            return true;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (writeLock) {
+            if (segment != null) {
+                try {
+                    if (failure == null) {
+                        force(segment, segment.buffer.position());
+                        forcedRecords = writtenRecords;
+                    }
+                } finally {
+                    segment.close();
+                }
+            }
+        }
+    }
+
+    // guarded by writeLock
+    private void checkWritable() {
+        if (segment.closed) {
+            throw new IllegalStateException("Journal " + directory + " is closed");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Forcing the journal to disk has failed, it must be recovered by a restart",
+                    failure);
+        }
+    }
+
+    private void force(Segment segment, int position) {
+        try {
+            segment.force(position);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        }
+    }
+
+    // guarded by writeLock
+    private void roll(int minSize) {
+        force(segment, segment.buffer.position());
+        segment.close();
+        long sequence = segment.sequence + 1;
+        try {
+            segment = Segment.create(segmentFile(sequence), sequence, Math.max(segmentSize, minSize));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal segment " + sequence + " can't be created", e);
+        }
+    }
+
+    private void deleteBefore(long sequence) throws IOException {
+        for (long snapshot : sequences(SNAPSHOT_FILE)) {
+            if (snapshot < sequence) {
+                Files.deleteIfExists(snapshotFile(snapshot));
+            }
+        }
+        for (long segmentSequence : sequences(SEGMENT_FILE)) {
+            if (segmentSequence < sequence) {
+                Files.deleteIfExists(segmentFile(segmentSequence));
+            }
+        }
+    }
+
+    private void readSnapshot(Path file, Map<Integer, Article> articles) throws IOException {
+        try (RecordReader in = new RecordReader(file)) {
+            int count = 0;
+            Record record;
+            while ((record = in.next()) != null && record != TORN) {
+                if (record.type() == SNAPSHOT_END) {
+                    if (record.payload().getInt() != count) {
+                        break;
+                    }
+                    return;
+                }
+                Article article = ArticleCodec.read(record.payload());
+                articles.put(article.getId(), article);
+                count++;
+            }
+        }
+        throw new IllegalStateException("Snapshot " + file + " is incomplete");
+    }
+
+    private long replaySegment(Path file, Map<Integer, Article> articles) throws IOException {
+        long count = 0;
+        try (RecordReader in = new RecordReader(file)) {
+            Record record;
+            while ((record = in.next()) != null && record != TORN) {
+                Article article = ArticleCodec.read(record.payload());
+                articles.put(article.getId(), article);
+                count++;
+            }
+            if (record == TORN) {
+                // Only a write that has not been acknowledged as durable can be torn
+                log.warn("Journal segment {} ends with a torn record after {} records", file, count);
+            }
+        }
+        return count;
+    }
+
+    private static void writeRecord(byte type, byte[] payload, DataOutputStream out) throws IOException {
+        out.writeInt(payload.length);
+        out.writeInt(checksum(type, payload));
+        out.writeByte(type);
+        out.write(payload);
+    }
+
+    private static byte[] encode(Article article) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            ArticleCodec.write(article, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static int checksum(byte type, byte[] payload) {
+        return checksum(type, ByteBuffer.wrap(payload));
+    }
+
+    // Doesn't move the position of the payload
+    private static int checksum(byte type, ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload.duplicate());
+        return (int) crc.getValue();
+    }
+
+    private List<Long> sequences(Pattern fileName) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> fileName.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentFile(long sequence) {
+        return directory.resolve(String.format("journal-%016d.log", sequence));
+    }
+
+    private Path snapshotFile(long sequence) {
+        return directory.resolve(String.format("snapshot-%016d.bin", sequence));
+    }
+
+    /**
+     * Reads the records of a file through one reused buffer.
+     */
+    private static final class RecordReader implements Closeable {
+
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 20).flip();
+
+        RecordReader(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        }
+
+        // Returns null at the end of the records, i.e. at EOF or at a zero length
+        Record next() throws IOException {
+            if (!fill(Integer.BYTES)) {
+                return null;
+            }
+            int length = buffer.getInt();
+            if (length == 0) {
+                return null;
+            }
+            if (length < 0 || length > MAX_PAYLOAD_SIZE || !fill(HEADER_SIZE - Integer.BYTES + length)) {
+                return TORN;
+            }
+            int checksum = buffer.getInt();
+            byte type = buffer.get();
+            ByteBuffer payload = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            return checksum == checksum(type, payload) ? new Record(type, payload) : TORN;
+        }
+
+        // Whether the given number of bytes could be buffered
+        private boolean fill(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return true;
+            }
+            if (bytes > buffer.capacity()) {
+                buffer = ByteBuffer.allocate(bytes).put(buffer).flip();
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            return buffer.remaining() >= bytes;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static final class Segment {
+
+        // Unmaps a buffer at once, otherwise the mapping of a closed segment is only released when the buffer is
+        // garbage collected, and the file of a deleted segment keeps its disk space until then
+        private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+        final long sequence;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        private int forcedPosition;
+        private volatile boolean closed;
+
+        private Segment(long sequence, FileChannel channel, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment create(Path file, long sequence, int size) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            return new Segment(sequence, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        // A closed segment has been forced completely, see roll()
+        synchronized void force(int position) {
+            if (!closed && position > forcedPosition) {
+                buffer.force(forcedPosition, position - forcedPosition);
+                forcedPosition = position;
+            }
+        }
+
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Journal segment {} can't be closed", sequence, e);
+            }
+            if (INVOKE_CLEANER != null) {
+                try {
+                    INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+                } catch (Throwable e) {
+                    log.warn("Journal segment {} can't be unmapped", sequence, e);
+                }
+            }
+        }
+
+        // sun.misc.Unsafe.invokeCleaner(), by reflection as it's not a supported API
+        private static MethodHandle invokeCleaner() {
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                return MethodHandles.lookup()
+                        .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                        .bindTo(field.get(null));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                log.info("Journal segments are unmapped by the garbage collector: {}", e.toString());
+                return null;
+            }
+        }
+    }
+
+}
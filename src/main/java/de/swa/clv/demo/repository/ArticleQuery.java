@@ -0,0 +1,96 @@
+package de.swa.clv.demo.repository;
+
+import de.swa.clv.demo.model.Article;
+import de.swa.clv.demo.model.Category;
+import de.swa.clv.demo.model.Status;
+import de.swa.clv.demo.model.SubCategory;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Filter of {@link ArticleRepository#find(ArticleQuery, Cursor)}. An empty set or a null value doesn't filter, the
+ * values of one set are alternatives. The maintenanceNextDate range is inclusive and may be open on one side.
+ * <p>
+ * The articles are ordered by id, or by maintenanceNextDate and id if there is a date range.
+ */
+public record ArticleQuery(Set<Status> statuses, Set<Category> categories, Set<SubCategory> subCategories,
+        Boolean animalUse, Boolean everLeftWarehouse, LocalDate maintenanceNextDateFrom,
+        LocalDate maintenanceNextDateTo) {
+
+    public static final ArticleQuery ALL = new ArticleQuery(null, null, null, null, null, null, null);
+
+    public ArticleQuery {
+        statuses = enumSet(Status.class, statuses);
+        categories = enumSet(Category.class, categories);
+        subCategories = enumSet(SubCategory.class, subCategories);
+    }
+
+    /**
+     * The position after an article in the order of a query. Its string form is {@code <id>} resp.
+     * {@code <maintenanceNextDate>_<id>} if ordered by date.
+     */
+    public record Cursor(LocalDate maintenanceNextDate, int id) {
+
+        @Override
+        public String toString() {
+            return maintenanceNextDate == null ? String.valueOf(id) : maintenanceNextDate + "_" + id;
+        }
+    }
+
+    public boolean hasDateRange() {
+        return maintenanceNextDateFrom != null || maintenanceNextDateTo != null;
+    }
+
+    public boolean matches(Article article) {
+        return (statuses.isEmpty() || statuses.contains(article.getStatus()))
+                && (categories.isEmpty() || categories.contains(article.getCategory()))
+                && (subCategories.isEmpty() || subCategories.contains(article.getSubCategory()))
+                && (animalUse == null || animalUse == article.isAnimalUse())
+                && (everLeftWarehouse == null || everLeftWarehouse == article.isEverLeftWarehouse())
+                && (!hasDateRange() || isInDateRange(article.getMaintenanceNextDate()));
+    }
+
+    /**
+     * @return the cursor for the next page after the given article
+     */
+    public Cursor cursorAfter(Article article) {
+        return new Cursor(hasDateRange() ? article.getMaintenanceNextDate() : null, article.getId());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor is malformed or doesn't fit the order of this query
+     */
+    public Cursor parseCursor(String cursor) {
+        String[] parts = cursor.split("_", -1);
+        if (parts.length != (hasDateRange() ? 2 : 1)) {
+            throw new IllegalArgumentException("Cursor '" + cursor + "' doesn't fit the query");
+        }
+        try {
+            int id = Integer.parseInt(parts[parts.length - 1]);
+            return new Cursor(parts.length == 2 ? LocalDate.parse(parts[0]) : null, id);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor '" + cursor + "' is malformed", e);
+        }
+    }
+
+    boolean isInDateRange(LocalDate date) {
+        return date != null
+                && (maintenanceNextDateFrom == null || !date.isBefore(maintenanceNextDateFrom))
+                && (maintenanceNextDateTo == null || !date.isAfter(maintenanceNextDateTo));
+    }
+
+    private static <E extends Enum<E>> Set<E> enumSet(Class<E> type, Collection<E> values) {
+        EnumSet<E> set = EnumSet.noneOf(type);
+        if (values != null) {
+            values.stream().filter(Objects::nonNull).forEach(set::add);
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
+}
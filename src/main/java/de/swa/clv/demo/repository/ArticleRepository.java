@@ -0,0 +1,64 @@
+package de.swa.clv.demo.repository;
+
+import de.swa.clv.demo.model.Article;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Storage of articles. Implementations must be safe for use by concurrent request threads.
+ */
+public interface ArticleRepository {
+
+    enum WriteResult {
+        OK,
+        /** Another article already has the same name (ignoring case). */
+        NAME_NOT_UNIQUE,
+        /** The id is already in use resp. the article has been replaced by someone else in the meantime. */
+        CONFLICT
+    }
+
+    Optional<Article> findById(int id);
+
+    /**
+     * Looks up the id of the article with the given name, ignoring case. The cost does not depend on the number of
+     * stored articles.
+     */
+    Optional<Integer> findIdByName(String name);
+
+    /**
+     * @return a weakly consistent view of all stored articles, i.e. iterating it never fails because of concurrent
+     * writes, but may or may not reflect them
+     */
+    Collection<Article> findAll();
+
+    /**
+     * Finds the articles matching the query in the order of the query, starting after the cursor. The stream is lazy
+     * and weakly consistent like {@link #findAll()}, but only returns articles that match at the time they are read.
+     * The cost scales with the number of articles read from the stream, not with the number of stored articles.
+     *
+     * @param after the cursor of the last article of the previous page, null for the first page
+     */
+    Stream<Article> find(ArticleQuery query, ArticleQuery.Cursor after);
+
+    int count();
+
+    /**
+     * @return a new unique article id
+     */
+    int nextId();
+
+    /**
+     * Stores a new article with an id obtained from {@link #nextId()}, provided that its name is unique.
+     */
+    WriteResult insert(Article article);
+
+    /**
+     * Atomically replaces the stored article by the updated one, provided that the stored article is still the
+     * expected one and the name of the updated article is unique. Articles are compared by identity, so the expected
+     * article must be an instance that has been read from this repository.
+     */
+    WriteResult compareAndSet(Article expected, Article updated);
+
+}
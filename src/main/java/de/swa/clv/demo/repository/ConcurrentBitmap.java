@@ -0,0 +1,136 @@
+package de.swa.clv.demo.repository;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A set of non-negative ints (article ids) as bitmap that is read and written without locks. The bits are held in
+ * chunks of 64 Ki bits that are allocated on first use, so a bitmap only costs memory for the id ranges it covers.
+ * <p>
+ * Each bitmap has a summary, a bitmap with one bit per word that is set if the word may be non-zero, which has a
+ * summary itself, and so on up to {@value #SUMMARY_LEVELS} levels. So {@link #nextSetBit(int)} skips empty ranges of
+ * 64, 4 Ki, 256 Ki, ... ids with a single read, i.e. its cost depends on the number of levels, not on the distance to
+ * the next set bit. A summary bit is set after the bit in the word, and cleared before the word is checked again, so
+ * a set bit is only missed while a concurrent {@link #clear(int)} empties and refills its word.
+ */
+final class ConcurrentBitmap {
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int WORDS_PER_CHUNK = (1 << CHUNK_SHIFT) / Long.SIZE;
+    // Levels of 64 Ki bits at most, i.e. the top level summary of 2^31 bits has 2 words
+    private static final int SUMMARY_LEVELS = 4;
+
+    // Copied on write when a chunk is added, so readers never see a partially initialized array
+    private volatile AtomicLongArray[] chunks = new AtomicLongArray[0];
+    // The non-zero words, null for the top level
+    private final ConcurrentBitmap summary;
+
+    ConcurrentBitmap() {
+        this(SUMMARY_LEVELS);
+    }
+
+    private ConcurrentBitmap(int summaryLevels) {
+        this.summary = summaryLevels > 0 ? new ConcurrentBitmap(summaryLevels - 1) : null;
+    }
+
+    void set(int bit) {
+        AtomicLongArray chunk = chunk(bit >>> CHUNK_SHIFT);
+        int wordIndex = wordIndex(bit) & (WORDS_PER_CHUNK - 1);
+        long mask = 1L << bit;
+        long word;
+        do {
+            word = chunk.get(wordIndex);
+        } while ((word & mask) == 0 && !chunk.compareAndSet(wordIndex, word, word | mask));
+        if (summary != null && !summary.get(wordIndex(bit))) {
+            summary.set(wordIndex(bit));
+        }
+    }
+
+    void clear(int bit) {
+        AtomicLongArray[] current = chunks;
+        int chunkIndex = bit >>> CHUNK_SHIFT;
+        if (chunkIndex >= current.length || current[chunkIndex] == null) {
+            return;
+        }
+        AtomicLongArray chunk = current[chunkIndex];
+        int wordIndex = wordIndex(bit) & (WORDS_PER_CHUNK - 1);
+        long mask = 1L << bit;
+        long word;
+        do {
+            word = chunk.get(wordIndex);
+        } while ((word & mask) != 0 && !chunk.compareAndSet(wordIndex, word, word & ~mask));
+        if (summary != null && (word & ~mask) == 0) {
+            summary.clear(wordIndex(bit));
+            // a concurrent set() of another bit of the word may have found the summary bit still set
+            if (chunk.get(wordIndex) != 0) {
+                summary.set(wordIndex(bit));
+            }
+        }
+    }
+
+    boolean get(int bit) {
+        return (word(wordIndex(bit)) & (1L << bit)) != 0;
+    }
+
+    /**
+     * @return the 64 bits starting at bit {@code wordIndex * 64}, 0 beyond the allocated chunks
+     */
+    long word(int wordIndex) {
+        AtomicLongArray[] current = chunks;
+        int chunkIndex = wordIndex / WORDS_PER_CHUNK;
+        if (chunkIndex >= current.length || current[chunkIndex] == null) {
+            return 0;
+        }
+        return current[chunkIndex].get(wordIndex & (WORDS_PER_CHUNK - 1));
+    }
+
+    /**
+     * @return the lowest set bit that is not lower than {@code fromBit}, -1 if there is none
+     */
+    int nextSetBit(int fromBit) {
+        int wordIndex = wordIndex(fromBit);
+        int wordCount = wordCount();
+        if (wordIndex >= wordCount) {
+            return -1;
+        }
+        long word = word(wordIndex) & (-1L << fromBit);
+        while (word == 0) {
+            // the summary may have a bit of a word that has been emptied meanwhile
+            wordIndex = summary != null ? summary.nextSetBit(wordIndex + 1) : wordIndex + 1;
+            if (wordIndex < 0 || wordIndex >= wordCount) {
+                return -1;
+            }
+            word = word(wordIndex);
+        }
+        return wordIndex * Long.SIZE + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * @return the number of words up to the end of the last allocated chunk, all higher words are 0
+     */
+    int wordCount() {
+        return chunks.length * WORDS_PER_CHUNK;
+    }
+
+    static int wordIndex(int bit) {
+        return bit >>> 6;
+    }
+
+    private AtomicLongArray chunk(int chunkIndex) {
+        AtomicLongArray[] current = chunks;
+        if (chunkIndex < current.length && current[chunkIndex] != null) {
+            return current[chunkIndex];
+        }
+        synchronized (this) {
+            current = chunks;
+            if (chunkIndex >= current.length || current[chunkIndex] == null) {
+                AtomicLongArray[] copy = Arrays.copyOf(current, Math.max(current.length, chunkIndex + 1));
+                copy[chunkIndex] = new AtomicLongArray(WORDS_PER_CHUNK);
+                chunks = copy;
+                current = copy;
+            }
+            return current[chunkIndex];
+        }
+    }
+
+}
@@ -0,0 +1,171 @@
+package de.swa.clv.demo.repository;
+
+import de.swa.clv.demo.model.*;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static de.swa.clv.demo.repository.ArticleRepository.WriteResult.*;
+
+/**
+ * The demo app simply stores the articles in a map. Reads are lock-free, writes are atomic per article, i.e. they
+ * only contend with concurrent writes of the same map bin.
+ * <p>
+ * Unique names are enforced by a secondary index from the normalized name to the article id: the new name is reserved
+ * with putIfAbsent within the atomic map operation that stores the article, so two writers can never both get the
+ * same name. After a rename, the old name is released by another atomic operation on the article, and only if the
+ * article stored then doesn't carry it, e.g. after a concurrent rename back. So the index always holds the names of
+ * the stored articles.
+ * <p>
+ * The {@link ArticleIndexes} for queries are updated within the atomic map operation that stores an article, so the
+ * updates of one article are applied to the indexes in order.
+ * <p>
+ * This is the repository of the default persistence mode {@code clv.demo.persistence.mode=memory}, i.e. a restart
+ * discards all articles. See {@link JournaledArticleRepository} for the durable one.
+ */
+@Repository
+@ConditionalOnProperty(name = "clv.demo.persistence.mode", havingValue = "memory", matchIfMissing = true)
+public class InMemoryArticleRepository implements ArticleRepository {
+
+    private final AtomicInteger articleIdSeq = new AtomicInteger(0);
+    private final ConcurrentHashMap<Integer, Article> idArticleMap = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> nameIdIndex = new ConcurrentHashMap<>();
+    private final ArticleIndexes indexes = new ArticleIndexes();
+
+    public InMemoryArticleRepository() {
+        insert(sampleArticle(nextId()));
+    }
+
+    /**
+     * Creates a repository with the given articles, e.g. recovered ones. Their names must be unique, the next id is
+     * the highest id plus one.
+     */
+    InMemoryArticleRepository(Collection<Article> articles) {
+        for (Article article : articles) {
+            articleIdSeq.accumulateAndGet(article.getId(), Math::max);
+            if (insert(article) != OK) {
+                throw new IllegalArgumentException("Article '" + article.getId() + "' has no unique id and name");
+            }
+        }
+    }
+
+    static Article sampleArticle(int id) {
+        return new Article(id, "Diagnostic Video Colonoscope", "DVC-H123T/Z", Status.ACTIVE, (short) 9,
+                LocalDate.of(2022, 12, 1), Category.ENDOSCOPY, SubCategory.SINUSCOPE,
+                List.of(new Accessory("Biopsy Forcep", 3), new Accessory("Polyp Traps", 5)), new Date());
+    }
+
+    @Override
+    public Optional<Article> findById(int id) {
+        return Optional.ofNullable(idArticleMap.get(id));
+    }
+
+    @Override
+    public Optional<Integer> findIdByName(String name) {
+        return name == null ? Optional.empty() : Optional.ofNullable(nameIdIndex.get(normalize(name)));
+    }
+
+    @Override
+    public Collection<Article> findAll() {
+        return Collections.unmodifiableCollection(idArticleMap.values());
+    }
+
+    @Override
+    public Stream<Article> find(ArticleQuery query, ArticleQuery.Cursor after) {
+        return indexes.find(query, after, idArticleMap::get);
+    }
+
+    @Override
+    public int count() {
+        return idArticleMap.size();
+    }
+
+    @Override
+    public int nextId() {
+        return articleIdSeq.incrementAndGet();
+    }
+
+    @Override
+    public WriteResult insert(Article article) {
+        Integer id = article.getId();
+        String nameKey = normalizeOrNull(article.getName());
+        WriteResult[] result = {CONFLICT};
+        idArticleMap.computeIfAbsent(id, key -> {
+            if (!reserve(nameKey, id)) {
+                result[0] = NAME_NOT_UNIQUE;
+                return null;
+            }
+            indexes.update(null, article);
+            result[0] = OK;
+            return article;
+        });
+        return result[0];
+    }
+
+    @Override
+    public WriteResult compareAndSet(Article expected, Article updated) {
+        Integer id = expected.getId();
+        if (!id.equals(updated.getId())) {
+            throw new IllegalArgumentException("Article ids differ: " + id + " vs. " + updated.getId());
+        }
+        String oldNameKey = normalizeOrNull(expected.getName());
+        String newNameKey = normalizeOrNull(updated.getName());
+        boolean nameChanged = !Objects.equals(oldNameKey, newNameKey);
+        WriteResult[] result = {CONFLICT};
+        idArticleMap.computeIfPresent(id, (key, current) -> {
+            if (current != expected) {
+                return current;
+            }
+            if (nameChanged && !reserve(newNameKey, id)) {
+                result[0] = NAME_NOT_UNIQUE;
+                return current;
+            }
+            indexes.update(expected, updated);
+            result[0] = OK;
+            return updated;
+        });
+        if (result[0] == OK && nameChanged && oldNameKey != null) {
+            // Not within the operation above, as the old article is visible until it returns
+            idArticleMap.computeIfPresent(id, (key, current) -> {
+                if (!oldNameKey.equals(normalizeOrNull(current.getName()))) {
+                    nameIdIndex.remove(oldNameKey, id);
+                }
+                return current;
+            });
+        }
+        return result[0];
+    }
+
+    /**
+     * Locale independent case folding, i.e. names that only differ in case (like with String.equalsIgnoreCase())
+     * are mapped to the same key.
+     */
+    static String normalize(String name) {
+        return name.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizeOrNull(String name) {
+        return name == null ? null : normalize(name);
+    }
+
+    // Only called by the map operation that stores the article with the id
+    private boolean reserve(String nameKey, Integer id) {
+        if (nameKey == null) {
+            return true;
+        }
+        Integer holder = nameIdIndex.putIfAbsent(nameKey, id);
+        return holder == null || holder.equals(id);
+    }
+
+}
@@ -0,0 +1,260 @@
+package de.swa.clv.demo.repository;
+
+import de.swa.clv.demo.model.Article;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static de.swa.clv.demo.repository.ArticleRepository.WriteResult.*;
+
+/**
+ * The repository of the persistence mode {@code clv.demo.persistence.mode=journal}: an
+ * {@link InMemoryArticleRepository} whose writes are recorded in an {@link ArticleJournal}, so the articles survive a
+ * restart.
+ * <p>
+ * Reads are served by the in-memory repository alone. A write is checked and appended to the journal under one
+ * lock, then it waits until it is durable outside of the lock, which lets concurrent writes share one disk force, and
+ * only then it's stored in memory. So readers never see a write that may be lost (except with the durability
+ * {@code async}, which doesn't wait), and a write that fails to be journaled isn't stored at all. Until it's stored,
+ * a write is pending: its article id and new name are reserved, so concurrent writes that would conflict with it are
+ * rejected, i.e. every prefix of the journal is a state with unique names.
+ * <p>
+ * Snapshots are written periodically in the background, so the startup only replays the journal written since the
+ * last one.
+ */
+@Repository
+@ConditionalOnProperty(name = "clv.demo.persistence.mode", havingValue = "journal")
+public class JournaledArticleRepository implements ArticleRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(JournaledArticleRepository.class);
+
+    private final ArticleJournal journal;
+    private final InMemoryArticleRepository articles;
+    private final Object writeLock = new Object();
+    private final ScheduledExecutorService scheduler;
+    // The pending writes, guarded by writeLock: their record numbers, and the ids and new names of their articles
+    private final NavigableSet<Long> pendingRecords = new TreeSet<>();
+    private final Set<Integer> pendingIds = new HashSet<>();
+    private final Map<String, Integer> pendingNames = new HashMap<>();
+
+    @Autowired
+    public JournaledArticleRepository(
+            @Value("${clv.demo.persistence.journal.directory:data/journal}") String directory,
+            @Value("${clv.demo.persistence.journal.fsync:batch}") String fsync,
+            @Value("${clv.demo.persistence.journal.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${clv.demo.persistence.journal.flush-interval-millis:200}") long flushIntervalMillis,
+            @Value("${clv.demo.persistence.journal.snapshot-interval-seconds:300}") long snapshotIntervalSeconds)
+            throws IOException {
+        this(new ArticleJournal.Settings(Path.of(directory),
+                        ArticleJournal.Durability.valueOf(fsync.trim().toUpperCase(Locale.ROOT)),
+                        Math.max(1, segmentSizeMb) << 20),
+                Duration.ofMillis(flushIntervalMillis), Duration.ofSeconds(snapshotIntervalSeconds));
+    }
+
+    JournaledArticleRepository(ArticleJournal.Settings settings, Duration flushInterval, Duration snapshotInterval)
+            throws IOException {
+        journal = new ArticleJournal(settings);
+        ArticleJournal.Recovery recovery = journal.recover();
+        articles = new InMemoryArticleRepository(recovery.articles().values());
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "article-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (settings.durability() == ArticleJournal.Durability.ASYNC) {
+            scheduler.scheduleWithFixedDelay(journal::force, flushInterval.toMillis(), flushInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+        if (!snapshotInterval.isZero()) {
+            scheduler.scheduleWithFixedDelay(this::snapshot, snapshotInterval.toMillis(), snapshotInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+        if (recovery.fresh()) {
+            insert(InMemoryArticleRepository.sampleArticle(nextId()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        journal.close();
+    }
+
+    /**
+     * Writes a snapshot of all articles if there have been writes since the last one.
+     */
+    boolean snapshot() {
+        try {
+            return journal.snapshot(this::articlesUpTo);
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Snapshot of the article journal failed", e);
+            return false;
+        }
+    }
+
+    // The snapshot must reflect the writes journaled before it, so it waits until these are stored in memory
+    private Collection<Article> articlesUpTo(long record) {
+        synchronized (writeLock) {
+            while (!pendingRecords.isEmpty() && pendingRecords.first() <= record) {
+                try {
+                    writeLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new InterruptedIOException("Snapshot interrupted"));
+                }
+            }
+        }
+        return articles.findAll();
+    }
+
+    @Override
+    public Optional<Article> findById(int id) {
+        return articles.findById(id);
+    }
+
+    @Override
+    public Optional<Integer> findIdByName(String name) {
+        return articles.findIdByName(name);
+    }
+
+    @Override
+    public Collection<Article> findAll() {
+        return articles.findAll();
+    }
+
+    @Override
+    public Stream<Article> find(ArticleQuery query, ArticleQuery.Cursor after) {
+        return articles.find(query, after);
+    }
+
+    @Override
+    public int count() {
+        return articles.count();
+    }
+
+    @Override
+    public int nextId() {
+        return articles.nextId();
+    }
+
+    @Override
+    public WriteResult insert(Article article) {
+        Integer id = article.getId();
+        String nameKey = nameKey(article);
+        long record;
+        synchronized (writeLock) {
+            if (!isNameAvailable(nameKey, id)) {
+                return NAME_NOT_UNIQUE;
+            }
+            if (pendingIds.contains(id) || articles.findById(id).isPresent()) {
+                return CONFLICT;
+            }
+            record = journal.append(ArticleJournal.CREATE, article);
+            addPending(record, id, nameKey);
+        }
+        return store(record, id, nameKey, () -> articles.insert(article));
+    }
+
+    @Override
+    public WriteResult compareAndSet(Article expected, Article updated) {
+        Integer id = expected.getId();
+        if (!id.equals(updated.getId())) {
+            throw new IllegalArgumentException("Article ids differ: " + id + " vs. " + updated.getId());
+        }
+        String newNameKey = nameKey(updated);
+        boolean nameChanged = !Objects.equals(nameKey(expected), newNameKey);
+        long record;
+        synchronized (writeLock) {
+            if (nameChanged && !isNameAvailable(newNameKey, id)) {
+                return NAME_NOT_UNIQUE;
+            }
+            if (pendingIds.contains(id) || articles.findById(id).orElse(null) != expected) {
+                return CONFLICT;
+            }
+            record = journal.append(ArticleJournal.UPDATE, updated);
+            addPending(record, id, nameChanged ? newNameKey : null);
+        }
+        return store(record, id, nameChanged ? newNameKey : null, () -> articles.compareAndSet(expected, updated));
+    }
+
+    // Waits until the journaled write is durable, then stores it in memory; the pending write is released either way
+    private WriteResult store(long record, Integer id, String nameKey, Supplier<WriteResult> write) {
+        try {
+            journal.awaitDurable(record);
+        } catch (RuntimeException e) {
+            synchronized (writeLock) {
+                removePending(record, id, nameKey);
+            }
+            throw e;
+        }
+        WriteResult result;
+        synchronized (writeLock) {
+            result = write.get();
+            removePending(record, id, nameKey);
+        }
+        if (result != OK) {
+            // can't happen, the checks before journaling the write are the ones of the in-memory repository
+            throw new IllegalStateException("Journaled write of article " + id + " is not stored: " + result);
+        }
+        return OK;
+    }
+
+    // guarded by writeLock; a name held by a stored article is only available once its release is stored as well
+    private boolean isNameAvailable(String nameKey, Integer id) {
+        if (nameKey == null) {
+            return true;
+        }
+        Integer pendingHolder = pendingNames.get(nameKey);
+        return (pendingHolder == null || pendingHolder.equals(id))
+                && articles.findIdByName(nameKey).map(id::equals).orElse(true);
+    }
+
+    // guarded by writeLock
+    private void addPending(long record, Integer id, String nameKey) {
+        pendingRecords.add(record);
+        pendingIds.add(id);
+        if (nameKey != null) {
+            pendingNames.put(nameKey, id);
+        }
+    }
+
+    // guarded by writeLock
+    private void removePending(long record, Integer id, String nameKey) {
+        pendingRecords.remove(record);
+        pendingIds.remove(id);
+        if (nameKey != null) {
+            pendingNames.remove(nameKey, id);
+        }
+        writeLock.notifyAll();
+    }
+
+    private static String nameKey(Article article) {
+        return article.getName() == null ? null : InMemoryArticleRepository.normalize(article.getName());
+    }
+
+}
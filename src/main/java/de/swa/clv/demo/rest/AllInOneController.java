@@ -1,124 +1,245 @@
 package de.swa.clv.demo.rest;
 
-import de.swa.clv.ValidationRules;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import de.swa.clv.demo.User;
+import de.swa.clv.demo.UserSessions;
 import de.swa.clv.demo.model.*;
+import de.swa.clv.demo.repository.ArticleQuery;
+import de.swa.clv.demo.service.ArticleImportService;
+import de.swa.clv.demo.service.ArticleQueryService;
 import de.swa.clv.demo.service.ArticleService;
+import de.swa.clv.demo.service.ValidationMessageCatalog;
+import de.swa.clv.demo.validation.ValidationMetrics;
+import de.swa.clv.demo.validation.ValidationResult;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
-import static de.swa.clv.demo.validation.ValidatorProvider.VALIDATOR;
-import static java.util.Map.entry;
-
 @RestController
 public class AllInOneController {
 
-    private static final String DEFAULT_MANDATORY_MESSAGE_PREFIX = VALIDATOR.getDefaultMandatoryMessagePrefix();
-    private static final String DEFAULT_CONTENT_MESSAGE_PREFIX = VALIDATOR.getDefaultContentMessagePrefix();
-    private static final String DEFAULT_UPDATE_MESSAGE_PREFIX = VALIDATOR.getDefaultUpdateMessagePrefix();
-    private static final String DEFAULT_IMMUTABLE_MESSAGE_PREFIX = VALIDATOR.getDefaultImmutableMessagePrefix();
+    // The rules are fixed at class-init time, so they are only serialized again when a calendar rule rolls over
+    static final ValidationRulesResource VALIDATION_RULES =
+            new ValidationRulesResource(Article.rules, AccessoryRules.rules);
+
+    static final Map<String, Map<String, Object>> CATEGORY_MAPPING = Map.of(
+            "category", Arrays.stream(Category.values())
+                    .collect(Collectors.toMap(Category::name, Category::asRecord)),
+            "subCategory", Arrays.stream(SubCategory.values())
+                    .collect(Collectors.toMap(SubCategory::name, SubCategory::asRecord)));
 
-    private final User userMock = new User();
+    @Autowired
+    private UserSessions userSessions;
 
     @Autowired
     private ArticleService articleService;
 
+    @Autowired
+    private ArticleImportService articleImportService;
+
+    @Autowired
+    private ArticleQueryService articleQueryService;
+
+    @Autowired
+    private ValidationMetrics validationMetrics;
+
+    @Autowired
+    private ValidationMessageCatalog validationMessageCatalog;
+
+    @Autowired
+    private BootstrapResources bootstrapResources;
+
     @GetMapping(value = "/article/{id}", produces = "application/json;charset=UTF-8")
-    public Article getArticle(@PathVariable(name = "id") int id) {
-        return articleService.getArticle(id);
+    public ResponseEntity<Article> getArticle(@PathVariable(name = "id") int id) {
+        Article article = articleService.getArticle(id);
+        return ResponseEntity.ok().eTag(ArticleETags.of(article)).body(article);
     }
 
     @PostMapping(value = "/article", produces = "application/json;charset=UTF-8")
-    public Article createArticle(@RequestBody Article article) {
-        return articleService.createArticle(article, userMock);
+    public ResponseEntity<Object> createArticle(@RequestBody Article article,
+            @RequestHeader(name = UserSessions.TOKEN_HEADER, required = false) String userToken) {
+        long start = validationMetrics.start();
+        try {
+            return toResponse(articleService.createArticle(article, userSessions.resolve(userToken)));
+        } finally {
+            validationMetrics.recordEndpoint("POST /article", start);
+        }
     }
 
+    // If-Match must be the ETag of the article read before, a stale one fails with 412 before any rule is evaluated
     @PutMapping(value = "/article", produces = "application/json;charset=UTF-8")
-    public Article updateArticle(@RequestBody Article article) {
-        return articleService.updateArticle(article, userMock);
+    public ResponseEntity<Object> updateArticle(@RequestBody Article article,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(name = UserSessions.TOKEN_HEADER, required = false) String userToken) {
+        if (ifMatch == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).build();
+        }
+        long start = validationMetrics.start();
+        try {
+            return toResponse(articleService.updateArticle(article, ArticleETags.versionOf(ifMatch),
+                    userSessions.resolve(userToken)));
+        } finally {
+            validationMetrics.recordEndpoint("PUT /article", start);
+        }
     }
 
-    @GetMapping(value = "/validation-rules", produces = "application/json;charset=UTF-8")
-    public String getValidationRules() {
-        return ValidationRules.serializeToJson(Article.rules, AccessoryRules.rules);
-        // Alternative:
-        // return Article.RULES.serializeToJson();
+    // JSON merge patch (RFC 7386), e.g. {"everLeftWarehouse":true}, with the same result and If-Match as a full PUT
+    @PatchMapping(value = "/article/{id}", consumes = {"application/merge-patch+json", "application/json"},
+            produces = "application/json;charset=UTF-8")
+    public ResponseEntity<Object> patchArticle(@PathVariable(name = "id") int id, @RequestBody JsonNode mergePatch,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(name = UserSessions.TOKEN_HEADER, required = false) String userToken) throws IOException {
+        if (ifMatch == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).build();
+        }
+        // A patch that is no object would replace the whole article
+        if (!(mergePatch instanceof ObjectNode patch)) {
+            return ResponseEntity.badRequest().build();
+        }
+        long start = validationMetrics.start();
+        try {
+            return toResponse(articleService.patchArticle(id, patch, ArticleETags.versionOf(ifMatch),
+                    userSessions.resolve(userToken)));
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().build();
+        } finally {
+            validationMetrics.recordEndpoint("PATCH /article", start);
+        }
     }
 
+    // Dry run: returns the errors a create (or with currentId an update) would fail with, nothing is stored. With
+    // messages=true the field errors have the messages in the language of the Accept-Language header.
+    @PostMapping(value = "/article/validate", produces = "application/json;charset=UTF-8")
+    public ResponseEntity<ValidationResult> validateArticle(@RequestBody Article article,
+            @RequestParam(name = "currentId", required = false) Integer currentId,
+            @RequestParam(name = "messages", defaultValue = "false") boolean messages,
+            @RequestHeader(name = HttpHeaders.ACCEPT_LANGUAGE, required = false) String acceptLanguage,
+            @RequestHeader(name = UserSessions.TOKEN_HEADER, required = false) String userToken) {
+        User user = userSessions.resolve(userToken);
+        long start = validationMetrics.start();
+        try {
+            Optional<ValidationResult> result = currentId == null
+                    ? Optional.of(articleService.validateNewArticle(article, user))
+                    : articleService.validateEditedArticle(article, currentId, user);
+            if (messages) {
+                Map<String, String> messageMap = validationMessageCatalog.getMessageMap(acceptLanguage);
+                result = result.map(r -> r.withMessages(messageMap::get));
+            }
+            return ResponseEntity.of(result);
+        } finally {
+            validationMetrics.recordEndpoint("POST /article/validate", start);
+        }
+    }
+
+    // Filter parameters may be repeated for alternatives, e.g. ?status=ACTIVE&status=INACTIVE, see ArticleQuery
+    @GetMapping(value = "/articles", produces = "application/json;charset=UTF-8")
+    public void findArticles(
+            @RequestParam(name = "status", required = false) Set<Status> statuses,
+            @RequestParam(name = "category", required = false) Set<Category> categories,
+            @RequestParam(name = "subCategory", required = false) Set<SubCategory> subCategories,
+            @RequestParam(name = "animalUse", required = false) Boolean animalUse,
+            @RequestParam(name = "everLeftWarehouse", required = false) Boolean everLeftWarehouse,
+            @RequestParam(name = "maintenanceNextDateFrom", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate maintenanceNextDateFrom,
+            @RequestParam(name = "maintenanceNextDateTo", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate maintenanceNextDateTo,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            HttpServletResponse response) throws IOException {
+        ArticleQuery query = new ArticleQuery(statuses, categories, subCategories, animalUse, everLeftWarehouse,
+                maintenanceNextDateFrom, maintenanceNextDateTo);
+        ArticleQuery.Cursor after;
+        try {
+            after = cursor == null ? null : query.parseCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        response.setContentType("application/json;charset=UTF-8");
+        articleQueryService.writeArticles(query, after, limit, response.getOutputStream());
+    }
+
+    // Accepts a JSON array or newline delimited JSON (NDJSON) and streams back one result line per article
+    @PostMapping(value = "/articles/batch", consumes = {"application/json", "application/x-ndjson"},
+            produces = "application/x-ndjson")
+    public void importArticles(InputStream articles, HttpServletResponse response,
+            @RequestHeader(name = UserSessions.TOKEN_HEADER, required = false) String userToken) throws IOException {
+        response.setContentType("application/x-ndjson;charset=UTF-8");
+        long start = validationMetrics.start();
+        try {
+            articleImportService.importArticles(articles, response.getOutputStream(),
+                    userSessions.resolve(userToken));
+        } finally {
+            validationMetrics.recordEndpoint("POST /articles/batch", start);
+        }
+    }
+
+    // With 'Accept: application/vnd.clv.rules.compact+json' the rules are served in the CompactRulesFormat
+    @GetMapping(value = "/validation-rules",
+            produces = {"application/json;charset=UTF-8", CompactRulesFormat.MEDIA_TYPE})
+    public ResponseEntity<byte[]> getValidationRules(
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return VALIDATION_RULES.get(accept).toResponse(ifNoneMatch, acceptEncoding);
+    }
+
+    // The messages in the language of the Accept-Language header, see ValidationMessageCatalog
     @GetMapping(value = "/validation-error-messages", produces = "application/json;charset=UTF-8")
-    public Map<String, String> getValidationErrorCodeToMessageMap() {
-        return Map.ofEntries(
-                entry(DEFAULT_MANDATORY_MESSAGE_PREFIX + "article.name",
-                        "The article name is a mandatory entry."),
-                entry(DEFAULT_CONTENT_MESSAGE_PREFIX + "regex_any.article.name",
-                        "A name is 3 to 30 characters long (w/o surrounding blanks)."),
-                entry(DEFAULT_CONTENT_MESSAGE_PREFIX + "not-unique.article.name",
-                        "An article with that name already exist."),
-                entry(DEFAULT_MANDATORY_MESSAGE_PREFIX + "article.number",
-                        "The article number is a mandatory entry."),
-                entry(DEFAULT_MANDATORY_MESSAGE_PREFIX + "article.status",
-                        "The article status is a mandatory entry."),
-                entry(DEFAULT_CONTENT_MESSAGE_PREFIX + "equals_any.article.status#initial",
-                        "The initial status must be NEW."),
-                entry(DEFAULT_UPDATE_MESSAGE_PREFIX + "equals_any.article.status",
-                        "This status transition is not allowed - read the docu."),
-                entry("mycode.for.article.status",
-                        "Hey dude, you should know, that the status can not be reset to NEW"),
-                entry(DEFAULT_MANDATORY_MESSAGE_PREFIX + "article.maintenanceIntervalMonth",
-                        "The interval is required when the next maintenance date is specified."),
-                entry(DEFAULT_MANDATORY_MESSAGE_PREFIX + "article.maintenanceNextDate",
-                        "The next maintenance date is required when the interval is specified."),
-                entry(DEFAULT_CONTENT_MESSAGE_PREFIX + "future_days.article.maintenanceNextDate",
-                        "The next maintenance date must be 1 to 365 days in the future."),
-                entry(DEFAULT_UPDATE_MESSAGE_PREFIX + "future_days.article.maintenanceNextDate",
-                        "An updated maintenance date must be 1 to 365 days in the future."),
-                entry(DEFAULT_CONTENT_MESSAGE_PREFIX + "weekday_any.article.maintenanceNextDate",
-                        "Maintenance is not done on weekend days."),
-                entry(DEFAULT_CONTENT_MESSAGE_PREFIX + "equals_none.article.maintenanceNextDate",
-                        "Maintenance is not done on company vacations days in august."),
-                entry(DEFAULT_CONTENT_MESSAGE_PREFIX + "equals_any_ref.article.category",
-                        "This category is not valid"),
-                entry(DEFAULT_MANDATORY_MESSAGE_PREFIX + "article.subCategory",
-                        "The sub-category is required if a category is selected"),
-                entry(DEFAULT_CONTENT_MESSAGE_PREFIX + "equals_any_ref.article.subCategory",
-                        "This sub-category is not valid for the selected category"),
-                entry(DEFAULT_IMMUTABLE_MESSAGE_PREFIX + "article.everLeftWarehouse",
-                        "This article has already left the warehouse once. This Flag must never be reset."),
-                entry(DEFAULT_IMMUTABLE_MESSAGE_PREFIX + "article.animalUse",
-                        "This article has already been used for animals. This Flag must never be reset."),
-                entry(DEFAULT_CONTENT_MESSAGE_PREFIX + "regex_any.article.accessories[*].name",
-                        "Accessory names must match '" + Article.EXAMPLE_UNICODE_PROPERTY_CLASSES_REGEX + "' 🙂."),
-                entry(DEFAULT_CONTENT_MESSAGE_PREFIX + "equals_any.article.accessories[*].name#distinct",
-                        "The accessories for this article must have unique names."),
-                entry(DEFAULT_CONTENT_MESSAGE_PREFIX + "range.article.accessories[*].amount",
-                        "The amount of an accessory is not within this range: [" + Article.AMOUNT_MIN + "," +
-                                Article.AMOUNT_MAX + "]."),
-                entry(DEFAULT_CONTENT_MESSAGE_PREFIX + "range.article.accessories[0/1].amount#sum",
-                        "The sum of the quantities is too large (max " + Article.AMOUNT_SUM_MAX + ")."),
-                entry(DEFAULT_CONTENT_MESSAGE_PREFIX + "size.article.accessories",
-                        "The article has to many accessories."),
-                entry(DEFAULT_UPDATE_MESSAGE_PREFIX + "size.article.accessories",
-                        "The article has to many accessories."),
-                entry(DEFAULT_IMMUTABLE_MESSAGE_PREFIX + "article.lastModifiedOn",
-                        "The article has been modified by another user in the meantime."));
+    public ResponseEntity<byte[]> getValidationErrorCodeToMessageMap(
+            @RequestHeader(name = HttpHeaders.ACCEPT_LANGUAGE, required = false) String acceptLanguage,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return validationMessageCatalog.getMessages(acceptLanguage).toResponse(ifNoneMatch, acceptEncoding);
     }
 
     @GetMapping(value = "/category-mapping", produces = "application/json;charset=UTF-8")
     public Map<String, Map<String, Object>> getCategoryMapping() {
-        return Map.of(
-                "category", Arrays.stream(Category.values())
-                        .collect(Collectors.toMap(Category::name, Category::asRecord)),
-                "subCategory", Arrays.stream(SubCategory.values())
-                        .collect(Collectors.toMap(SubCategory::name, SubCategory::asRecord)));
+        return CATEGORY_MAPPING;
+    }
+
+    // Rules, messages and category mapping in one request, see BootstrapResources
+    @GetMapping(value = "/bootstrap", produces = "application/json;charset=UTF-8")
+    public ResponseEntity<byte[]> getBootstrap(
+            @RequestHeader(name = HttpHeaders.ACCEPT_LANGUAGE, required = false) String acceptLanguage,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return bootstrapResources.get(acceptLanguage).toResponse(ifNoneMatch, acceptEncoding);
     }
 
+    // Sets the permissions of the session of the X-User-Token header, see UserSessions
     @PutMapping(value = "/user-permissions", produces = "application/json;charset=UTF-8")
-    public void putUserPermissions(@RequestBody String[] permissions) {
-        userMock.setPermissions(permissions);
+    public ResponseEntity<Void> putUserPermissions(@RequestBody String[] permissions,
+            @RequestHeader(name = UserSessions.TOKEN_HEADER, required = false) String userToken) {
+        try {
+            userSessions.setPermissions(userToken, PermissionSet.of(permissions));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    // An invalid article is no exception but a 400 with the error codes, the body the frontend expects
+    private static ResponseEntity<Object> toResponse(ArticleService.ArticleResult result) {
+        if (!result.isValid()) {
+            return ResponseEntity.badRequest().body(result.validation().getErrors());
+        }
+        return ResponseEntity.ok().eTag(ArticleETags.of(result.article())).body(result.article());
     }
 
 }
@@ -0,0 +1,41 @@
+package de.swa.clv.demo.rest;
+
+import de.swa.clv.demo.model.Article;
+
+/**
+ * The ETag of an article is its version as strong entity tag, e.g. {@code "3"}.
+ */
+final class ArticleETags {
+
+    /** Matches no article, versions are never negative. */
+    static final long NO_VERSION = -1;
+
+    private ArticleETags() {
+    }
+
+    static String of(Article article) {
+        return "\"" + article.getVersion() + "\"";
+    }
+
+    /**
+     * @return the version of the If-Match header, or {@link #NO_VERSION} if it is not a single strong entity tag of
+     * an article version. A weak tag never matches for If-Match, and neither does a list of tags or {@code *}, as
+     * an update has to be based on a version the client has read.
+     */
+    static long versionOf(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || tag.length() > 20 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            return NO_VERSION;
+        }
+        long version = 0;
+        for (int i = 1; i < tag.length() - 1; i++) {
+            char c = tag.charAt(i);
+            if (c < '0' || c > '9') {
+                return NO_VERSION;
+            }
+            version = version * 10 + (c - '0');
+        }
+        return version;
+    }
+
+}
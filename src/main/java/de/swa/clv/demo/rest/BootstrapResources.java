@@ -0,0 +1,79 @@
+package de.swa.clv.demo.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.swa.clv.demo.service.ValidationMessageCatalog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The bootstrap document of the frontend, i.e. all it needs before the first validation in one response:
+ * {@code {"validationRules": ..., "validationErrorMessages": ..., "categoryMapping": ...}}.
+ * <p>
+ * The document is assembled once per locale of the {@link ValidationMessageCatalog} from the already serialized
+ * parts, and again when the serialized rules have changed (see {@link ValidationRulesResource}). Its ETag is the
+ * version of all parts together, so a client may keep the document until the ETag changes.
+ */
+@Component
+public class BootstrapResources {
+
+    private record Documents(CachedJsonResource rules, Map<Locale, CachedJsonResource> byLocale) {
+    }
+
+    private final ValidationMessageCatalog validationMessageCatalog;
+    private final String categoryMapping;
+    private volatile Documents documents;
+
+    @Autowired
+    public BootstrapResources(ObjectMapper objectMapper, ValidationMessageCatalog validationMessageCatalog) {
+        this.validationMessageCatalog = validationMessageCatalog;
+        this.categoryMapping = toJson(objectMapper, AllInOneController.CATEGORY_MAPPING);
+        this.documents = assemble(AllInOneController.VALIDATION_RULES.get());
+    }
+
+    /**
+     * @param acceptLanguage the value of the 'Accept-Language' request header, may be null
+     * @return the document with the messages of the best matching locale, see
+     * {@link ValidationMessageCatalog#getMessages(String)}
+     */
+    public CachedJsonResource get(String acceptLanguage) {
+        CachedJsonResource rules = AllInOneController.VALIDATION_RULES.get();
+        Documents current = documents;
+        if (current.rules() != rules) {
+            current = assemble(rules);
+            documents = current;
+        }
+        return current.byLocale().get(validationMessageCatalog.getMessages(acceptLanguage).getContentLanguage());
+    }
+
+    private Documents assemble(CachedJsonResource rulesResource) {
+        String rules = toString(rulesResource);
+        Map<Locale, CachedJsonResource> byLocale = new HashMap<>();
+        for (Locale locale : validationMessageCatalog.getLocales()) {
+            String messages = toString(validationMessageCatalog.getMessages(locale.toLanguageTag()));
+            String document = "{\"validationRules\":" + rules
+                    + ",\"validationErrorMessages\":" + messages
+                    + ",\"categoryMapping\":" + categoryMapping + "}";
+            byLocale.put(locale, CachedJsonResource.of(document, locale));
+        }
+        return new Documents(rulesResource, byLocale);
+    }
+
+    private static String toString(CachedJsonResource resource) {
+        return new String(resource.getJson(), StandardCharsets.UTF_8);
+    }
+
+    private static String toJson(ObjectMapper objectMapper, Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Bootstrap document part can't be serialized", e);
+        }
+    }
+
+}
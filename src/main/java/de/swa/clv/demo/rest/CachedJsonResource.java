@@ -0,0 +1,197 @@
+package de.swa.clv.demo.rest;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A JSON document that is serialized once and then served as is, i.e. with a strong ETag derived from the content
+ * hash and, if the client accepts it, as precompressed gzip bytes. Per request only the request headers are compared.
+ * A document in a specific language is served with a 'Content-Language' header and varies by 'Accept-Language', a
+ * document of a negotiated media type is served with that type and varies by 'Accept'.
+ */
+public final class CachedJsonResource {
+
+    static final MediaType JSON_UTF8 = MediaType.parseMediaType("application/json;charset=UTF-8");
+    private static final String GZIP = "gzip";
+
+    private final byte[] json;
+    private final byte[] gzippedJson;
+    private final String version;
+    private final String eTag;
+    private final String gzipETag;
+    private final Locale contentLanguage;
+    // null if the media type is not negotiated, i.e. always JSON
+    private final MediaType negotiatedMediaType;
+
+    private CachedJsonResource(byte[] json, Locale contentLanguage, MediaType negotiatedMediaType) {
+        this.json = json;
+        this.contentLanguage = contentLanguage;
+        this.negotiatedMediaType = negotiatedMediaType;
+        this.gzippedJson = gzip(json);
+        this.version = contentHash(json);
+        // A strong ETag identifies one representation, hence the gzip encoded one gets its own
+        this.eTag = "\"" + version + "\"";
+        this.gzipETag = "\"" + version + "-gz\"";
+    }
+
+    public static CachedJsonResource of(String json) {
+        return new CachedJsonResource(json.getBytes(StandardCharsets.UTF_8), null, null);
+    }
+
+    public static CachedJsonResource of(String json, Locale contentLanguage) {
+        return new CachedJsonResource(json.getBytes(StandardCharsets.UTF_8), contentLanguage, null);
+    }
+
+    /**
+     * @param mediaType the media type of the document, chosen by the 'Accept' header among other representations
+     */
+    public static CachedJsonResource of(String json, MediaType mediaType) {
+        return new CachedJsonResource(json.getBytes(StandardCharsets.UTF_8), null, mediaType);
+    }
+
+    /**
+     * @return the hex encoded content hash of the JSON document
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public byte[] getJson() {
+        return Arrays.copyOf(json, json.length);
+    }
+
+    /**
+     * @return the language of the JSON document, or null if it is language independent
+     */
+    public Locale getContentLanguage() {
+        return contentLanguage;
+    }
+
+    /**
+     * Creates the response for a GET request: 304 if the client already has the current version, otherwise 200 with
+     * the (possibly gzip encoded) JSON document.
+     *
+     * @param ifNoneMatch    the value of the 'If-None-Match' request header, may be null
+     * @param acceptEncoding the value of the 'Accept-Encoding' request header, may be null
+     */
+    public ResponseEntity<byte[]> toResponse(String ifNoneMatch, String acceptEncoding) {
+        boolean useGzip = acceptsGzip(acceptEncoding);
+        String responseETag = useGzip ? gzipETag : eTag;
+        if (ifNoneMatch != null && matchesAny(ifNoneMatch)) {
+            return withCachingHeaders(ResponseEntity.status(HttpStatus.NOT_MODIFIED), responseETag).build();
+        }
+        ResponseEntity.BodyBuilder builder = withCachingHeaders(ResponseEntity.ok(), responseETag)
+                .contentType(negotiatedMediaType != null ? negotiatedMediaType : JSON_UTF8);
+        if (useGzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(gzippedJson);
+        }
+        return builder.body(json);
+    }
+
+    private ResponseEntity.BodyBuilder withCachingHeaders(ResponseEntity.BodyBuilder builder, String responseETag) {
+        ResponseEntity.BodyBuilder cachingBuilder = builder.eTag(responseETag).cacheControl(CacheControl.noCache());
+        if (negotiatedMediaType != null) {
+            return cachingBuilder.varyBy(HttpHeaders.ACCEPT_ENCODING, HttpHeaders.ACCEPT);
+        }
+        if (contentLanguage == null) {
+            return cachingBuilder.varyBy(HttpHeaders.ACCEPT_ENCODING);
+        }
+        return cachingBuilder.varyBy(HttpHeaders.ACCEPT_ENCODING, HttpHeaders.ACCEPT_LANGUAGE)
+                .header(HttpHeaders.CONTENT_LANGUAGE, contentLanguage.toLanguageTag());
+    }
+
+    // If-None-Match uses the weak comparison, so 'W/' prefixes are ignored
+    private boolean matchesAny(String ifNoneMatch) {
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.equals("*")) {
+                return true;
+            }
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(eTag) || candidate.equals(gzipETag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return whether gzip is acceptable by the Accept-Encoding header (RFC 9110, section 12.5.3): if gzip is listed,
+     * its quality value decides, otherwise the one of '*'; 'q=0' refuses the coding, and without gzip and '*', e.g.
+     * with "identity" only, gzip is not acceptable
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (gzipQuality == null && (name.equalsIgnoreCase(GZIP) || name.equalsIgnoreCase("x-gzip"))) {
+                gzipQuality = quality(parts);
+            } else if (anyQuality == null && name.equals("*")) {
+                anyQuality = quality(parts);
+            }
+        }
+        Double quality = gzipQuality != null ? gzipQuality : anyQuality;
+        return quality != null && quality > 0;
+    }
+
+    // The 'q' parameter of the coding, 1 if missing, 0 if invalid as the coding is served uncompressed then
+    private static double quality(String[] codingParts) {
+        for (int i = 1; i < codingParts.length; i++) {
+            String[] param = codingParts[i].split("=", 2);
+            if (param.length == 2 && param[0].trim().equalsIgnoreCase("q")) {
+                try {
+                    double quality = Double.parseDouble(param[1].trim());
+                    return quality >= 0 && quality <= 1 ? quality : 0;
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String contentHash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+    }
+
+}
@@ -0,0 +1,253 @@
+package de.swa.clv.demo.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compact representation of the serialized validation rules for clients on slow connections, served for
+ * {@value #MEDIA_TYPE}. The rules repeat the same property names, constraint types and conditions over and over, so
+ * the compact form refers to them by index into a table:
+ * <pre>
+ * {"format":"clv-compact-1","table":["type","property","EQUALS_NULL",{"0":2},...],"rules":{...}}
+ * </pre>
+ * Each entry of the table is either a string or a JSON object or array that occurs more than once in the rules, the
+ * entries are ordered by their number of occurrences. In the encoded rules and in the encoded table entries
+ * <ul>
+ * <li>an object key is the index of a string entry as decimal string,</li>
+ * <li>a number is the index of an entry,</li>
+ * <li>a string is a JSON number literal, i.e. the numbers of the rules,</li>
+ * <li>booleans and null are as is.</li>
+ * </ul>
+ * Decoding replaces each index by a copy of its decoded entry, the result equals the JSON representation (see
+ * {@code decodeCompactValidationRules} of CrossLanguageValidation_ES6.js).
+ */
+final class CompactRulesFormat {
+
+    static final String MEDIA_TYPE = "application/vnd.clv.rules.compact+json";
+    static final String FORMAT = "clv-compact-1";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+    private static final Set<String> JSON_RANGES = Set.of("application/json", "application/*", "*/*");
+
+    private CompactRulesFormat() {
+        throw new IllegalStateException("Not meant to be instantiated");
+    }
+
+    static ObjectNode encode(JsonNode rules) {
+        // Occurrences of the strings and of the containers (compared by content), in order of their first occurrence
+        Map<Object, Integer> occurrences = new LinkedHashMap<>();
+        count(rules, occurrences, true);
+        List<Map.Entry<Object, Integer>> entries = new ArrayList<>();
+        for (Map.Entry<Object, Integer> entry : occurrences.entrySet()) {
+            if (entry.getKey() instanceof String || entry.getValue() > 1) {
+                entries.add(entry);
+            }
+        }
+        // stable, so equal counts keep the order of first occurrence
+        entries.sort(Comparator.comparing(Map.Entry<Object, Integer>::getValue).reversed());
+        Map<Object, Integer> indexes = new HashMap<>();
+        for (Map.Entry<Object, Integer> entry : entries) {
+            indexes.put(entry.getKey(), indexes.size());
+        }
+
+        ArrayNode table = NODES.arrayNode();
+        for (Map.Entry<Object, Integer> entry : entries) {
+            if (entry.getKey() instanceof String string) {
+                table.add(string);
+            } else {
+                table.add(encodeContainer((JsonNode) entry.getKey(), indexes));
+            }
+        }
+        ObjectNode compact = NODES.objectNode();
+        compact.put("format", FORMAT);
+        compact.set("table", table);
+        compact.set("rules", encodeContainer(rules, indexes));
+        return compact;
+    }
+
+    private static void count(JsonNode node, Map<Object, Integer> occurrences, boolean root) {
+        if (node.isTextual()) {
+            occurrences.merge(node.textValue(), 1, Integer::sum);
+        } else if (node.isContainerNode()) {
+            // the root and empty containers are not worth an entry
+            if (!root && !node.isEmpty()) {
+                occurrences.merge(node, 1, Integer::sum);
+            }
+            if (node.isObject()) {
+                for (Iterator<Map.Entry<String, JsonNode>> fields = node.fields(); fields.hasNext(); ) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    occurrences.merge(field.getKey(), 1, Integer::sum);
+                    count(field.getValue(), occurrences, false);
+                }
+            } else {
+                for (JsonNode element : node) {
+                    count(element, occurrences, false);
+                }
+            }
+        }
+    }
+
+    private static JsonNode encode(JsonNode node, Map<Object, Integer> indexes) {
+        if (node.isTextual()) {
+            return NODES.numberNode(indexes.get(node.textValue()));
+        }
+        if (node.isNumber()) {
+            return NODES.textNode(node.toString());
+        }
+        if (node.isContainerNode()) {
+            Integer index = indexes.get(node);
+            return index != null ? NODES.numberNode(index) : encodeContainer(node, indexes);
+        }
+        return node;
+    }
+
+    private static JsonNode encodeContainer(JsonNode node, Map<Object, Integer> indexes) {
+        if (node.isObject()) {
+            ObjectNode encoded = NODES.objectNode();
+            for (Iterator<Map.Entry<String, JsonNode>> fields = node.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                encoded.set(String.valueOf(indexes.get(field.getKey())), encode(field.getValue(), indexes));
+            }
+            return encoded;
+        }
+        ArrayNode encoded = NODES.arrayNode();
+        for (JsonNode element : node) {
+            encoded.add(encode(element, indexes));
+        }
+        return encoded;
+    }
+
+    /**
+     * The counterpart of the JavaScript decoder, for tests and Java clients.
+     *
+     * @throws IllegalArgumentException if the document is not of the compact format
+     */
+    static JsonNode decode(JsonNode compact) {
+        JsonNode table = compact.path("table");
+        if (!FORMAT.equals(compact.path("format").textValue()) || !table.isArray()
+                || !compact.path("rules").isObject()) {
+            throw new IllegalArgumentException("Not a " + FORMAT + " document");
+        }
+        return decodeContainer(compact.get("rules"), table, new IdentityHashMap<>());
+    }
+
+    private static JsonNode decode(JsonNode node, JsonNode table, Map<JsonNode, Boolean> decoding) {
+        if (node.isIntegralNumber()) {
+            JsonNode entry = entry(table, node.asInt());
+            if (entry.isTextual()) {
+                return entry;
+            }
+            // a table entry that refers to itself would never end
+            if (decoding.put(entry, Boolean.TRUE) != null) {
+                throw new IllegalArgumentException("Cyclic table entry " + node.asInt());
+            }
+            JsonNode decoded = decodeContainer(entry, table, decoding);
+            decoding.remove(entry);
+            return decoded;
+        }
+        if (node.isTextual()) {
+            try {
+                JsonNode number = OBJECT_MAPPER.readTree(node.textValue());
+                if (number != null && number.isNumber()) {
+                    return number;
+                }
+            } catch (JsonProcessingException e) {
+                // handled below
+            }
+            throw new IllegalArgumentException("Not a number: " + node.textValue());
+        }
+        if (node.isContainerNode()) {
+            return decodeContainer(node, table, decoding);
+        }
+        return node;
+    }
+
+    private static JsonNode decodeContainer(JsonNode node, JsonNode table, Map<JsonNode, Boolean> decoding) {
+        if (node.isObject()) {
+            ObjectNode decoded = NODES.objectNode();
+            for (Iterator<Map.Entry<String, JsonNode>> fields = node.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode key;
+                try {
+                    key = entry(table, Integer.parseInt(field.getKey()));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Not a key index: " + field.getKey());
+                }
+                if (!key.isTextual()) {
+                    throw new IllegalArgumentException("Not a string entry: " + field.getKey());
+                }
+                decoded.set(key.textValue(), decode(field.getValue(), table, decoding));
+            }
+            return decoded;
+        }
+        if (!node.isArray()) {
+            throw new IllegalArgumentException("Not an object or array: " + node);
+        }
+        ArrayNode decoded = NODES.arrayNode();
+        for (JsonNode element : node) {
+            decoded.add(decode(element, table, decoding));
+        }
+        return decoded;
+    }
+
+    private static JsonNode entry(JsonNode table, int index) {
+        if (index < 0 || index >= table.size()) {
+            throw new IllegalArgumentException("No table entry " + index);
+        }
+        return table.get(index);
+    }
+
+    /**
+     * @param accept the value of the 'Accept' request header, may be null
+     * @return true if the client prefers the compact format over JSON; with equal quality the compact format is
+     * preferred, as a client only asks for it if it can decode it
+     */
+    static boolean isPreferred(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        double compactQuality = 0;
+        double jsonQuality = 0;
+        for (String range : accept.split(",")) {
+            String[] parts = range.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (name.equals(MEDIA_TYPE)) {
+                compactQuality = Math.max(compactQuality, quality(parts));
+            } else if (JSON_RANGES.contains(name)) {
+                jsonQuality = Math.max(jsonQuality, quality(parts));
+            }
+        }
+        return compactQuality > 0 && compactQuality >= jsonQuality;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+}
@@ -1,5 +1,6 @@
 package de.swa.clv.demo.rest;
 
+import de.swa.clv.demo.service.StaleArticleException;
 import de.swa.clv.demo.validation.ValidationException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -22,4 +23,13 @@ public class RestResponseEntityExceptionHandler
         return handleExceptionInternal(ex, fieldErrors,
           new HttpHeaders(), HttpStatus.BAD_REQUEST, request);
     }
+
+    // More specific than the handler above, so a stale update is no bad request but a failed If-Match precondition
+    @ExceptionHandler(value = { StaleArticleException.class })
+    protected ResponseEntity<Object> handleStaleArticle(
+      RuntimeException ex, WebRequest request) {
+        List<String> fieldErrors = ((StaleArticleException) ex).getFieldErrors();
+        return handleExceptionInternal(ex, fieldErrors,
+          new HttpHeaders(), HttpStatus.PRECONDITION_FAILED, request);
+    }
 }
@@ -0,0 +1,94 @@
+package de.swa.clv.demo.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.swa.clv.ValidationRules;
+import de.swa.clv.demo.validation.CalendarRules;
+import de.swa.clv.demo.validation.ClientRules;
+import org.springframework.http.MediaType;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * The validation rules as served to the clients (see {@link ClientRules}), as JSON and in the
+ * {@link CompactRulesFormat}. The rules are serialized again when a calendar has changed, which happens at most once a
+ * day; until then each call returns the same resources. The calendars are only checked on the first call of a day, the
+ * other calls just compare the time with the start of the next day.
+ */
+final class ValidationRulesResource {
+
+    private record Serialized(long calendarGeneration, CachedJsonResource json, CachedJsonResource compact) {
+    }
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Clock clock;
+    private final ValidationRules<?>[] rules;
+    private volatile Serialized serialized;
+    // The epoch millis from which on the calendars are checked again
+    private volatile long nextCheckMillis;
+
+    ValidationRulesResource(ValidationRules<?>... rules) {
+        this(Clock.systemDefaultZone(), rules);
+    }
+
+    /**
+     * @param clock the clock of the calendars of the rules, i.e. whose days they roll over with
+     */
+    ValidationRulesResource(Clock clock, ValidationRules<?>... rules) {
+        this.clock = clock;
+        this.rules = rules;
+        this.nextCheckMillis = startOfNextDay(clock.millis());
+        this.serialized = serialize();
+    }
+
+    CachedJsonResource get() {
+        return current().json();
+    }
+
+    /**
+     * @param accept the value of the 'Accept' request header, may be null
+     * @return the compact rules if the client prefers them, otherwise the JSON rules
+     */
+    CachedJsonResource get(String accept) {
+        Serialized current = current();
+        return CompactRulesFormat.isPreferred(accept) ? current.compact() : current.json();
+    }
+
+    private Serialized current() {
+        Serialized current = serialized;
+        long now = clock.millis();
+        if (now >= nextCheckMillis) {
+            if (current.calendarGeneration() != CalendarRules.generation(rules)) {
+                // Concurrent callers may both serialize, they get equal resources
+                current = serialize();
+                serialized = current;
+            }
+            nextCheckMillis = startOfNextDay(now);
+        }
+        return current;
+    }
+
+    private long startOfNextDay(long epochMillis) {
+        ZoneId zone = clock.getZone();
+        return LocalDate.ofInstant(Instant.ofEpochMilli(epochMillis), zone).plusDays(1)
+                .atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private Serialized serialize() {
+        long calendarGeneration = CalendarRules.generation(rules);
+        String json = ClientRules.serializeToJson(rules);
+        String compact;
+        try {
+            compact = OBJECT_MAPPER.writeValueAsString(CompactRulesFormat.encode(OBJECT_MAPPER.readTree(json)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Serialized rules are no valid JSON", e);
+        }
+        return new Serialized(calendarGeneration, CachedJsonResource.of(json, CachedJsonResource.JSON_UTF8),
+                CachedJsonResource.of(compact, MediaType.parseMediaType(CompactRulesFormat.MEDIA_TYPE)));
+    }
+
+}
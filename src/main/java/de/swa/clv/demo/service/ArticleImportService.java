@@ -0,0 +1,195 @@
+package de.swa.clv.demo.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.swa.clv.demo.User;
+import de.swa.clv.demo.model.Article;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bulk import of articles. The request body is a JSON array or a stream of newline delimited JSON objects (NDJSON),
+ * which is parsed incrementally. Each article is validated and stored by a worker pool, the result per article is
+ * written as NDJSON line as soon as it is available, i.e. in completion order.
+ * <p>
+ * At most {@code clv.demo.import.max-in-flight} articles are read ahead of the workers, after that reading the request
+ * body pauses until results have been written. So neither the request nor the response is buffered as a whole.
+ */
+@Service
+public class ArticleImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ArticleImportService.class);
+
+    static final String UNREADABLE_ITEM_ERROR_CODE = "error.import.unreadable";
+    static final String FAILED_ITEM_ERROR_CODE = "error.import.failed";
+
+    private final ArticleService articleService;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService workers;
+    private final int maxInFlight;
+
+    public ArticleImportService(ArticleService articleService, ObjectMapper objectMapper,
+            @Value("${clv.demo.import.parallelism:0}") int parallelism,
+            @Value("${clv.demo.import.max-in-flight:256}") int maxInFlight) {
+        this.articleService = articleService;
+        this.objectMapper = objectMapper;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "article-import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * The result for the article at position {@code index} (0-based) of the import stream: either the id of the
+     * created article or the validation error codes.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record ImportResult(int index, Integer id, List<String> errors) {
+    }
+
+    /**
+     * Imports all articles from the input stream and writes one result line per article to the output stream.
+     * Returns when all results have been written.
+     */
+    public void importArticles(InputStream in, OutputStream out, User user) throws IOException {
+        ResultWriter resultWriter = new ResultWriter(out);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        int index = 0;
+        try (MappingIterator<Article> articles = objectMapper.readerFor(Article.class).readValues(in)) {
+            while (resultWriter.isOpen() && hasNextArticle(articles, index, resultWriter)) {
+                int articleIndex = index++;
+                Article article;
+                try {
+                    article = articles.nextValue();
+                } catch (JsonParseException e) {
+                    // the stream can't be resynchronized after a syntax error
+                    resultWriter.write(unreadable(articleIndex, e));
+                    break;
+                } catch (JsonMappingException e) {
+                    resultWriter.write(unreadable(articleIndex, e));
+                    continue;
+                }
+                inFlight.acquireUninterruptibly();
+                try {
+                    workers.execute(() -> {
+                        try {
+                            resultWriter.write(importArticle(articleIndex, article, user));
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // the workers are shut down, so this and all remaining articles fail
+                    inFlight.release();
+                    log.warn("Import of article {} failed: {}", articleIndex, e.toString());
+                    resultWriter.write(failed(articleIndex));
+                }
+            }
+        } finally {
+            // wait for the remaining results
+            inFlight.acquireUninterruptibly(maxInFlight);
+        }
+        log.info("Imported {} articles, {} articles failed", resultWriter.createdCount.get(),
+                resultWriter.errorCount.get());
+        resultWriter.rethrowFailure();
+    }
+
+    private boolean hasNextArticle(MappingIterator<Article> articles, int index, ResultWriter resultWriter)
+            throws IOException {
+        try {
+            return articles.hasNextValue();
+        } catch (JsonParseException e) {
+            resultWriter.write(unreadable(index, e));
+            return false;
+        }
+    }
+
+    private ImportResult importArticle(int index, Article article, User user) {
+        try {
+            ArticleService.ArticleResult result = articleService.createArticle(article, user);
+            return result.isValid()
+                    ? new ImportResult(index, result.article().getId(), null)
+                    : new ImportResult(index, null, result.validation().getErrors());
+        } catch (RuntimeException e) {
+            log.warn("Import of article {} failed", index, e);
+            return failed(index);
+        }
+    }
+
+    private static ImportResult failed(int index) {
+        return new ImportResult(index, null, List.of(FAILED_ITEM_ERROR_CODE));
+    }
+
+    private static ImportResult unreadable(int index, IOException e) {
+        log.info("Import of article {} failed: {}", index, e.getMessage());
+        return new ImportResult(index, null, List.of(UNREADABLE_ITEM_ERROR_CODE));
+    }
+
+    // Serializes the results of all workers to the response; stops writing if the client has gone away
+    private class ResultWriter {
+
+        private final OutputStream out;
+        private final AtomicReference<IOException> failure = new AtomicReference<>();
+        private final AtomicInteger createdCount = new AtomicInteger();
+        private final AtomicInteger errorCount = new AtomicInteger();
+
+        ResultWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        boolean isOpen() {
+            return failure.get() == null;
+        }
+
+        void write(ImportResult result) {
+            (result.errors() != null ? errorCount : createdCount).incrementAndGet();
+            try {
+                byte[] line = objectMapper.writeValueAsBytes(result);
+                synchronized (this) {
+                    if (!isOpen()) {
+                        return;
+                    }
+                    out.write(line);
+                    out.write('\n');
+                    out.flush();
+                }
+            } catch (IOException e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+
+        void rethrowFailure() throws IOException {
+            IOException e = failure.get();
+            if (e != null) {
+                throw e;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package de.swa.clv.demo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.swa.clv.demo.model.Article;
+import de.swa.clv.demo.repository.ArticleQuery;
+import de.swa.clv.demo.repository.ArticleRepository;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Pages of the articles matching an {@link ArticleQuery}. A page is written to the output as it is read from the
+ * repository, so it is never held as a whole:
+ * <pre>
+ * {"articles":[...],"nextCursor":"..."}
+ * </pre>
+ * The nextCursor is only present if there are more matching articles. It continues after the last article of the page
+ * even if that article is changed meanwhile, so paging neither skips nor repeats unchanged articles.
+ */
+@Service
+public class ArticleQueryService {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private final ArticleRepository articleRepository;
+    private final ObjectMapper objectMapper;
+
+    public ArticleQueryService(ArticleRepository articleRepository, ObjectMapper objectMapper) {
+        this.articleRepository = articleRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param after the cursor of the previous page, null for the first page
+     * @param limit the maximum number of articles of the page, null for {@link #DEFAULT_LIMIT}, at most
+     * {@link #MAX_LIMIT}
+     */
+    public void writeArticles(ArticleQuery query, ArticleQuery.Cursor after, Integer limit, OutputStream out)
+            throws IOException {
+        int pageSize = limit == null ? DEFAULT_LIMIT : Math.min(Math.max(limit, 1), MAX_LIMIT);
+        try (Stream<Article> articles = articleRepository.find(query, after);
+                JsonGenerator generator = objectMapper.createGenerator(out)) {
+            Iterator<Article> iterator = articles.iterator();
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("articles");
+            Article last = null;
+            for (int count = 0; count < pageSize && iterator.hasNext(); count++) {
+                last = iterator.next();
+                generator.writeObject(last);
+            }
+            generator.writeEndArray();
+            // Looking ahead one article is cheaper for the client than requesting an empty last page
+            if (last != null && iterator.hasNext()) {
+                generator.writeStringField("nextCursor", query.cursorAfter(last).toString());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+}
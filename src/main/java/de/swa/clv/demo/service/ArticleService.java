@@ -1,78 +1,218 @@
 package de.swa.clv.demo.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import de.swa.clv.demo.User;
 import de.swa.clv.demo.model.*;
+import de.swa.clv.demo.repository.ArticleRepository;
 import de.swa.clv.demo.validation.ValidationException;
+import de.swa.clv.demo.validation.ValidationMetrics;
+import de.swa.clv.demo.validation.ValidationResult;
+import de.swa.clv.demo.validation.ValidationResultCache;
 import de.swa.clv.demo.validation.ValidationRulesCheck;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Optional;
 
 import static de.swa.clv.demo.validation.ValidatorProvider.VALIDATOR;
 
 @Service
 public class ArticleService implements ValidationRulesCheck {
 
-    // The demo app simply stores the articles in a map
-    private static AtomicInteger articleIdSeq = new AtomicInteger(0);
-    private static Map<Integer, Article> idArticleMap = new HashMap<>();
-    static {
-        idArticleMap.put(articleIdSeq.incrementAndGet(), new Article(articleIdSeq.get(), "Diagnostic Video Colonoscope",
-                "DVC-H123T/Z", Status.ACTIVE, (short) 9, LocalDate.of(2022, 12, 1), Category.ENDOSCOPY, SubCategory.SINUSCOPE,
-                List.of(new Accessory("Biopsy Forcep", 3), new Accessory("Polyp Traps", 5)), new Date()));
+    static final String NOT_UNIQUE_NAME_ERROR_CODE =
+            VALIDATOR.getDefaultContentMessagePrefix() + "not-unique.article.name";
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired(required = false)
+    private ValidationMetrics validationMetrics = ValidationMetrics.DISABLED;
+
+    @Autowired(required = false)
+    private ValidationResultCache validationResultCache = ValidationResultCache.DISABLED;
+
+    @Override
+    public ValidationMetrics getValidationMetrics() {
+        return validationMetrics;
+    }
+
+    @Override
+    public ValidationResultCache getValidationResultCache() {
+        return validationResultCache;
     }
 
     public Article getArticle(int id) {
-        Article article = idArticleMap.get(id);
-        if (article != null) {
+        return articleRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Article with id '" + id + "' does not exist."));
+    }
+
+    /**
+     * The outcome of a create or update: the stored article, or the validation errors it has failed with. Invalid
+     * articles are an expected outcome, so they are returned instead of thrown.
+     */
+    public record ArticleResult(Article article, ValidationResult validation) {
+
+        static ArticleResult stored(Article article) {
+            return new ArticleResult(article, ValidationResult.VALID);
+        }
+
+        static ArticleResult invalid(ValidationResult validation) {
+            return new ArticleResult(null, validation);
+        }
+
+        public boolean isValid() {
+            return validation.isValid();
+        }
+
+        /**
+         * @return the stored article
+         * @throws ValidationException if the article is invalid
+         */
+        public Article orElseThrow() {
+            if (!isValid()) {
+                throw validation.toException();
+            }
             return article;
         }
-        throw new IllegalArgumentException("Article with id '" + id + "' does not exist.");
     }
 
-    public Article createArticle(Article newArticle, User user) {
-        newArticle.setId(null); // just a precautionary measure
-
-        requireValidationRulesPass(newArticle, user.getPermissions());
-        requireUniqueName(newArticle);
+    public ArticleResult createArticle(Article newArticle, User user) {
+        ValidationResult result = validateNewArticle(newArticle, user);
+        if (!result.isValid()) {
+            return ArticleResult.invalid(result);
+        }
         // The next validation is superfluous, accessory names have been already checked!
         // It's just a demo on how to validate objects that don't implement ValidationRulesGettable
-        newArticle.getAccessories()
-                .forEach(acc -> requireValidationRulesPass(AccessoryRules.rules, acc, user.getPermissions()));
+        for (Accessory accessory : newArticle.getAccessories()) {
+            result = getValidationResult(AccessoryRules.rules, accessory, user.getPermissions());
+            if (!result.isValid()) {
+                return ArticleResult.invalid(result);
+            }
+        }
 
-        newArticle.setId(articleIdSeq.incrementAndGet());
+        newArticle.setId(articleRepository.nextId());
         newArticle.setLastModifiedOn(new Date());
 
-        idArticleMap.put(newArticle.getId(), newArticle);
-        return newArticle;
+        switch (articleRepository.insert(newArticle)) {
+            // Another article with the name has been stored since the check
+            case NAME_NOT_UNIQUE -> {
+                return ArticleResult.invalid(notUniqueName());
+            }
+            case CONFLICT -> throw new IllegalStateException("Article id '" + newArticle.getId() + "' already in use.");
+            case OK -> { }
+        }
+        return ArticleResult.stored(newArticle);
+    }
+
+    /**
+     * Updates the article, provided that the stored article still has the expected version, i.e. the version the
+     * client has read. The version is checked before the validation, so a stale update costs a map lookup, and again
+     * atomically when the article is stored.
+     *
+     * @throws StaleArticleException if the stored article has another version
+     */
+    public ArticleResult updateArticle(Article editedArticle, long expectedVersion, User user) {
+        if (editedArticle.getId() == null) {
+            throw new IllegalArgumentException("Article to update has no id.");
+        }
+        Article currentArticle = getCurrentArticle(editedArticle.getId(), expectedVersion);
+        return update(currentArticle, editedArticle, user);
     }
 
-    public Article updateArticle(Article editedArticle, User user) {
-        Article currentArticle = idArticleMap.get(editedArticle.getId());
+    /**
+     * Applies the JSON merge patch (RFC 7386) to a copy of the stored article and updates the article with the copy
+     * like {@link #updateArticle(Article, long, User)}, i.e. the result is the same as for a full update. As only the
+     * patched properties differ, only the rules depending on them are evaluated, see {@link ValidationRulesCheck}. The
+     * id is the one of the stored article, an id in the patch is ignored.
+     *
+     * @throws StaleArticleException if the stored article has another version
+     * @throws JsonProcessingException if a patched value doesn't match the type of its property
+     */
+    public ArticleResult patchArticle(int id, ObjectNode mergePatch, long expectedVersion, User user)
+            throws IOException {
+        Article currentArticle = getCurrentArticle(id, expectedVersion);
+        Article editedArticle = objectMapper.readerForUpdating(new Article(currentArticle)).readValue(mergePatch);
+        editedArticle.setId(id);
+        return update(currentArticle, editedArticle, user);
+    }
+
+    private Article getCurrentArticle(int id, long expectedVersion) {
+        Article currentArticle = getArticle(id);
+        if (currentArticle.getVersion() != expectedVersion) {
+            throw new StaleArticleException(id);
+        }
+        return currentArticle;
+    }
 
-        requireValidationRulesPass(editedArticle, currentArticle, user.getPermissions());
-        requireUniqueName(editedArticle);
+    private ArticleResult update(Article currentArticle, Article editedArticle, User user) {
+        ValidationResult result = validateUpdate(currentArticle, editedArticle, user);
+        if (!result.isValid()) {
+            return ArticleResult.invalid(result);
+        }
 
         editedArticle.setLastModifiedOn(new Date());
+        editedArticle.setVersion(currentArticle.getVersion() + 1);
+
+        switch (articleRepository.compareAndSet(currentArticle, editedArticle)) {
+            case NAME_NOT_UNIQUE -> {
+                return ArticleResult.invalid(notUniqueName());
+            }
+            // Another update has been stored since currentArticle has been read
+            case CONFLICT -> throw new StaleArticleException(currentArticle.getId());
+            case OK -> { }
+        }
+        return ArticleResult.stored(editedArticle);
+    }
+
+    /**
+     * Runs the checks of {@link #createArticle(Article, User)} without storing the article. Only lock-free reads are
+     * done and no exceptions are created, so the method is cheap enough to be called for every payload.
+     */
+    public ValidationResult validateNewArticle(Article newArticle, User user) {
+        newArticle.setId(null); // the rules for new articles are conditioned on a null id
+        List<String> errors = new ArrayList<>(getValidationErrors(newArticle, user.getPermissions()));
+        addNotUniqueNameError(newArticle, errors);
+        return ValidationResult.of(Article.class, errors);
+    }
+
+    /**
+     * Runs the checks of {@link #updateArticle(Article, long, User)} against the current article with the given id
+     * without storing the edited article. The version is not checked.
+     *
+     * @return the result, or empty if there is no article with the given id
+     */
+    public Optional<ValidationResult> validateEditedArticle(Article editedArticle, int currentId, User user) {
+        return articleRepository.findById(currentId).map(currentArticle -> {
+            editedArticle.setId(currentId);
+            return validateUpdate(currentArticle, editedArticle, user);
+        });
+    }
+
+    private ValidationResult validateUpdate(Article currentArticle, Article editedArticle, User user) {
+        List<String> errors = new ArrayList<>(
+                getValidationErrors(editedArticle, currentArticle, user.getPermissions()));
+        addNotUniqueNameError(editedArticle, errors);
+        return ValidationResult.of(Article.class, errors);
+    }
 
-        idArticleMap.put(editedArticle.getId(), editedArticle);
-        return editedArticle;
+    // Fails early; the name is reserved atomically when the article is stored. Package-private for the benchmarks.
+    void addNotUniqueNameError(Article article, List<String> errors) {
+        articleRepository.findIdByName(article.getName())
+                .filter(existingId -> !existingId.equals(article.getId()))
+                .ifPresent(ignore -> errors.add(NOT_UNIQUE_NAME_ERROR_CODE));
     }
 
-    private void requireUniqueName(Article article) {
-        idArticleMap.values().stream()
-                .filter(existingArticle -> existingArticle.getName() != null)
-                .filter(existingArticle -> existingArticle.getName().equalsIgnoreCase(article.getName())
-                        && (article.getId() != null && !existingArticle.getId().equals(article.getId())))
-                .findFirst().ifPresent(ignore -> {
-                    throw new ValidationException("error", List.of(
-                            VALIDATOR.getDefaultContentMessagePrefix() + "not-unique.article.name"));
-                });
+    private static ValidationResult notUniqueName() {
+        return ValidationResult.of(Article.class, List.of(NOT_UNIQUE_NAME_ERROR_CODE));
     }
 
 }
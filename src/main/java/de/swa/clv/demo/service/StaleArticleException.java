@@ -0,0 +1,22 @@
+package de.swa.clv.demo.service;
+
+import de.swa.clv.demo.validation.ValidationException;
+
+import java.util.List;
+
+import static de.swa.clv.demo.validation.ValidatorProvider.VALIDATOR;
+
+/**
+ * The article to update has been updated by someone else since the client has read it. The field error is the one of
+ * the immutable rule of {@code lastModifiedOn}, so the frontend shows the same message for both ways of detection.
+ */
+public class StaleArticleException extends ValidationException {
+
+    static final String CONCURRENT_MODIFICATION_ERROR_CODE =
+            VALIDATOR.getDefaultImmutableMessagePrefix() + "article.lastModifiedOn";
+
+    StaleArticleException(int id) {
+        super("Article '" + id + "' has been modified in the meantime", List.of(CONCURRENT_MODIFICATION_ERROR_CODE));
+    }
+
+}
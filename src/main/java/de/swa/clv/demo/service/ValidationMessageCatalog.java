@@ -0,0 +1,217 @@
+package de.swa.clv.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.swa.clv.ValidationRules;
+import de.swa.clv.demo.model.Accessory;
+import de.swa.clv.demo.model.AccessoryRules;
+import de.swa.clv.demo.model.Article;
+import de.swa.clv.demo.rest.CachedJsonResource;
+import de.swa.clv.demo.validation.CalendarRules;
+import de.swa.clv.demo.validation.CompiledValidationRules;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The validation error messages per locale, i.e. the mapping of the error codes to the messages shown by the frontend.
+ * <p>
+ * The bundles {@value #BUNDLE}.properties (the default) and {@value #BUNDLE}_&lt;language tag&gt;.properties are
+ * loaded once at startup, a locale bundle falls back to the default bundle for the messages it doesn't define.
+ * Placeholders like {@code {amountMax}} are resolved with the constants of the rules. The startup fails if the default
+ * bundle has no message for an error code that the rules or the services can emit.
+ * <p>
+ * Each locale is serialized once into a {@link CachedJsonResource}, the one to serve is chosen by the
+ * 'Accept-Language' request header.
+ */
+@Service
+public class ValidationMessageCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(ValidationMessageCatalog.class);
+
+    static final String BUNDLE = "messages/validation-messages";
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{(\\w+)}");
+    private static final Map<String, Object> PARAMETERS = Map.of(
+            "amountMin", Article.AMOUNT_MIN,
+            "amountMax", Article.AMOUNT_MAX,
+            "amountSumMax", Article.AMOUNT_SUM_MAX,
+            "accessoryNameRegex", Article.EXAMPLE_UNICODE_PROPERTY_CLASSES_REGEX);
+
+    // The first locale is the default one
+    private final List<Locale> locales;
+    private final Map<Locale, CachedJsonResource> messages = new LinkedHashMap<>();
+    private final Map<Locale, Map<String, String>> messageMaps = new LinkedHashMap<>();
+
+    @Autowired
+    public ValidationMessageCatalog(ObjectMapper objectMapper,
+            @Value("${clv.demo.messages.locales:en,de}") List<String> languageTags) {
+        this(objectMapper, languageTags.stream().map(Locale::forLanguageTag).toList(), emittableErrorCodes());
+    }
+
+    ValidationMessageCatalog(ObjectMapper objectMapper, List<Locale> locales, Collection<String> errorCodes) {
+        if (locales.isEmpty()) {
+            throw new IllegalArgumentException("At least one locale is required");
+        }
+        this.locales = List.copyOf(locales);
+        Map<String, String> defaultMessages = loadBundle(BUNDLE + ".properties");
+        if (defaultMessages == null) {
+            throw new IllegalStateException("Default message bundle is missing: " + BUNDLE + ".properties");
+        }
+        checkMessages(defaultMessages, errorCodes);
+        for (Locale locale : this.locales) {
+            Map<String, String> localeMessages = new TreeMap<>(defaultMessages);
+            Map<String, String> bundle = loadBundle(BUNDLE + "_" + locale.toLanguageTag().replace('-', '_')
+                    + ".properties");
+            if (bundle != null) {
+                localeMessages.putAll(bundle);
+                logFallbacks(locale, bundle, defaultMessages);
+            } else if (!locale.equals(this.locales.get(0))) {
+                throw new IllegalStateException("Message bundle is missing for locale " + locale.toLanguageTag());
+            }
+            messages.put(locale, CachedJsonResource.of(toJson(objectMapper, localeMessages), locale));
+            messageMaps.put(locale, Collections.unmodifiableMap(localeMessages));
+        }
+    }
+
+    /**
+     * @param acceptLanguage the value of the 'Accept-Language' request header, may be null
+     * @return the messages of the best matching locale, or of the default locale if none matches
+     */
+    public CachedJsonResource getMessages(String acceptLanguage) {
+        return messages.get(lookupLocale(acceptLanguage));
+    }
+
+    /**
+     * @param acceptLanguage the value of the 'Accept-Language' request header, may be null
+     * @return the error code to message mapping of the best matching locale, e.g. to resolve the messages of a
+     * {@link de.swa.clv.demo.validation.ValidationResult}
+     */
+    public Map<String, String> getMessageMap(String acceptLanguage) {
+        return messageMaps.get(lookupLocale(acceptLanguage));
+    }
+
+    public List<Locale> getLocales() {
+        return locales;
+    }
+
+    Locale lookupLocale(String acceptLanguage) {
+        if (acceptLanguage == null || acceptLanguage.isBlank()) {
+            return locales.get(0);
+        }
+        Locale locale;
+        try {
+            locale = Locale.lookup(Locale.LanguageRange.parse(acceptLanguage), locales);
+        } catch (IllegalArgumentException e) {
+            log.debug("Invalid Accept-Language header: {}", acceptLanguage);
+            return locales.get(0);
+        }
+        return locale != null ? locale : locales.get(0);
+    }
+
+    /**
+     * @return all error codes that the rules (if compiled), the calendar rules and the services can emit
+     */
+    static List<String> emittableErrorCodes() {
+        List<String> errorCodes = new ArrayList<>();
+        Map<Class<?>, ValidationRules<?>> allRules = Map.of(Article.class, Article.rules,
+                Accessory.class, AccessoryRules.rules);
+        for (Map.Entry<Class<?>, ValidationRules<?>> rules : allRules.entrySet()) {
+            CompiledValidationRules<?> compiledRules = CompiledValidationRules.get(rules.getValue());
+            if (compiledRules == null) {
+                log.warn("Rules for {} are not compiled, their error codes can't be checked for messages",
+                        rules.getKey().getSimpleName());
+            } else {
+                errorCodes.addAll(compiledRules.getErrorCodes());
+            }
+            errorCodes.addAll(CalendarRules.getErrorCodes(rules.getValue()));
+        }
+        errorCodes.add(ArticleService.NOT_UNIQUE_NAME_ERROR_CODE);
+        errorCodes.add(ArticleImportService.UNREADABLE_ITEM_ERROR_CODE);
+        errorCodes.add(ArticleImportService.FAILED_ITEM_ERROR_CODE);
+        return errorCodes;
+    }
+
+    private static void checkMessages(Map<String, String> defaultMessages, Collection<String> errorCodes) {
+        TreeSet<String> missing = new TreeSet<>(errorCodes);
+        missing.removeAll(defaultMessages.keySet());
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("No message for error codes: " + missing);
+        }
+        TreeSet<String> unused = new TreeSet<>(defaultMessages.keySet());
+        unused.removeAll(errorCodes);
+        if (!unused.isEmpty()) {
+            log.warn("Messages for error codes that are never emitted: {}", unused);
+        }
+    }
+
+    private static void logFallbacks(Locale locale, Map<String, String> bundle, Map<String, String> defaultMessages) {
+        TreeSet<String> fallbacks = new TreeSet<>(defaultMessages.keySet());
+        fallbacks.removeAll(bundle.keySet());
+        if (!fallbacks.isEmpty()) {
+            log.info("Messages for {} fall back to the default bundle: {}", locale.toLanguageTag(), fallbacks);
+        }
+    }
+
+    // returns null if there is no such bundle
+    private static Map<String, String> loadBundle(String resource) {
+        InputStream in = ValidationMessageCatalog.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Message bundle can't be read: " + resource, e);
+        }
+        Map<String, String> bundle = new TreeMap<>();
+        for (String errorCode : properties.stringPropertyNames()) {
+            bundle.put(errorCode, resolvePlaceholders(resource, properties.getProperty(errorCode)));
+        }
+        return bundle;
+    }
+
+    private static String resolvePlaceholders(String resource, String message) {
+        Matcher matcher = PLACEHOLDER.matcher(message);
+        StringBuilder resolved = new StringBuilder();
+        while (matcher.find()) {
+            Object value = PARAMETERS.get(matcher.group(1));
+            if (value == null) {
+                throw new IllegalStateException("Unknown placeholder " + matcher.group() + " in " + resource);
+            }
+            matcher.appendReplacement(resolved, Matcher.quoteReplacement(String.valueOf(value)));
+        }
+        return matcher.appendTail(resolved).toString();
+    }
+
+    private static String toJson(ObjectMapper objectMapper, Map<String, String> messages) {
+        try {
+            return objectMapper.writeValueAsString(messages);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Messages can't be serialized", e);
+        }
+    }
+
+}
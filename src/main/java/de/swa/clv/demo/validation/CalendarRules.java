@@ -0,0 +1,209 @@
+package de.swa.clv.demo.validation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.swa.clv.ValidationRules;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static de.swa.clv.demo.validation.ValidatorProvider.VALIDATOR;
+
+/**
+ * Content rules by which a date property must not be on a day of a {@link RollingCalendar}, e.g. on company vacation
+ * days. CLV has no constraint for a set of days that changes over time, so these rules are registered next to the CLV
+ * rules: {@link ValidationRulesCheck} validates them with the CLV content rules, and {@link #addTo} adds them to
+ * the rules served to the clients (see {@link ClientRules}) as constraint of the type CALENDAR_NONE:
+ * <pre>
+ * {"constraint":{"type":"CALENDAR_NONE","ranges":[["2025-08-01","2025-08-31"]]},
+ *  "errorCodeControl":{"useType":"AS_REPLACEMENT","code":"error.validation.content.equals_none.article.maintenanceNextDate"}}
+ * </pre>
+ * The ranges are the days of the calendar at serialization time, inclusive, ascending and disjoint. Like the NONE
+ * constraints of CLV, the constraint is met by null.
+ * <p>
+ * The rules replace EQUALS_NONE rules with a fixed list of days, so they keep their error code and their position
+ * among the content rules of the property: the rule is serialized at that position, and its error is added before the
+ * errors of the content rules that follow it.
+ */
+public final class CalendarRules {
+
+    static final String CONSTRAINT_TYPE = "CALENDAR_NONE";
+    // The constraint type of the error code, the one of the replaced rules
+    static final String ERROR_CODE_CONSTRAINT_TYPE = "EQUALS_NONE";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    // Copy-on-write, registering only happens during class initialization of the rules
+    private static volatile Map<ValidationRules<?>, List<Rule>> registry = new IdentityHashMap<>();
+    // The error codes of the CLV content rules that follow a rule, computed when the rule fails for the first time
+    private static final Map<Rule, Set<String>> followingErrorCodes = new ConcurrentHashMap<>();
+
+    private record Rule(String typeKey, PropertyPath path, int index, RollingCalendar calendar, String errorCode) {
+
+        boolean isMet(Object entity) {
+            Object value = path.value(entity);
+            return value == null || !calendar.contains((LocalDate) value);
+        }
+    }
+
+    private CalendarRules() {
+        throw new IllegalStateException("Not meant to be instantiated");
+    }
+
+    /**
+     * Registers the rule that the property must not be on a day of the calendar for the given rules.
+     *
+     * @param index the position of the rule among the CLV content rules of the property, e.g. 1 to follow the first
+     *              one
+     * @throws IllegalArgumentException if the property is not a (non-indexed) LocalDate property of the type
+     */
+    public static <T> void contentNone(Class<T> type, ValidationRules<T> rules, String property, int index,
+            RollingCalendar calendar) {
+        PropertyPath path = PropertyPath.of(type, property);
+        if (path.isIndexed() || path.getValueType() != LocalDate.class) {
+            throw new IllegalArgumentException("Property is not a LocalDate: " + property);
+        }
+        if (index < 0) {
+            throw new IllegalArgumentException("Negative index: " + index);
+        }
+        String typeKey = Character.toLowerCase(type.getSimpleName().charAt(0)) + type.getSimpleName().substring(1);
+        String errorCode = VALIDATOR.getDefaultContentMessagePrefix()
+                + ERROR_CODE_CONSTRAINT_TYPE.toLowerCase(Locale.ROOT) + "." + typeKey + "." + property;
+        synchronized (CalendarRules.class) {
+            Map<ValidationRules<?>, List<Rule>> newRegistry = new IdentityHashMap<>(registry);
+            List<Rule> typeRules = new ArrayList<>(newRegistry.getOrDefault(rules, List.of()));
+            typeRules.add(new Rule(typeKey, path, index, calendar, errorCode));
+            newRegistry.put(rules, List.copyOf(typeRules));
+            registry = newRegistry;
+        }
+    }
+
+    /**
+     * Adds the error codes of the calendar rules of the given rules that the object doesn't meet. The errors of the
+     * CLV content rules must have been added before, as the error codes are inserted before the errors of the content
+     * rules that follow the calendar rules.
+     */
+    public static List<String> validate(ValidationRules<?> rules, Object object, List<String> errors) {
+        for (Rule rule : registry.getOrDefault(rules, List.of())) {
+            if (!rule.isMet(object)) {
+                Set<String> following = followingErrorCodes.computeIfAbsent(rule,
+                        failedRule -> followingErrorCodes(rules, failedRule));
+                int position = 0;
+                while (position < errors.size() && !following.contains(errors.get(position))) {
+                    position++;
+                }
+                errors.add(position, rule.errorCode());
+            }
+        }
+        return errors;
+    }
+
+    // The error codes of the CLV content rules after the index of the rule, except the ones of the rules before it
+    private static Set<String> followingErrorCodes(ValidationRules<?> rules, Rule rule) {
+        JsonNode typeRules;
+        try {
+            typeRules = OBJECT_MAPPER.readTree(SerializedRules.serializeToJson(rules))
+                    .path("contentRules").path(rule.typeKey());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Serialized rules are not valid JSON", e);
+        }
+        Set<String> preceding = new HashSet<>();
+        Set<String> following = new HashSet<>();
+        boolean afterRule = false;
+        Iterator<Map.Entry<String, JsonNode>> properties = typeRules.fields();
+        while (properties.hasNext()) {
+            Map.Entry<String, JsonNode> propertyRules = properties.next();
+            String property = propertyRules.getKey();
+            boolean ruleProperty = property.equals(rule.path().getProperty());
+            int index = 0;
+            for (JsonNode propertyRule : propertyRules.getValue()) {
+                String constraintType = propertyRule.path("constraint").path("type").asText();
+                String errorCode = CompiledValidationRules.errorCode(VALIDATOR.getDefaultContentMessagePrefix()
+                        + constraintType.toLowerCase(Locale.ROOT) + "." + rule.typeKey() + "." + property,
+                        propertyRule);
+                boolean follows = afterRule || (ruleProperty && index >= rule.index());
+                (follows ? following : preceding).add(errorCode);
+                index++;
+            }
+            afterRule |= ruleProperty;
+        }
+        following.removeAll(preceding);
+        return following;
+    }
+
+    public static boolean hasRules(ValidationRules<?>... rules) {
+        for (ValidationRules<?> typeRules : rules) {
+            if (registry.containsKey(typeRules)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the values of the properties of the calendar rules of the given rules
+     */
+    static Object[] dependencyValues(ValidationRules<?> rules, Object object) {
+        return registry.getOrDefault(rules, List.of()).stream().map(rule -> rule.path().value(object)).toArray();
+    }
+
+    public static List<String> getErrorCodes(ValidationRules<?> rules) {
+        return registry.getOrDefault(rules, List.of()).stream().map(Rule::errorCode).distinct().toList();
+    }
+
+    /**
+     * @return the sum of the {@link RollingCalendar#generation()}s of the calendar rules of all given rules, the
+     * serialized rules are outdated if this is not equal to the one at serialization time
+     */
+    public static long generation(ValidationRules<?>... rules) {
+        long generation = 0;
+        for (ValidationRules<?> typeRules : rules) {
+            for (Rule rule : registry.getOrDefault(typeRules, List.of())) {
+                generation += rule.calendar().generation();
+            }
+        }
+        return generation;
+    }
+
+    /**
+     * Adds the calendar rules of the given rules with the current days of their calendars to their serialized form,
+     * see {@link ClientRules}.
+     */
+    static void addTo(ObjectNode root, ValidationRules<?>... rules) {
+        ObjectNode contentRules = objectNode(root, "contentRules");
+        for (ValidationRules<?> typeRules : rules) {
+            for (Rule rule : registry.getOrDefault(typeRules, List.of())) {
+                JsonNode propertyRules = objectNode(contentRules, rule.typeKey()).get(rule.path().getProperty());
+                ArrayNode ruleArray = propertyRules instanceof ArrayNode array
+                        ? array
+                        : objectNode(contentRules, rule.typeKey()).putArray(rule.path().getProperty());
+                ObjectNode ruleNode = ruleArray.insertObject(Math.min(rule.index(), ruleArray.size()));
+                ObjectNode constraint = ruleNode.putObject("constraint");
+                constraint.put("type", CONSTRAINT_TYPE);
+                ArrayNode ranges = constraint.putArray("ranges");
+                for (DayCalendar.DateRange range : rule.calendar().current().ranges()) {
+                    ranges.addArray().add(range.from().toString()).add(range.to().toString());
+                }
+                ruleNode.putObject("errorCodeControl")
+                        .put("useType", "AS_REPLACEMENT")
+                        .put("code", rule.errorCode());
+            }
+        }
+    }
+
+    private static ObjectNode objectNode(ObjectNode parent, String field) {
+        return parent.get(field) instanceof ObjectNode node ? node : parent.putObject(field);
+    }
+
+}
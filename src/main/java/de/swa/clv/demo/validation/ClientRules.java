@@ -0,0 +1,39 @@
+package de.swa.clv.demo.validation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.swa.clv.ValidationRules;
+
+/**
+ * The validation rules as served to the clients: the serialized CLV rules, taken from the build if possible (see
+ * {@link SerializedRules}), without the {@link ServerOnlyRules} and including the {@link CalendarRules} with the
+ * current days of their calendars.
+ */
+public final class ClientRules {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private ClientRules() {
+        throw new IllegalStateException("Not meant to be instantiated");
+    }
+
+    /**
+     * Like {@code ValidationRules.serializeToJson()}, but the rules as served to the clients.
+     */
+    public static String serializeToJson(ValidationRules<?>... rules) {
+        String json = SerializedRules.serializeToJson(rules);
+        if (!CalendarRules.hasRules(rules) && !ServerOnlyRules.hasRules(rules)) {
+            return json;
+        }
+        try {
+            ObjectNode root = (ObjectNode) OBJECT_MAPPER.readTree(json);
+            ServerOnlyRules.removeFrom(root, rules);
+            CalendarRules.addTo(root, rules);
+            return OBJECT_MAPPER.writeValueAsString(root);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Serialized rules are not valid JSON", e);
+        }
+    }
+
+}
@@ -0,0 +1,263 @@
+package de.swa.clv.demo.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles the serialized constraints of the rules into predicates for the declared type of the property values:
+ * the values of EQUALS constraints are converted into hash sets of that type, regular expressions into patterns, and
+ * so on.
+ * <p>
+ * Only the constraint types and value types that are needed by the rules of this app are supported; anything else is
+ * rejected with an {@link UnsupportedOperationException} so that the rules are validated by the generic validator.
+ */
+final class CompiledConstraints {
+
+    /** A compiled constraint; the VALUE_CHANGED and VALUE_UNCHANGED constraints are compared per property instead. */
+    @FunctionalInterface
+    interface Constraint {
+
+        /**
+         * @param value     a property value, maybe null but never {@link PropertyPath#UNDEFINED}
+         * @param refEntity the entity against which referenced properties are resolved
+         */
+        boolean isMet(Object value, Object refEntity);
+    }
+
+    private CompiledConstraints() {
+        throw new IllegalStateException("Not meant to be instantiated");
+    }
+
+    static boolean isValueComparer(JsonNode constraint) {
+        String type = constraint.path("type").asText();
+        return type.equals("VALUE_CHANGED") || type.equals("VALUE_UNCHANGED");
+    }
+
+    static Constraint compile(JsonNode constraint, Class<?> valueType, Class<?> entityType) {
+        if (constraint.has("refTarget")) {
+            throw new UnsupportedOperationException("refTarget is not supported: " + constraint);
+        }
+        String type = constraint.path("type").asText();
+        Constraint nonNullConstraint = switch (type) {
+            case "EQUALS_NULL" -> (value, refEntity) -> value == null;
+            case "EQUALS_NOT_NULL" -> (value, refEntity) -> value != null;
+            case "EQUALS_ANY" -> equalsAny(convertValues(constraint, valueType));
+            case "EQUALS_NONE" -> negate(equalsAny(convertValues(constraint, valueType)));
+            case "EQUALS_ANY_REF" -> equalsAnyRef(refPaths(constraint, entityType));
+            case "EQUALS_NONE_REF" -> negate(equalsAnyRef(refPaths(constraint, entityType)));
+            case "REGEX_ANY" -> regexAny(constraint, valueType);
+            case "REGEX_NONE" -> negate(regexAny(constraint, valueType));
+            case "SIZE" -> size(constraint, valueType);
+            case "RANGE" -> range(constraint, valueType);
+            case "FUTURE_DAYS" -> days(constraint, valueType, 1);
+            case "PAST_DAYS" -> days(constraint, valueType, -1);
+            case "WEEKDAY_ANY" -> weekdayAny(constraint, valueType);
+            default -> throw new UnsupportedOperationException("Constraint type is not supported: " + type);
+        };
+        if (type.equals("EQUALS_NULL") || type.equals("EQUALS_NOT_NULL")) {
+            return nonNullConstraint;
+        }
+        boolean nullResult = isMetByNull(constraint);
+        return (value, refEntity) -> value == null ? nullResult : nonNullConstraint.isMet(value, refEntity);
+    }
+
+    /**
+     * The result of the constraint for a null value is fixed: by default a null value only meets the NONE constraints.
+     */
+    static boolean isMetByNull(JsonNode constraint) {
+        String type = constraint.path("type").asText();
+        if (type.equals("EQUALS_NULL") || type.equals("EQUALS_NOT_NULL")) {
+            return type.equals("EQUALS_NULL");
+        }
+        JsonNode nullEqualsTo = constraint.get("nullEqualsTo");
+        return type.endsWith("_NONE") || type.equals("EQUALS_NONE_REF")
+                ? nullEqualsTo == null || nullEqualsTo.asBoolean()
+                : nullEqualsTo != null && nullEqualsTo.asBoolean();
+    }
+
+    private static Constraint negate(Constraint constraint) {
+        return (value, refEntity) -> !constraint.isMet(value, refEntity);
+    }
+
+    private static Constraint equalsAny(Set<Object> values) {
+        return (value, refEntity) -> values.contains(value);
+    }
+
+    private static Constraint equalsAnyRef(List<PropertyPath> refPaths) {
+        return (value, refEntity) -> {
+            for (PropertyPath refPath : refPaths) {
+                if (refPath.values(refEntity).contains(value)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private static Constraint regexAny(JsonNode constraint, Class<?> valueType) {
+        requireValueType(constraint, valueType, String.class);
+        List<Pattern> patterns = new ArrayList<>();
+        constraint.path("values").forEach(regex -> patterns.add(Pattern.compile(regex.asText())));
+        return (value, refEntity) -> {
+            for (Pattern pattern : patterns) {
+                if (pattern.matcher((String) value).find()) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private static Constraint size(JsonNode constraint, Class<?> valueType) {
+        int min = constraint.has("min") ? constraint.get("min").intValue() : Integer.MIN_VALUE;
+        int max = constraint.has("max") ? constraint.get("max").intValue() : Integer.MAX_VALUE;
+        if (String.class.equals(valueType)) {
+            return (value, refEntity) -> isBetween(((String) value).length(), min, max);
+        }
+        if (Collection.class.isAssignableFrom(valueType)) {
+            return (value, refEntity) -> isBetween(((Collection<?>) value).size(), min, max);
+        }
+        if (Map.class.isAssignableFrom(valueType)) {
+            return (value, refEntity) -> isBetween(((Map<?, ?>) value).size(), min, max);
+        }
+        throw new UnsupportedOperationException("SIZE is not supported for " + valueType.getName());
+    }
+
+    private static boolean isBetween(int size, int min, int max) {
+        return size >= min && size <= max;
+    }
+
+    private static Constraint range(JsonNode constraint, Class<?> valueType) {
+        if (!Number.class.isAssignableFrom(valueType)) {
+            throw new UnsupportedOperationException("RANGE is not supported for " + valueType.getName());
+        }
+        BigDecimal min = constraint.has("min") ? constraint.get("min").decimalValue() : null;
+        BigDecimal max = constraint.has("max") ? constraint.get("max").decimalValue() : null;
+        boolean integralBounds = (min == null || isIntegral(min)) && (max == null || isIntegral(max));
+        long minLong = min == null ? Long.MIN_VALUE : min.longValue();
+        long maxLong = max == null ? Long.MAX_VALUE : max.longValue();
+        return (value, refEntity) -> {
+            if (integralBounds && isIntegralNumber(value)) {
+                long number = ((Number) value).longValue();
+                return number >= minLong && number <= maxLong;
+            }
+            BigDecimal number = new BigDecimal(value.toString());
+            return (min == null || number.compareTo(min) >= 0) && (max == null || number.compareTo(max) <= 0);
+        };
+    }
+
+    private static boolean isIntegral(BigDecimal decimal) {
+        try {
+            decimal.longValueExact();
+            return true;
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
+    private static boolean isIntegralNumber(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
+
+    // FUTURE_DAYS: today + min <= date <= today + max, PAST_DAYS: today - max <= date <= today - min
+    private static Constraint days(JsonNode constraint, Class<?> valueType, int direction) {
+        requireValueType(constraint, valueType, LocalDate.class);
+        Long min = constraint.has("min") ? constraint.get("min").longValue() : null;
+        Long max = constraint.has("max") ? constraint.get("max").longValue() : null;
+        Long fromDays = direction > 0 ? min : negateOrNull(max);
+        Long toDays = direction > 0 ? max : negateOrNull(min);
+        return (value, refEntity) -> {
+            LocalDate today = LocalDate.now();
+            LocalDate date = (LocalDate) value;
+            return (fromDays == null || !date.isBefore(today.plusDays(fromDays)))
+                    && (toDays == null || !date.isAfter(today.plusDays(toDays)));
+        };
+    }
+
+    private static Long negateOrNull(Long days) {
+        return days == null ? null : -days;
+    }
+
+    private static Constraint weekdayAny(JsonNode constraint, Class<?> valueType) {
+        requireValueType(constraint, valueType, LocalDate.class);
+        Set<DayOfWeek> weekdays = EnumSet.noneOf(DayOfWeek.class);
+        constraint.path("values").forEach(day -> weekdays.add(DayOfWeek.valueOf(day.asText())));
+        return (value, refEntity) -> weekdays.contains(((LocalDate) value).getDayOfWeek());
+    }
+
+    private static List<PropertyPath> refPaths(JsonNode constraint, Class<?> entityType) {
+        List<PropertyPath> refPaths = new ArrayList<>();
+        constraint.path("values").forEach(refProperty -> refPaths.add(PropertyPath.of(entityType,
+                refProperty.asText())));
+        return refPaths;
+    }
+
+    private static Set<Object> convertValues(JsonNode constraint, Class<?> valueType) {
+        Set<Object> values = new HashSet<>();
+        for (JsonNode value : constraint.path("values")) {
+            values.add(convert(value, valueType));
+        }
+        return values;
+    }
+
+    // Converts a serialized value into an instance of the declared type, so that it can be compared with equals()
+    private static Object convert(JsonNode value, Class<?> valueType) {
+        if (value.isNull()) {
+            return null;
+        }
+        try {
+            if (valueType.isEnum() && value.isTextual()) {
+                for (Object constant : valueType.getEnumConstants()) {
+                    if (((Enum<?>) constant).name().equals(value.asText())) {
+                        return constant;
+                    }
+                }
+                throw new UnsupportedOperationException("Unknown enum constant: " + value);
+            }
+            if (valueType == String.class && value.isTextual()) {
+                return value.asText();
+            }
+            if (valueType == Boolean.class && value.isBoolean()) {
+                return value.booleanValue();
+            }
+            if (valueType == LocalDate.class && value.isTextual()) {
+                return LocalDate.parse(value.asText());
+            }
+            if (value.isIntegralNumber()) {
+                if (valueType == Integer.class) {
+                    return Math.toIntExact(value.longValue());
+                }
+                if (valueType == Long.class) {
+                    return value.longValue();
+                }
+                if (valueType == Short.class && value.longValue() == (short) value.longValue()) {
+                    return (short) value.longValue();
+                }
+            }
+        } catch (DateTimeParseException | ArithmeticException e) {
+            throw new UnsupportedOperationException("Value can't be converted to " + valueType.getName(), e);
+        }
+        throw new UnsupportedOperationException("Value " + value + " can't be converted to " + valueType.getName());
+    }
+
+    private static void requireValueType(JsonNode constraint, Class<?> valueType, Class<?> requiredType) {
+        if (!Objects.equals(valueType, requiredType)) {
+            throw new UnsupportedOperationException(constraint.path("type").asText() + " is not supported for "
+                    + valueType.getName());
+        }
+    }
+
+}
@@ -0,0 +1,580 @@
+package de.swa.clv.demo.validation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.swa.clv.UserPermissions;
+import de.swa.clv.ValidationRules;
+import de.swa.clv.demo.model.PermissionSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static de.swa.clv.demo.validation.ValidatorProvider.VALIDATOR;
+
+/**
+ * The validation rules of one type, compiled into a specialized evaluator. The generic {@code Validator} interprets
+ * the rules and resolves the property paths on each call; here all of that is done once: property paths are resolved
+ * into method handles, constraint values are converted into the declared property types, regular expressions are
+ * precompiled and the conditions are built into a tree of predicates.
+ * <p>
+ * The input is the serialized form of the rules, so rules excluded from serialization are not validated (rules that
+ * must not be sent to the clients are registered as {@link ServerOnlyRules} instead). The evaluation follows the
+ * semantics of the CLV reference implementations. The error lists are the same as the ones of the {@code Validator},
+ * including their order (see CompiledValidationRulesTest). Where the {@code Validator} deviates, i.e. for the
+ * aggregate function #distinct, a rule that fails is checked again by the {@code Validator}; it's only called for such
+ * failures, e.g. for duplicate accessory names.
+ * <p>
+ * The compiled rules are registered for the original rules at class-init time of the rules, see
+ * {@link #register(Class, ValidationRules)}. If some rule can't be compiled, nothing is registered and
+ * {@link ValidationRulesCheck} falls back to the {@code Validator}.
+ * <p>
+ * For updates there is also a change-aware mode, see {@link #validateChangedRules(Object, Object, PermissionSet)}:
+ * each rule knows the top-level properties that its outcome depends on (as a bit mask), so that the immutable and
+ * update rules that can't fail for the unchanged properties are not evaluated.
+ */
+public final class CompiledValidationRules<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(CompiledValidationRules.class);
+
+    private static final String SCHEMA_VERSION = "0.12";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Set<String> TIME_RELATIVE_CONSTRAINT_TYPES = Set.of("FUTURE_DAYS", "PAST_DAYS");
+    private static final long ALL_PROPERTIES_CHANGED = -1L;
+
+    // Copy-on-write, registering only happens during class initialization of the rules
+    private static volatile Map<ValidationRules<?>, CompiledValidationRules<?>> registry = new IdentityHashMap<>();
+
+    private final Class<T> type;
+    private final ValidationRules<T> rules;
+    private final Rule[] mandatoryRules;
+    private final Rule[] immutableRules;
+    private final Rule[] contentRules;
+    private final Rule[] updateRules;
+    // The top-level properties the rules depend on, property i is represented by bit i of the dependency masks
+    private final PropertyPath[] dependencyProperties;
+    private final boolean timeRelative;
+
+    private CompiledValidationRules(Class<T> type, ValidationRules<T> rules, Rule[] mandatoryRules,
+            Rule[] immutableRules, Rule[] contentRules, Rule[] updateRules, PropertyPath[] dependencyProperties,
+            boolean timeRelative) {
+        this.type = type;
+        this.rules = rules;
+        this.mandatoryRules = mandatoryRules;
+        this.immutableRules = immutableRules;
+        this.contentRules = contentRules;
+        this.updateRules = updateRules;
+        this.dependencyProperties = dependencyProperties;
+        this.timeRelative = timeRelative;
+    }
+
+    /**
+     * Compiles the rules and registers the result for them. The rules are named after the type for
+     * {@link SerializedRules}.
+     */
+    public static <T> void register(Class<T> type, ValidationRules<T> rules) {
+        SerializedRules.name(rules, type.getSimpleName());
+        CompiledValidationRules<T> compiled;
+        try {
+            compiled = compile(type, rules);
+        } catch (UnsupportedOperationException e) {
+            log.warn("Rules for {} are not compiled, they are validated by the generic validator: {}",
+                    type.getSimpleName(), e.getMessage());
+            return;
+        }
+        synchronized (CompiledValidationRules.class) {
+            Map<ValidationRules<?>, CompiledValidationRules<?>> newRegistry = new IdentityHashMap<>(registry);
+            newRegistry.put(rules, compiled);
+            registry = newRegistry;
+        }
+    }
+
+    /**
+     * @return the compiled rules registered for the given rules, or null if there are none
+     */
+    public static CompiledValidationRules<?> get(ValidationRules<?> rules) {
+        return registry.get(rules);
+    }
+
+    /**
+     * @throws UnsupportedOperationException if any rule uses a feature that is not supported by the compiler
+     */
+    public static <T> CompiledValidationRules<T> compile(Class<T> type, ValidationRules<T> rules) {
+        JsonNode root;
+        try {
+            root = OBJECT_MAPPER.readTree(SerializedRules.serializeToJson(rules));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Serialized rules are not valid JSON", e);
+        }
+        if (root == null || !SCHEMA_VERSION.equals(root.path("schemaVersion").asText())) {
+            throw new UnsupportedOperationException("Serialized rules don't have schema version " + SCHEMA_VERSION);
+        }
+        String typeKey = typeKey(root);
+        Map<String, Integer> propertyBits = new LinkedHashMap<>();
+        Rule[] mandatoryRules = compileRules(RuleType.MANDATORY, root.path("mandatoryRules").path(typeKey), type,
+                typeKey, propertyBits);
+        Rule[] immutableRules = compileRules(RuleType.IMMUTABLE, root.path("immutableRules").path(typeKey), type,
+                typeKey, propertyBits);
+        Rule[] contentRules = compileRules(RuleType.CONTENT, root.path("contentRules").path(typeKey), type, typeKey,
+                propertyBits);
+        Rule[] updateRules = compileRules(RuleType.UPDATE, root.path("updateRules").path(typeKey), type, typeKey,
+                propertyBits);
+        if (propertyBits.size() > Long.SIZE) {
+            throw new UnsupportedOperationException("Rules depend on more than " + Long.SIZE + " properties");
+        }
+        PropertyPath[] dependencyProperties = propertyBits.keySet().stream()
+                .map(property -> PropertyPath.of(type, property))
+                .toArray(PropertyPath[]::new);
+        return new CompiledValidationRules<>(type, rules, mandatoryRules, immutableRules, contentRules, updateRules,
+                dependencyProperties, isTimeRelative(root));
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * @return whether the outcome of some rule depends on the current day, i.e. some rule has a FUTURE_DAYS or
+     * PAST_DAYS constraint
+     */
+    public boolean isTimeRelative() {
+        return timeRelative;
+    }
+
+    /**
+     * @return the values of the top-level properties that the rules depend on: objects with equal values get the same
+     * errors for the same permissions (on the same day if the rules are {@link #isTimeRelative() time relative})
+     */
+    public Object[] dependencyValues(Object object) {
+        Object[] values = new Object[dependencyProperties.length];
+        for (int i = 0; i < dependencyProperties.length; i++) {
+            values[i] = dependencyProperties[i].value(object);
+        }
+        return values;
+    }
+
+    /**
+     * @return the distinct error codes the rules can emit, in the order of the rules
+     */
+    public List<String> getErrorCodes() {
+        return Stream.of(mandatoryRules, immutableRules, contentRules, updateRules)
+                .flatMap(Arrays::stream)
+                .map(Rule::errorCode)
+                .distinct()
+                .toList();
+    }
+
+    public List<String> validateMandatoryRules(Object editedObject, PermissionSet permissions) {
+        return validateMandatoryRules(editedObject, permissions, ALL_PROPERTIES_CHANGED, new ArrayList<>());
+    }
+
+    public List<String> validateContentRules(Object editedObject, PermissionSet permissions) {
+        return validateContentRules(editedObject, permissions, ALL_PROPERTIES_CHANGED, new ArrayList<>());
+    }
+
+    public List<String> validateImmutableRules(Object currentObject, Object editedObject, PermissionSet permissions) {
+        return validateImmutableRules(currentObject, editedObject, permissions, ALL_PROPERTIES_CHANGED,
+                new ArrayList<>());
+    }
+
+    public List<String> validateUpdateRules(Object currentObject, Object editedObject, PermissionSet permissions) {
+        return validateUpdateRules(currentObject, editedObject, permissions, ALL_PROPERTIES_CHANGED,
+                new ArrayList<>());
+    }
+
+    /**
+     * Validates the mandatory, content, immutable and update rules (in that order) for an update, but skips the rules
+     * that can't fail as none of the properties they depend on has changed. The top-level properties of both objects
+     * are compared with {@code equals()}, and only rules whose outcome doesn't depend on the current object being
+     * valid are skipped:
+     * <ul>
+     * <li>Mandatory and content rules are never skipped. The stored object may not pass them, e.g. if it was stored
+     * before the rules changed, or by a user with other permissions or on another day.</li>
+     * <li>An immutable rule only depends on its property: an unchanged value always meets VALUE_UNCHANGED (unless the
+     * property has an index definition, then it is never skipped).</li>
+     * <li>An update rule is skipped only if it can't fail for unchanged properties at all, e.g. if it's conditioned on
+     * VALUE_CHANGED or if each value that meets its condition also meets its constraint, see isReflexive().</li>
+     * </ul>
+     * With that the errors are the same as the ones of the four validate methods for any current object, see
+     * CompiledValidationRulesTest.
+     */
+    public List<String> validateChangedRules(Object currentObject, Object editedObject, PermissionSet permissions) {
+        long changedProperties = changedProperties(currentObject, editedObject);
+        List<String> errors = new ArrayList<>();
+        validateMandatoryRules(editedObject, permissions, changedProperties, errors);
+        validateContentRules(editedObject, permissions, changedProperties, errors);
+        validateImmutableRules(currentObject, editedObject, permissions, changedProperties, errors);
+        validateUpdateRules(currentObject, editedObject, permissions, changedProperties, errors);
+        return errors;
+    }
+
+    /*
+     * The steps of validateChangedRules(), so that they can be timed per rule type: the errors of the rules affected by
+     * the changedProperties() are added to the given list.
+     */
+    public List<String> validateMandatoryRules(Object editedObject, PermissionSet permissions, long changedProperties,
+            List<String> errors) {
+        return validate(RuleType.MANDATORY, mandatoryRules, null, editedObject, permissions, changedProperties,
+                errors);
+    }
+
+    public List<String> validateContentRules(Object editedObject, PermissionSet permissions, long changedProperties,
+            List<String> errors) {
+        return validate(RuleType.CONTENT, contentRules, null, editedObject, permissions, changedProperties, errors);
+    }
+
+    public List<String> validateImmutableRules(Object currentObject, Object editedObject, PermissionSet permissions,
+            long changedProperties, List<String> errors) {
+        return validate(RuleType.IMMUTABLE, immutableRules, currentObject, editedObject, permissions,
+                changedProperties, errors);
+    }
+
+    public List<String> validateUpdateRules(Object currentObject, Object editedObject, PermissionSet permissions,
+            long changedProperties, List<String> errors) {
+        return validate(RuleType.UPDATE, updateRules, currentObject, editedObject, permissions, changedProperties,
+                errors);
+    }
+
+    /**
+     * @return the bit mask of the top-level properties that differ between both objects
+     */
+    public long changedProperties(Object currentObject, Object editedObject) {
+        long changedProperties = 0;
+        for (int i = 0; i < dependencyProperties.length; i++) {
+            if (!Objects.equals(dependencyProperties[i].value(currentObject),
+                    dependencyProperties[i].value(editedObject))) {
+                changedProperties |= 1L << i;
+            }
+        }
+        return changedProperties;
+    }
+
+    // The conditions of immutable and update rules are checked against the current object
+    private List<String> validate(RuleType ruleType, Rule[] rules, Object currentObject, Object editedObject,
+            PermissionSet permissions, long changedProperties, List<String> errors) {
+        boolean update = ruleType == RuleType.IMMUTABLE || ruleType == RuleType.UPDATE;
+        Object conditionEntity = update ? currentObject : editedObject;
+        Object conditionOther = update ? editedObject : null;
+        Object constraintEntity = ruleType == RuleType.IMMUTABLE ? currentObject : editedObject;
+        Object constraintOther = !update ? null : ruleType == RuleType.IMMUTABLE ? editedObject : currentObject;
+        List<String> validatorErrors = null;
+        for (Rule rule : rules) {
+            if ((!rule.skippableIfUnchanged() || (rule.dependencies() & changedProperties) != 0)
+                    && (rule.permissions() == null || rule.permissions().match(permissions))
+                    && (rule.condition() == null || rule.condition().isMet(conditionEntity, conditionOther))
+                    && !rule.constraint().isMet(constraintEntity, constraintOther)) {
+                if (rule.checkedByValidator()) {
+                    if (validatorErrors == null) {
+                        validatorErrors = validatorErrors(ruleType, currentObject, editedObject, permissions);
+                    }
+                    if (!validatorErrors.contains(rule.errorCode())) {
+                        continue;
+                    }
+                }
+                errors.add(rule.errorCode());
+            }
+        }
+        return errors;
+    }
+
+    private List<String> validatorErrors(RuleType ruleType, Object currentObject, Object editedObject,
+            PermissionSet permissions) {
+        UserPermissions userPermissions = permissions.toUserPermissions();
+        return switch (ruleType) {
+            case MANDATORY -> VALIDATOR.validateMandatoryRules(editedObject, userPermissions, rules);
+            case CONTENT -> VALIDATOR.validateContentRules(editedObject, userPermissions, rules);
+            case IMMUTABLE -> VALIDATOR.validateImmutableRules(currentObject, editedObject, userPermissions, rules);
+            case UPDATE -> VALIDATOR.validateUpdateRules(currentObject, editedObject, userPermissions, rules);
+        };
+    }
+
+    private static String typeKey(JsonNode root) {
+        Set<String> typeKeys = new TreeSet<>();
+        for (String rulesKey : List.of("mandatoryRules", "immutableRules", "contentRules", "updateRules")) {
+            root.path(rulesKey).fieldNames().forEachRemaining(typeKeys::add);
+        }
+        if (typeKeys.size() > 1) {
+            throw new UnsupportedOperationException("Rules of more than one type: " + typeKeys);
+        }
+        return typeKeys.isEmpty() ? "" : typeKeys.iterator().next();
+    }
+
+    private enum RuleType {
+        MANDATORY(VALIDATOR.getDefaultMandatoryMessagePrefix()),
+        IMMUTABLE(VALIDATOR.getDefaultImmutableMessagePrefix()),
+        CONTENT(VALIDATOR.getDefaultContentMessagePrefix()),
+        UPDATE(VALIDATOR.getDefaultUpdateMessagePrefix());
+
+        private final String messagePrefix;
+
+        RuleType(String messagePrefix) {
+            this.messagePrefix = messagePrefix;
+        }
+    }
+
+    /**
+     * @return the error code of the serialized rule, i.e. the default error code with the errorCodeControl of the rule
+     * applied
+     */
+    static String errorCode(String defaultErrorCode, JsonNode rule) {
+        JsonNode errorCodeControl = rule.get("errorCodeControl");
+        if (errorCodeControl == null) {
+            return defaultErrorCode;
+        }
+        String code = errorCodeControl.path("code").asText();
+        return "AS_SUFFIX".equals(errorCodeControl.path("useType").asText()) ? defaultErrorCode + code : code;
+    }
+
+    private static Rule[] compileRules(RuleType ruleType, JsonNode typeRules, Class<?> type, String typeKey,
+            Map<String, Integer> propertyBits) {
+        List<Rule> rules = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> properties = typeRules.fields();
+        while (properties.hasNext()) {
+            Map.Entry<String, JsonNode> propertyRules = properties.next();
+            PropertyPath path = PropertyPath.of(type, propertyRules.getKey());
+            if (propertyRules.getValue().isEmpty()) {
+                // a rule without constraint, conditions and permissions
+                rules.add(compileRule(ruleType, OBJECT_MAPPER.createObjectNode(), path, type, typeKey,
+                        propertyBits));
+            }
+            for (JsonNode rule : propertyRules.getValue()) {
+                rules.add(compileRule(ruleType, rule, path, type, typeKey, propertyBits));
+            }
+        }
+        return rules.toArray(new Rule[0]);
+    }
+
+    private static Rule compileRule(RuleType ruleType, JsonNode rule, PropertyPath path, Class<?> type,
+            String typeKey, Map<String, Integer> propertyBits) {
+        Check constraint = switch (ruleType) {
+            case MANDATORY -> compileCheck(path, OBJECT_MAPPER.createObjectNode().put("type", "EQUALS_NOT_NULL"), type);
+            case IMMUTABLE -> compileCheck(path, OBJECT_MAPPER.createObjectNode().put("type", "VALUE_UNCHANGED"), type);
+            case CONTENT, UPDATE -> compileCheck(path, rule.path("constraint"), type);
+        };
+        String constraintTypePart = ruleType == RuleType.CONTENT || ruleType == RuleType.UPDATE
+                ? rule.path("constraint").path("type").asText().toLowerCase(Locale.ROOT) + "."
+                : "";
+        String errorCode = errorCode(ruleType.messagePrefix + constraintTypePart + typeKey + "." + path.getProperty(),
+                rule);
+        long dependencies = ruleType == RuleType.IMMUTABLE
+                ? propertyBit(path.getProperty(), propertyBits)
+                : propertyBit(path.getProperty(), propertyBits) | dependencies(rule, propertyBits);
+        boolean skippableIfUnchanged = switch (ruleType) {
+            case MANDATORY, CONTENT -> false;
+            case IMMUTABLE -> !path.isIndexed();
+            case UPDATE -> isReflexive(rule, path.getProperty());
+        };
+        return new Rule(compilePermissions(rule.get("permissions")), compileConditions(rule, type), constraint,
+                errorCode, dependencies, skippableIfUnchanged, path.isDistinct());
+    }
+
+    private static long propertyBit(String property, Map<String, Integer> propertyBits) {
+        int bit = propertyBits.computeIfAbsent(PropertyPath.topLevelProperty(property), key -> propertyBits.size());
+        // more than 64 properties are rejected after compiling all rules
+        return bit < Long.SIZE ? 1L << bit : 0;
+    }
+
+    // The bits of all condition properties and referenced properties anywhere in the (serialized) rule
+    private static long dependencies(JsonNode node, Map<String, Integer> propertyBits) {
+        long dependencies = 0;
+        if (node.has("property")) {
+            dependencies |= propertyBit(node.get("property").asText(), propertyBits);
+        }
+        if (node.path("type").asText().endsWith("_REF")) {
+            for (JsonNode refProperty : node.path("values")) {
+                dependencies |= propertyBit(refProperty.asText(), propertyBits);
+            }
+        }
+        for (JsonNode child : node) {
+            dependencies |= dependencies(child, propertyBits);
+        }
+        return dependencies;
+    }
+
+    private static boolean isTimeRelative(JsonNode node) {
+        if (TIME_RELATIVE_CONSTRAINT_TYPES.contains(node.path("type").asText())) {
+            return true;
+        }
+        for (JsonNode child : node) {
+            if (isTimeRelative(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * An update rule is reflexive if it can't fail when its properties are unchanged: if its condition is
+     * VALUE_CHANGED, or if the condition is on the same property and each value that meets the condition also meets
+     * the constraint. The latter is only detected for the same constraint and for EQUALS_ANY conditions with
+     * EQUALS_ANY/EQUALS_NONE constraints. Permissions don't matter here, they only restrict when the rule is evaluated.
+     */
+    private static boolean isReflexive(JsonNode rule, String property) {
+        JsonNode condition = rule.get("condition");
+        if (condition == null) {
+            return false;
+        }
+        JsonNode conditionConstraint = condition.path("constraint");
+        String conditionType = conditionConstraint.path("type").asText();
+        if (conditionType.equals("VALUE_CHANGED")) {
+            return true;
+        }
+        if (!condition.path("property").asText().equals(property)) {
+            return false;
+        }
+        JsonNode constraint = rule.path("constraint");
+        if (conditionConstraint.equals(constraint)) {
+            return true;
+        }
+        String constraintType = constraint.path("type").asText();
+        if (!conditionType.equals("EQUALS_ANY")
+                || !(constraintType.equals("EQUALS_ANY") || constraintType.equals("EQUALS_NONE"))) {
+            return false;
+        }
+        if (CompiledConstraints.isMetByNull(conditionConstraint) && !CompiledConstraints.isMetByNull(constraint)) {
+            return false;
+        }
+        Set<JsonNode> conditionValues = new HashSet<>();
+        conditionConstraint.path("values").forEach(conditionValues::add);
+        Set<JsonNode> constraintValues = new HashSet<>();
+        constraint.path("values").forEach(constraintValues::add);
+        if (constraintType.equals("EQUALS_ANY")) {
+            return constraintValues.containsAll(conditionValues);
+        }
+        // Only for textual values, JSON numbers of different types might still be converted into equal values
+        return conditionValues.stream().allMatch(JsonNode::isTextual)
+                && Collections.disjoint(conditionValues, constraintValues);
+    }
+
+    private static Permissions compilePermissions(JsonNode permissions) {
+        if (permissions == null) {
+            return null;
+        }
+        // Values that are not a Permission are ignored, no user can have them
+        long mask = 0;
+        for (JsonNode value : permissions.path("values")) {
+            mask |= PermissionSet.bitOf(value.asText());
+        }
+        return switch (permissions.path("type").asText()) {
+            case "ANY" -> new Permissions(true, mask);
+            case "NONE" -> new Permissions(false, mask);
+            default -> throw new UnsupportedOperationException("Permissions type is not supported: " + permissions);
+        };
+    }
+
+    // Like the reference implementations: 'condition' takes precedence over 'conditionsGroup' over 'conditionsTopGroup'
+    private static Check compileConditions(JsonNode rule, Class<?> type) {
+        if (rule.has("condition")) {
+            return compileCondition(rule.get("condition"), type);
+        }
+        if (rule.has("conditionsGroup")) {
+            return compileGroup(rule.get("conditionsGroup"), "conditions", condition -> compileCondition(condition,
+                    type));
+        }
+        if (rule.has("conditionsTopGroup")) {
+            return compileGroup(rule.get("conditionsTopGroup"), "conditionsGroups", group -> compileGroup(group,
+                    "conditions", condition -> compileCondition(condition, type)));
+        }
+        return null;
+    }
+
+    private static Check compileGroup(JsonNode group, String membersKey,
+            Function<JsonNode, Check> memberCompiler) {
+        List<Check> members = new ArrayList<>();
+        group.path(membersKey).forEach(member -> members.add(memberCompiler.apply(member)));
+        Check[] checks = members.toArray(new Check[0]);
+        return switch (group.path("operator").asText()) {
+            case "AND" -> (thisEntity, thatEntity) -> {
+                for (Check check : checks) {
+                    if (!check.isMet(thisEntity, thatEntity)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+            case "OR" -> (thisEntity, thatEntity) -> {
+                for (Check check : checks) {
+                    if (check.isMet(thisEntity, thatEntity)) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+            default -> throw new UnsupportedOperationException("Unknown group operator: " + group);
+        };
+    }
+
+    private static Check compileCondition(JsonNode condition, Class<?> type) {
+        return compileCheck(PropertyPath.of(type, condition.path("property").asText()), condition.path("constraint"),
+                type);
+    }
+
+    /*
+     * For a value comparer the values of this and that entity are compared pairwise, otherwise each value of this
+     * entity must meet the constraint.
+     */
+    private static Check compileCheck(PropertyPath path, JsonNode constraint, Class<?> type) {
+        if (CompiledConstraints.isValueComparer(constraint)) {
+            boolean changed = constraint.path("type").asText().equals("VALUE_CHANGED");
+            return (thisEntity, thatEntity) -> valuesCompare(path.values(thisEntity), path.values(thatEntity),
+                    changed);
+        }
+        CompiledConstraints.Constraint compiled = CompiledConstraints.compile(constraint, path.getValueType(), type);
+        return (thisEntity, thatEntity) -> path.allValuesMatch(thisEntity,
+                value -> value != PropertyPath.UNDEFINED && compiled.isMet(value, thisEntity));
+    }
+
+    private static boolean valuesCompare(List<Object> thisValues, List<Object> thatValues, boolean changed) {
+        if (thisValues.size() != thatValues.size()) {
+            return changed;
+        }
+        for (int i = 0; i < thisValues.size(); i++) {
+            Object thisValue = thisValues.get(i);
+            Object thatValue = thatValues.get(i);
+            if (thisValue == PropertyPath.UNDEFINED || thatValue == PropertyPath.UNDEFINED
+                    || Objects.equals(thisValue, thatValue) == changed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @FunctionalInterface
+    private interface Check {
+
+        boolean isMet(Object thisEntity, Object thatEntity);
+    }
+
+    private record Permissions(boolean any, long mask) {
+
+        boolean match(PermissionSet userPermissions) {
+            return userPermissions.containsAny(mask) == any;
+        }
+    }
+
+    /**
+     * @param dependencies         the bits of the top-level properties that the outcome of the rule depends on
+     * @param skippableIfUnchanged whether the rule can be skipped if none of these properties has changed
+     * @param checkedByValidator   whether the {@code Validator} decides if the rule fails when the compiled constraint
+     *                             is not met
+     */
+    private record Rule(Permissions permissions, Check condition, Check constraint, String errorCode,
+            long dependencies, boolean skippableIfUnchanged, boolean checkedByValidator) {
+    }
+
+}
@@ -0,0 +1,97 @@
+package de.swa.clv.demo.validation;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An immutable set of days as bitset: bit i stands for the day {@code firstEpochDay + i}. A lookup is one array
+ * access, and the days of a year take at most six longs.
+ * <p>
+ * Calendars with the same days are equal, regardless of how they were built.
+ */
+public final class DayCalendar {
+
+    public static final DayCalendar EMPTY = new DayCalendar(0, new long[0]);
+
+    // Guards against a typo in a year turning into a huge bitset
+    private static final int MAX_SPAN_DAYS = 100 * 366;
+
+    private final long firstEpochDay;
+    private final long[] words;
+
+    /**
+     * Consecutive days, both inclusive.
+     */
+    public record DateRange(LocalDate from, LocalDate to) {
+    }
+
+    private DayCalendar(long firstEpochDay, long[] words) {
+        this.firstEpochDay = firstEpochDay;
+        this.words = words;
+    }
+
+    public static DayCalendar of(Collection<LocalDate> days) {
+        if (days.isEmpty()) {
+            return EMPTY;
+        }
+        long firstEpochDay = days.stream().mapToLong(LocalDate::toEpochDay).min().orElseThrow();
+        BitSet bits = new BitSet();
+        for (LocalDate day : days) {
+            long offset = day.toEpochDay() - firstEpochDay;
+            if (offset >= MAX_SPAN_DAYS) {
+                throw new IllegalArgumentException("Days span more than " + MAX_SPAN_DAYS + " days: " + day);
+            }
+            bits.set((int) offset);
+        }
+        return new DayCalendar(firstEpochDay, bits.toLongArray());
+    }
+
+    public boolean contains(LocalDate day) {
+        long offset = day.toEpochDay() - firstEpochDay;
+        if (offset < 0 || offset >= (long) words.length * Long.SIZE) {
+            return false;
+        }
+        return (words[(int) (offset >>> 6)] & (1L << offset)) != 0;
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    /**
+     * @return the days as ascending, disjoint ranges of consecutive days
+     */
+    public List<DateRange> ranges() {
+        BitSet bits = BitSet.valueOf(words);
+        List<DateRange> ranges = new ArrayList<>();
+        for (int from = bits.nextSetBit(0); from >= 0; from = bits.nextSetBit(from)) {
+            int to = bits.nextClearBit(from);
+            ranges.add(new DateRange(LocalDate.ofEpochDay(firstEpochDay + from),
+                    LocalDate.ofEpochDay(firstEpochDay + to - 1)));
+            from = to;
+        }
+        return ranges;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof DayCalendar calendar
+                && (isEmpty() ? calendar.isEmpty() : firstEpochDay == calendar.firstEpochDay)
+                && Arrays.equals(words, calendar.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return isEmpty() ? 0 : 31 * Long.hashCode(firstEpochDay) + Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        return ranges().toString();
+    }
+
+}
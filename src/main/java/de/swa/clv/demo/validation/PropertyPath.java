@@ -0,0 +1,365 @@
+package de.swa.clv.demo.validation;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * A rule property like "name", "category.subCategories[*]" or "accessories[0/1].amount#sum", resolved once against the
+ * declared types. Each path segment is read with a method handle of the getter (or record accessor), so no reflection
+ * is done during validation.
+ * <p>
+ * The semantics follow the CLV reference implementations: an index definition selects several values, a start/step
+ * definition over a null collection selects no value at all, and an index that is out of bounds selects the
+ * {@link #UNDEFINED} value.
+ */
+final class PropertyPath {
+
+    /** The value of an indexed property whose index is out of bounds; it never meets any constraint. */
+    static final Object UNDEFINED = new Object() {
+        @Override
+        public String toString() {
+            return "undefined";
+        }
+    };
+
+    private static final Pattern INDEX_PARTS = Pattern.compile("^(.+)\\[(\\d+(,\\d+)*|\\d+/\\d+|\\d+-\\d+|\\*)]$");
+
+    private static final Map<Class<?>, Class<?>> PRIMITIVE_WRAPPERS = Map.of(boolean.class, Boolean.class,
+            byte.class, Byte.class, short.class, Short.class, char.class, Character.class, int.class, Integer.class,
+            long.class, Long.class, float.class, Float.class, double.class, Double.class);
+
+    private enum Aggregate { NONE, SUM, DISTINCT }
+
+    private final String property;
+    private final Segment[] segments;
+    // number of values that a null (or undefined) value at segment i expands to, see emptyValues()
+    private final int[] fanOut;
+    private final boolean indexed;
+    private final Aggregate aggregate;
+    private final Class<?> valueType;
+
+    private PropertyPath(String property, Segment[] segments, Aggregate aggregate, Class<?> leafType) {
+        this.property = property;
+        this.segments = segments;
+        this.aggregate = aggregate;
+        this.fanOut = new int[segments.length + 1];
+        fanOut[segments.length] = 1;
+        boolean anyIndex = false;
+        for (int i = segments.length - 1; i >= 0; i--) {
+            Index index = segments[i].index();
+            fanOut[i] = index == null ? fanOut[i + 1] : index.nullFanOut() * fanOut[i + 1];
+            anyIndex |= index != null;
+        }
+        this.indexed = anyIndex;
+        this.valueType = switch (aggregate) {
+            case NONE -> leafType;
+            case SUM -> Number.class;
+            case DISTINCT -> Boolean.class;
+        };
+    }
+
+    /**
+     * Resolves the property against the given type.
+     *
+     * @throws UnsupportedOperationException if a segment has no public getter or if the element type of an indexed
+     *                                       segment can't be determined
+     */
+    static PropertyPath of(Class<?> type, String property) {
+        String[] aggregateSplit = property.split("#", -1);
+        Aggregate aggregate = Aggregate.NONE;
+        if (aggregateSplit.length == 2) {
+            aggregate = switch (aggregateSplit[1]) {
+                case "sum" -> Aggregate.SUM;
+                case "distinct" -> Aggregate.DISTINCT;
+                default -> throw new UnsupportedOperationException("Unknown aggregate function: " + property);
+            };
+        } else if (aggregateSplit.length > 2) {
+            throw new UnsupportedOperationException("More than one aggregate function: " + property);
+        }
+        String[] parts = aggregateSplit[0].split("\\.");
+        Segment[] segments = new Segment[parts.length];
+        Type currentType = type;
+        for (int i = 0; i < parts.length; i++) {
+            String name = parts[i];
+            Index index = null;
+            Matcher indexParts = INDEX_PARTS.matcher(parts[i]);
+            if (indexParts.matches()) {
+                name = indexParts.group(1);
+                index = Index.parse(indexParts.group(2));
+            } else if (parts[i].contains("[")) {
+                throw new UnsupportedOperationException("Not a valid indexed property: " + property);
+            }
+            Method getter = findGetter(rawType(currentType), name, property);
+            currentType = getter.getGenericReturnType();
+            if (index != null) {
+                currentType = elementType(currentType, property);
+            }
+            segments[i] = new Segment(toHandle(getter), index);
+        }
+        if (aggregate != Aggregate.NONE && !anyIndex(segments)) {
+            throw new UnsupportedOperationException("Aggregate function without index definition: " + property);
+        }
+        return new PropertyPath(property, segments, aggregate, boxed(rawType(currentType)));
+    }
+
+    String getProperty() {
+        return property;
+    }
+
+    /** The name of the first segment, e.g. "category" for "category.subCategories[*]". */
+    static String topLevelProperty(String property) {
+        return property.split("[.#\\[]", 2)[0];
+    }
+
+    /** Whether the property has an index definition, i.e. whether it may have several or {@link #UNDEFINED} values. */
+    boolean isIndexed() {
+        return indexed;
+    }
+
+    /** Whether the property has the aggregate function #distinct. */
+    boolean isDistinct() {
+        return aggregate == Aggregate.DISTINCT;
+    }
+
+    /** The (boxed) declared type of the values, i.e. {@code Number} for #sum and {@code Boolean} for #distinct. */
+    Class<?> getValueType() {
+        return valueType;
+    }
+
+    /**
+     * Tests the predicate against all values of the property until it fails. Properties without index definition
+     * have exactly one value, so the predicate is called once.
+     */
+    boolean allValuesMatch(Object entity, Predicate<Object> predicate) {
+        if (!indexed) {
+            return predicate.test(readSingle(entity));
+        }
+        if (aggregate != Aggregate.NONE) {
+            return predicate.test(aggregate(entity));
+        }
+        return forEachValue(entity, 0, predicate);
+    }
+
+    /** The value of a property without index definition. */
+    Object value(Object entity) {
+        if (indexed) {
+            throw new IllegalStateException("Property has an index definition: " + property);
+        }
+        return readSingle(entity);
+    }
+
+    /** All values of the property, in index order. */
+    List<Object> values(Object entity) {
+        if (!indexed) {
+            return Collections.singletonList(readSingle(entity));
+        }
+        if (aggregate != Aggregate.NONE) {
+            return Collections.singletonList(aggregate(entity));
+        }
+        return collect(entity);
+    }
+
+    private List<Object> collect(Object entity) {
+        List<Object> values = new ArrayList<>();
+        forEachValue(entity, 0, values::add);
+        return values;
+    }
+
+    private Object readSingle(Object entity) {
+        Object value = entity;
+        for (Segment segment : segments) {
+            if (value == null) {
+                return null;
+            }
+            value = segment.read(value);
+        }
+        return value;
+    }
+
+    private boolean forEachValue(Object value, int segmentIndex, Predicate<Object> action) {
+        if (value == null || value == UNDEFINED) {
+            return emptyValues(value, segmentIndex, action);
+        }
+        if (segmentIndex == segments.length) {
+            return action.test(value);
+        }
+        Segment segment = segments[segmentIndex];
+        Object next = segment.read(value);
+        Index index = segment.index();
+        if (index == null) {
+            return forEachValue(next, segmentIndex + 1, action);
+        }
+        if (next == null) {
+            return emptyValues(null, segmentIndex, action);
+        }
+        if (!(next instanceof List<?> list)) {
+            return index.isStartStep() || emptyValues(UNDEFINED, segmentIndex, action);
+        }
+        if (index.isStartStep()) {
+            for (int i = index.start(); i < list.size(); i += index.step()) {
+                if (!forEachValue(list.get(i), segmentIndex + 1, action)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (int i : index.fixed()) {
+            Object element = i < list.size() ? list.get(i) : UNDEFINED;
+            if (!forEachValue(element, segmentIndex + 1, action)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A null resp. undefined value is passed on for each fixed index of the remaining segments, but a start/step
+    // definition selects no value at all
+    private boolean emptyValues(Object value, int segmentIndex, Predicate<Object> action) {
+        for (int i = 0; i < fanOut[segmentIndex]; i++) {
+            if (!action.test(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Object aggregate(Object entity) {
+        List<Object> values = collect(entity);
+        if (aggregate == Aggregate.DISTINCT) {
+            return new HashSet<>(values).size() == values.size();
+        }
+        long longSum = 0;
+        BigDecimal decimalSum = null;
+        for (Object value : values) {
+            if (value == UNDEFINED) {
+                return UNDEFINED;
+            }
+            if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                longSum = Math.addExact(longSum, ((Number) value).longValue());
+            } else if (value instanceof Number number) {
+                BigDecimal decimal = new BigDecimal(number.toString());
+                decimalSum = decimalSum == null ? decimal : decimalSum.add(decimal);
+            }
+        }
+        return decimalSum == null ? Long.valueOf(longSum) : decimalSum.add(BigDecimal.valueOf(longSum));
+    }
+
+    private static boolean anyIndex(Segment[] segments) {
+        for (Segment segment : segments) {
+            if (segment.index() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Method findGetter(Class<?> type, String name, String property) {
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (String methodName : List.of("get" + capitalized, "is" + capitalized, name)) {
+            try {
+                Method method = type.getMethod(methodName);
+                if (method.getReturnType() != void.class) {
+                    return method;
+                }
+            } catch (NoSuchMethodException e) {
+                // try next naming convention
+            }
+        }
+        throw new UnsupportedOperationException("No getter for '" + name + "' of property '" + property + "' in "
+                + type.getName());
+    }
+
+    private static MethodHandle toHandle(Method getter) {
+        try {
+            return MethodHandles.publicLookup().unreflect(getter)
+                    .asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new UnsupportedOperationException("Getter not accessible: " + getter, e);
+        }
+    }
+
+    private static Type elementType(Type type, String property) {
+        if (type instanceof ParameterizedType parameterized
+                && List.class.isAssignableFrom(rawType(parameterized.getRawType()))) {
+            return parameterized.getActualTypeArguments()[0];
+        }
+        throw new UnsupportedOperationException("Indexed segment is not a List: " + property);
+    }
+
+    private static Class<?> rawType(Type type) {
+        if (type instanceof Class<?> clazz) {
+            return clazz;
+        }
+        if (type instanceof ParameterizedType parameterized) {
+            return rawType(parameterized.getRawType());
+        }
+        return Object.class;
+    }
+
+    static Class<?> boxed(Class<?> type) {
+        return PRIMITIVE_WRAPPERS.getOrDefault(type, type);
+    }
+
+    private record Segment(MethodHandle getter, Index index) {
+
+        Object read(Object target) {
+            try {
+                return (Object) getter.invokeExact(target);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    // Either a start/step definition (incl. [*]) or a fixed list of indices (from "0,2" or "1-3")
+    private record Index(int start, int step, int[] fixed) {
+
+        static Index parse(String definition) {
+            if (definition.equals("*")) {
+                return new Index(0, 1, null);
+            }
+            if (definition.contains("/")) {
+                String[] startStep = definition.split("/");
+                int step = Integer.parseInt(startStep[1]);
+                if (step < 1) {
+                    throw new UnsupportedOperationException("Step must be positive: " + definition);
+                }
+                return new Index(Integer.parseInt(startStep[0]), step, null);
+            }
+            if (definition.contains("-")) {
+                String[] interval = definition.split("-");
+                int from = Integer.parseInt(interval[0]);
+                int to = Integer.parseInt(interval[1]);
+                return new Index(0, 0, IntStream.rangeClosed(from, to).toArray());
+            }
+            return new Index(0, 0, Arrays.stream(definition.split(",")).mapToInt(Integer::parseInt)
+                    .toArray());
+        }
+
+        boolean isStartStep() {
+            return fixed == null;
+        }
+
+        int nullFanOut() {
+            return isStartStep() ? 0 : fixed.length;
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+package de.swa.clv.demo.validation;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * A {@link DayCalendar} that depends on the current day, e.g. the upcoming company vacation days. It is computed
+ * again on the first access after the day has changed and swapped atomically, so readers always get a complete
+ * calendar, without locking and without a restart.
+ * <p>
+ * If the new calendar has the same days as the previous one, the previous instance is kept, i.e. the instance only
+ * changes when the days do, and so does the {@link #generation()}.
+ */
+public final class RollingCalendar {
+
+    private record State(LocalDate day, DayCalendar calendar, long generation) {
+    }
+
+    private final Clock clock;
+    private final Function<LocalDate, DayCalendar> calendarOfDay;
+    private final AtomicReference<State> state;
+
+    /**
+     * @param calendarOfDay computes the calendar that is valid on the given day
+     */
+    public RollingCalendar(Function<LocalDate, DayCalendar> calendarOfDay) {
+        this(Clock.systemDefaultZone(), calendarOfDay);
+    }
+
+    public RollingCalendar(Clock clock, Function<LocalDate, DayCalendar> calendarOfDay) {
+        this.clock = clock;
+        this.calendarOfDay = calendarOfDay;
+        LocalDate today = LocalDate.now(clock);
+        this.state = new AtomicReference<>(new State(today, calendarOfDay.apply(today), 0));
+    }
+
+    public DayCalendar current() {
+        LocalDate today = LocalDate.now(clock);
+        State current = state.get();
+        while (!current.day().equals(today)) {
+            DayCalendar calendar = calendarOfDay.apply(today);
+            State next = calendar.equals(current.calendar())
+                    ? new State(today, current.calendar(), current.generation())
+                    : new State(today, calendar, current.generation() + 1);
+            if (state.compareAndSet(current, next)) {
+                return next.calendar();
+            }
+            // Another thread has rolled over meanwhile
+            current = state.get();
+        }
+        return current.calendar();
+    }
+
+    /**
+     * @return the number of times the days of the current calendar have changed, so a derived value, e.g. the
+     * serialized rules, is only outdated if this has changed
+     */
+    public long generation() {
+        current();
+        return state.get().generation();
+    }
+
+    public boolean contains(LocalDate day) {
+        return current().contains(day);
+    }
+
+}
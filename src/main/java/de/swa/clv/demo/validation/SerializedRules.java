@@ -0,0 +1,181 @@
+package de.swa.clv.demo.validation;
+
+import de.swa.clv.ValidationRules;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.StringJoiner;
+
+/**
+ * The serialized rules, i.e. {@code ValidationRules.serializeToJson()}, as generated by the build (see
+ * {@link SerializedRulesGenerator}), so that neither the compiled rules nor the served rules serialize them again at
+ * startup. The resources are looked up by the names of the rules, which {@link CompiledValidationRules#register} sets
+ * to the simple name of their type; rules without a name are always serialized.
+ * <p>
+ * The resources are only used if the class files they were generated from are unchanged: the ones of the packages of
+ * the rule classes, e.g. of the enums whose values the rules refer to, and the ones of the CLV library (see
+ * {@link SerializedRulesGenerator}). Otherwise, e.g. after Article has been recompiled by an IDE without the build
+ * step, all rules are serialized like without the resources. To compare the startup with and without the resources,
+ * they can be ignored with the system property {@code clv.demo.serialized-rules=false}.
+ */
+public final class SerializedRules {
+
+    static final String DIRECTORY = "clv-rules/";
+    static final String INDEX = DIRECTORY + "index.properties";
+    static final String ENABLED_PROPERTY = "clv.demo.serialized-rules";
+
+    private static final Logger log = LoggerFactory.getLogger(SerializedRules.class);
+
+    // Copy-on-write, naming only happens during class initialization of the rules
+    private static volatile Map<ValidationRules<?>, String> names = new IdentityHashMap<>();
+    // The rules serialized by the build step, by name; null if not run by the build step
+    private static Map<String, String> recorded;
+
+    // Checked on first use, i.e. during the class initialization of the first rules
+    private static final class Resources {
+        static final boolean UP_TO_DATE = isUpToDate();
+    }
+
+    private SerializedRules() {
+        throw new IllegalStateException("Not meant to be instantiated");
+    }
+
+    /**
+     * Sets the name of the rules, which is the file name of their serialized form.
+     */
+    public static synchronized void name(ValidationRules<?> rules, String name) {
+        Map<ValidationRules<?>, String> newNames = new IdentityHashMap<>(names);
+        newNames.put(rules, name);
+        names = newNames;
+    }
+
+    /**
+     * Like {@code ValidationRules.serializeToJson(rules)}, but taken from the resource generated by the build if the
+     * rules are named and the resource is up-to-date.
+     */
+    public static String serializeToJson(ValidationRules<?>... rules) {
+        String name = nameOf(rules);
+        if (name != null && recorded == null && Resources.UP_TO_DATE) {
+            String json = readResource(DIRECTORY + name + ".json");
+            if (json != null) {
+                return json;
+            }
+        }
+        String json = rules.length == 1 ? rules[0].serializeToJson() : ValidationRules.serializeToJson(rules);
+        if (name != null && recorded != null) {
+            recorded.put(name, json);
+        }
+        return json;
+    }
+
+    // The names of the rules joined by '+', null if any of the rules has no name
+    private static String nameOf(ValidationRules<?>... rules) {
+        StringJoiner name = new StringJoiner("+");
+        for (ValidationRules<?> typeRules : rules) {
+            String typeName = names.get(typeRules);
+            if (typeName == null) {
+                return null;
+            }
+            name.add(typeName);
+        }
+        return name.toString();
+    }
+
+    /**
+     * Records the rules serialized from now on instead of reading the resources, to be written by
+     * {@link #writeRecorded}. Must be called before the rules are defined.
+     */
+    static void startRecording() {
+        recorded = new LinkedHashMap<>();
+    }
+
+    /**
+     * Writes the recorded rules and the fingerprint of the given classes to the classes directory.
+     */
+    static void writeRecorded(Path classesDirectory, List<String> classNames) throws IOException {
+        Path directory = classesDirectory.resolve(DIRECTORY);
+        Files.createDirectories(directory);
+        for (Map.Entry<String, String> entry : recorded.entrySet()) {
+            Files.writeString(directory.resolve(entry.getKey() + ".json"), entry.getValue());
+        }
+        String[] names = classNames.toArray(String[]::new);
+        // No Properties.store(), its date comment would make the build output differ on each build
+        Files.writeString(classesDirectory.resolve(INDEX), "classes=" + String.join(",", names) + "\n"
+                + "fingerprint=" + fingerprint(names) + "\n");
+    }
+
+    private static boolean isUpToDate() {
+        if (!Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"))) {
+            log.info("Serialized rules are disabled by {}, the rules are serialized at startup", ENABLED_PROPERTY);
+            return false;
+        }
+        long start = System.nanoTime();
+        Properties index = new Properties();
+        try (InputStream in = SerializedRules.class.getClassLoader().getResourceAsStream(INDEX)) {
+            if (in == null) {
+                // e.g. run from an IDE without the Maven build
+                log.debug("No serialized rules in the class path, the rules are serialized at startup");
+                return false;
+            }
+            index.load(in);
+        } catch (IOException e) {
+            log.warn("Serialized rules are not readable, the rules are serialized at startup", e);
+            return false;
+        }
+        String[] classNames = index.getProperty("classes", "").split(",");
+        if (!fingerprint(classNames).equals(index.getProperty("fingerprint"))) {
+            log.info("Serialized rules are outdated, the rules are serialized at startup");
+            return false;
+        }
+        log.info("Serialized rules are up-to-date, fingerprint of {} classes checked in {} ms", classNames.length,
+                (System.nanoTime() - start) / 1_000_000);
+        return true;
+    }
+
+    /**
+     * @return the SHA-256 of the class files of the given classes as hex string, empty if a class file is missing
+     */
+    static String fingerprint(String... classNames) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is supported by every JVM", e);
+        }
+        for (String className : classNames) {
+            try (InputStream in = SerializedRules.class.getClassLoader()
+                    .getResourceAsStream(className.replace('.', '/') + ".class")) {
+                if (in == null) {
+                    return "";
+                }
+                digest.update(in.readAllBytes());
+            } catch (IOException e) {
+                return "";
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String readResource(String resource) {
+        try (InputStream in = SerializedRules.class.getClassLoader().getResourceAsStream(resource)) {
+            return in == null ? null : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.warn("Serialized rules {} are not readable, the rules are serialized", resource, e);
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package de.swa.clv.demo.validation;
+
+import de.swa.clv.ValidationRules;
+import de.swa.clv.demo.model.AccessoryRules;
+import de.swa.clv.demo.model.Article;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Build step that runs after compilation (see pom.xml): it verifies the rules and writes their serialized form as
+ * resources for {@link SerializedRules}. The build fails if
+ * <ul>
+ * <li>a rule refers to a property that doesn't exist, which CLV checks when the rules are defined, i.e. when the
+ * classes that define them are initialized, or</li>
+ * <li>some rules are not compiled, e.g. as a property path of a condition can't be resolved (see the warning of
+ * {@link CompiledValidationRules} in the output).</li>
+ * </ul>
+ */
+public final class SerializedRulesGenerator {
+
+    // The classes that define the rules, see fingerprintedClasses()
+    private static final List<Class<?>> RULE_CLASSES = List.of(Article.class, AccessoryRules.class);
+
+    private SerializedRulesGenerator() {
+        throw new IllegalStateException("Not meant to be instantiated");
+    }
+
+    /**
+     * @param args the classes directory the resources are written to
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: SerializedRulesGenerator <classes directory>");
+        }
+        SerializedRules.startRecording();
+        // Defines and compiles the rules
+        List<ValidationRules<?>> rules = List.of(Article.rules, AccessoryRules.rules);
+        List<ValidationRules<?>> notCompiled = new ArrayList<>();
+        for (ValidationRules<?> typeRules : rules) {
+            if (CompiledValidationRules.get(typeRules) == null) {
+                notCompiled.add(typeRules);
+            }
+        }
+        if (!notCompiled.isEmpty()) {
+            System.err.println(notCompiled.size() + " of " + rules.size() + " rules are not compiled");
+            System.exit(1);
+        }
+        // The rules as served by the AllInOneController
+        ClientRules.serializeToJson(Article.rules, AccessoryRules.rules);
+        Path classesDirectory = Path.of(args[0]);
+        SerializedRules.writeRecorded(classesDirectory, fingerprintedClasses(classesDirectory));
+    }
+
+    /**
+     * @return the classes whose class files are the fingerprint of the resources: all classes of the packages of the
+     * rule classes, as the rules refer to other classes there, e.g. to the values of the Category enum, and all classes
+     * of the CLV library, which defines and serializes the rules
+     */
+    static List<String> fingerprintedClasses(Path classesDirectory) throws IOException {
+        Set<String> classNames = new TreeSet<>();
+        for (Class<?> ruleClass : RULE_CLASSES) {
+            Path packageDirectory = classesDirectory.resolve(ruleClass.getPackageName().replace('.', '/'));
+            try (Stream<Path> files = Files.list(packageDirectory)) {
+                files.map(file -> classesDirectory.relativize(file).toString().replace(File.separatorChar, '/'))
+                        .filter(SerializedRulesGenerator::isClassFile)
+                        .forEach(file -> classNames.add(className(file)));
+            }
+        }
+        Path library;
+        try {
+            library = Path.of(ValidationRules.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Location of the CLV library is not a path", e);
+        }
+        if (Files.isDirectory(library)) {
+            try (Stream<Path> files = Files.walk(library)) {
+                files.map(file -> library.relativize(file).toString().replace(File.separatorChar, '/'))
+                        .filter(SerializedRulesGenerator::isClassFile)
+                        .forEach(file -> classNames.add(className(file)));
+            }
+        } else {
+            try (JarFile jar = new JarFile(library.toFile())) {
+                jar.stream()
+                        .map(JarEntry::getName)
+                        .filter(SerializedRulesGenerator::isClassFile)
+                        .forEach(file -> classNames.add(className(file)));
+            }
+        }
+        return List.copyOf(classNames);
+    }
+
+    private static boolean isClassFile(String file) {
+        return file.endsWith(".class") && !file.startsWith("META-INF/") && !file.endsWith("module-info.class");
+    }
+
+    private static String className(String classFile) {
+        return classFile.substring(0, classFile.length() - ".class".length()).replace('/', '.');
+    }
+
+}
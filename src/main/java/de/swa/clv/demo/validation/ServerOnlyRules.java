@@ -0,0 +1,70 @@
+package de.swa.clv.demo.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.swa.clv.ValidationRules;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Properties whose content rules are validated on the server only, e.g. rules on nested properties of enums, which
+ * the clients can't resolve as enums are serialized as strings. CLV's {@code doNotSerialize()} would also remove such
+ * rules from the input of the {@link CompiledValidationRules}, so they are serialized like all other rules and
+ * {@link ClientRules} removes them from the rules that are served to the clients.
+ */
+public final class ServerOnlyRules {
+
+    // Copy-on-write, registering only happens during class initialization of the rules
+    private static volatile Map<ValidationRules<?>, List<Property>> registry = new IdentityHashMap<>();
+
+    private record Property(String typeKey, String property) {
+    }
+
+    private ServerOnlyRules() {
+        throw new IllegalStateException("Not meant to be instantiated");
+    }
+
+    /**
+     * Registers that the content rules of the property are not served to the clients.
+     *
+     * @throws UnsupportedOperationException if the property can't be resolved against the type
+     */
+    public static <T> void content(Class<T> type, ValidationRules<T> rules, String property) {
+        PropertyPath.of(type, property);
+        String typeKey = Character.toLowerCase(type.getSimpleName().charAt(0)) + type.getSimpleName().substring(1);
+        synchronized (ServerOnlyRules.class) {
+            Map<ValidationRules<?>, List<Property>> newRegistry = new IdentityHashMap<>(registry);
+            List<Property> properties = new ArrayList<>(newRegistry.getOrDefault(rules, List.of()));
+            properties.add(new Property(typeKey, property));
+            newRegistry.put(rules, List.copyOf(properties));
+            registry = newRegistry;
+        }
+    }
+
+    static boolean hasRules(ValidationRules<?>... rules) {
+        for (ValidationRules<?> typeRules : rules) {
+            if (registry.containsKey(typeRules)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the server-only rules of the given rules from their serialized form.
+     */
+    static void removeFrom(ObjectNode root, ValidationRules<?>... rules) {
+        for (ValidationRules<?> typeRules : rules) {
+            for (Property property : registry.getOrDefault(typeRules, List.of())) {
+                JsonNode typeContentRules = root.path("contentRules").path(property.typeKey());
+                if (typeContentRules instanceof ObjectNode node) {
+                    node.remove(property.property());
+                }
+            }
+        }
+    }
+
+}
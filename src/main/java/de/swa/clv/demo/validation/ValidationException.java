@@ -4,6 +4,10 @@ import java.util.List;
 
 /**
  * Abstract super class of all exceptions that need to transport field data to the frontend.
+ * <p>
+ * Validation errors are an expected outcome, so the exceptions have no stack trace, and the message of the field
+ * errors is only built when it is asked for. Prefer {@link ValidationResult} where the caller handles invalid objects
+ * anyway.
  */
 public class ValidationException extends RuntimeException {
 
@@ -11,12 +15,22 @@ public class ValidationException extends RuntimeException {
     private final  List<String> fieldErrors;
 
     public ValidationException(String message, List<String> fieldErrors) {
-        super(message);
+        super(message, null, false, false);
         this.fieldErrors = fieldErrors;
     }
 
+    public ValidationException(List<String> fieldErrors) {
+        this(null, fieldErrors);
+    }
+
     public List<String> getFieldErrors() {
         return fieldErrors;
     }
 
+    @Override
+    public String getMessage() {
+        String message = super.getMessage();
+        return message != null ? message : fieldErrors.toString();
+    }
+
 }
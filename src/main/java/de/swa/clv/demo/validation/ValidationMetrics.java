@@ -0,0 +1,141 @@
+package de.swa.clv.demo.validation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer metrics of the validation, exposed via the Actuator metrics and prometheus endpoints:
+ * <ul>
+ * <li>{@value #RULES_TIMER}: the time per rule type (tag {@code ruleType}) and validated type (tag {@code type})</li>
+ * <li>{@value #ENDPOINT_TIMER}: the time per endpoint that validates (tag {@code endpoint})</li>
+ * <li>{@value #ERRORS_COUNTER}: the number of errors per error code (tag {@code code})</li>
+ * </ul>
+ * Recording can be switched on and off at runtime if the {@link ValidationMetricsEndpoint} is enabled. If it is off,
+ * each record call costs just a read of a volatile field. The meters are created lazily and cached, so recording
+ * doesn't allocate.
+ */
+@Component
+public class ValidationMetrics {
+
+    public static final String RULES_TIMER = "clv.validation.rules";
+    public static final String ENDPOINT_TIMER = "clv.validation.endpoint";
+    public static final String ERRORS_COUNTER = "clv.validation.errors";
+
+    /** Doesn't record anything, e.g. for validations outside a Spring context. */
+    public static final ValidationMetrics DISABLED = new ValidationMetrics();
+
+    // The start time if recording is switched off
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    public enum RuleType {
+        MANDATORY, CONTENT, IMMUTABLE, UPDATE;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final MeterRegistry registry;
+    private final Map<Class<?>, Timer[]> rulesTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> endpointTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> errorCounters = new ConcurrentHashMap<>();
+    private volatile boolean enabled;
+
+    @Autowired
+    public ValidationMetrics(MeterRegistry registry,
+            @Value("${clv.demo.validation.metrics.enabled:true}") boolean enabled) {
+        this.registry = registry;
+        this.enabled = enabled;
+    }
+
+    private ValidationMetrics() {
+        this.registry = null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        if (enabled && registry == null) {
+            throw new IllegalStateException("Metrics without meter registry can't be enabled");
+        }
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return the start time for the next record call
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : NOT_STARTED;
+    }
+
+    /**
+     * Records the time since {@code start} for the rules of the given type.
+     *
+     * @return the end time, i.e. the start time for the next record call
+     */
+    public long recordRules(RuleType ruleType, Class<?> type, long start) {
+        if (start == NOT_STARTED) {
+            return NOT_STARTED;
+        }
+        long end = System.nanoTime();
+        Timer[] timers = rulesTimers.get(type);
+        if (timers == null) {
+            timers = rulesTimers.computeIfAbsent(type, this::createRulesTimers);
+        }
+        timers[ruleType.ordinal()].record(end - start, TimeUnit.NANOSECONDS);
+        return end;
+    }
+
+    public void recordEndpoint(String endpoint, long start) {
+        if (start == NOT_STARTED) {
+            return;
+        }
+        long end = System.nanoTime();
+        Timer timer = endpointTimers.get(endpoint);
+        if (timer == null) {
+            timer = endpointTimers.computeIfAbsent(endpoint, key -> Timer.builder(ENDPOINT_TIMER)
+                    .tag("endpoint", key)
+                    .register(registry));
+        }
+        timer.record(end - start, TimeUnit.NANOSECONDS);
+    }
+
+    // The number of distinct error codes is limited by the rules, so is the number of counters
+    public void countErrors(List<String> errors) {
+        if (!enabled) {
+            return;
+        }
+        for (String error : errors) {
+            Counter counter = errorCounters.get(error);
+            if (counter == null) {
+                counter = errorCounters.computeIfAbsent(error, key -> Counter.builder(ERRORS_COUNTER)
+                        .tag("code", key)
+                        .register(registry));
+            }
+            counter.increment();
+        }
+    }
+
+    private Timer[] createRulesTimers(Class<?> type) {
+        RuleType[] ruleTypes = RuleType.values();
+        Timer[] timers = new Timer[ruleTypes.length];
+        for (RuleType ruleType : ruleTypes) {
+            timers[ruleType.ordinal()] = Timer.builder(RULES_TIMER)
+                    .tag("ruleType", ruleType.tag)
+                    .tag("type", type.getSimpleName())
+                    .register(registry);
+        }
+        return timers;
+    }
+
+}
@@ -0,0 +1,39 @@
+package de.swa.clv.demo.validation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Switches the {@link ValidationMetrics} on and off at runtime:
+ * {@code POST /actuator/validationmetrics} with body {@code {"enabled": false}}.
+ * <p>
+ * The actuator endpoints are not authenticated, so the endpoint only exists with
+ * {@code clv.demo.validation.metrics.switchable=true}, and it has to be exposed explicitly, preferably on a management
+ * port that is not reachable from outside ({@code management.server.port}).
+ */
+@Component
+@ConditionalOnProperty(name = "clv.demo.validation.metrics.switchable", havingValue = "true")
+@Endpoint(id = "validationmetrics")
+public class ValidationMetricsEndpoint {
+
+    @Autowired
+    private ValidationMetrics validationMetrics;
+
+    @ReadOperation
+    public Map<String, Boolean> validationMetrics() {
+        return Map.of("enabled", validationMetrics.isEnabled());
+    }
+
+    @WriteOperation
+    public Map<String, Boolean> setEnabled(boolean enabled) {
+        validationMetrics.setEnabled(enabled);
+        return validationMetrics();
+    }
+
+}
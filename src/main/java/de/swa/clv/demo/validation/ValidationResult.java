@@ -0,0 +1,112 @@
+package de.swa.clv.demo.validation;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The outcome of a validation: the error codes in the order of the rules, and the same errors grouped by the rule
+ * property they belong to, e.g.
+ * <pre>
+ * {"valid":false,
+ *  "errors":["error.validation.mandatory.article.name","error.validation.content.equals_any.article.status#initial"],
+ *  "fieldErrors":{"name":[{"code":"error.validation.mandatory.article.name"}],
+ *                 "status":[{"code":"error.validation.content.equals_any.article.status#initial"}]}}
+ * </pre>
+ * The property is the part of the error code after the type key up to an aggregate suffix like {@code #initial}, so
+ * "accessories[*].name" is a property of its own. Errors that don't name a property of the type are grouped under the
+ * empty property. With {@link #withMessages(Function)} each field error also carries its resolved message.
+ * <p>
+ * Failed validations are an expected outcome, so unlike {@link ValidationException} a result is cheap: the grouping
+ * is only done when asked for, e.g. when the result is serialized.
+ */
+public final class ValidationResult {
+
+    public static final ValidationResult VALID = new ValidationResult("", List.of(), null);
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record FieldError(String code, String message) {
+    }
+
+    private final String typeKey;
+    private final List<String> errors;
+    // error code -> message, null if the messages are not resolved
+    private final Function<String, String> messages;
+
+    private ValidationResult(String typeKey, List<String> errors, Function<String, String> messages) {
+        this.typeKey = typeKey;
+        this.errors = errors;
+        this.messages = messages;
+    }
+
+    /**
+     * @param type   the validated type, its simple name is the type key of the error codes
+     * @param errors the error codes, the list is copied
+     */
+    public static ValidationResult of(Class<?> type, List<String> errors) {
+        if (errors.isEmpty()) {
+            return VALID;
+        }
+        String name = type.getSimpleName();
+        return new ValidationResult(Character.toLowerCase(name.charAt(0)) + name.substring(1), List.copyOf(errors),
+                null);
+    }
+
+    /**
+     * @param messages resolves the message of an error code, it may return null for an unknown code
+     * @return this result with the resolved messages in the field errors
+     */
+    public ValidationResult withMessages(Function<String, String> messages) {
+        return isValid() ? this : new ValidationResult(typeKey, errors, messages);
+    }
+
+    public boolean isValid() {
+        return errors.isEmpty();
+    }
+
+    /**
+     * @return the error codes, empty if all rules pass
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return the field errors per property, in the order of the first error of each property
+     */
+    public Map<String, List<FieldError>> getFieldErrors() {
+        Map<String, List<FieldError>> fieldErrors = new LinkedHashMap<>();
+        for (String error : errors) {
+            fieldErrors.computeIfAbsent(property(error), p -> new ArrayList<>())
+                    .add(new FieldError(error, messages == null ? null : messages.apply(error)));
+        }
+        return fieldErrors;
+    }
+
+    /**
+     * @return the exception for callers that rather fail than handle an invalid result
+     */
+    public ValidationException toException() {
+        return new ValidationException(errors);
+    }
+
+    String property(String error) {
+        int start = error.indexOf("." + typeKey + ".");
+        if (start < 0) {
+            return "";
+        }
+        start += typeKey.length() + 2;
+        int end = error.indexOf('#', start);
+        return end < 0 ? error.substring(start) : error.substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return "ValidationResult" + errors;
+    }
+
+}
@@ -0,0 +1,213 @@
+package de.swa.clv.demo.validation;
+
+import de.swa.clv.ValidationRules;
+import de.swa.clv.demo.model.PermissionSet;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * An opt-in cache of validation errors for clients that submit the same articles again, e.g. retries and repeated
+ * dry runs. It is enabled by {@code clv.demo.validation.cache.max-size} > 0.
+ * <p>
+ * The key consists of the rules, the (interned) permission set and the values of the top-level properties the rules
+ * depend on, for an update those of the edited and of the current object (see
+ * {@link CompiledValidationRules#dependencyValues(Object)}). The values are compared with {@code equals()}, so unlike
+ * a pure content hash a collision can never return the errors of another object. If the rules are time relative or
+ * have {@link CalendarRules}, the key includes the current day, and the entries of previous days age out.
+ * <p>
+ * Only rules with {@link CompiledValidationRules} are cached, the generic validator doesn't tell the properties the
+ * rules depend on. The entries are distributed over segments by the hash of their key, each segment is a LRU map
+ * with its own lock, so concurrent lookups rarely contend.
+ * <p>
+ * Hits and misses are exposed as {@value #REQUESTS_COUNTER} (tag {@code result}), the number of entries as
+ * {@value #SIZE_GAUGE}.
+ */
+@Component
+public class ValidationResultCache {
+
+    public static final String REQUESTS_COUNTER = "clv.validation.cache.requests";
+    public static final String SIZE_GAUGE = "clv.validation.cache.size";
+
+    /** Caches nothing, e.g. for validations outside a Spring context. */
+    public static final ValidationResultCache DISABLED = new ValidationResultCache(0, Clock.systemDefaultZone());
+
+    private static final int MAX_SEGMENTS = 16;
+
+    public record Statistics(long hits, long misses, long evictions, int size) {
+    }
+
+    private final Clock clock;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public ValidationResultCache(@Value("${clv.demo.validation.cache.max-size:0}") int maxSize,
+            MeterRegistry registry) {
+        this(maxSize, Clock.systemDefaultZone());
+        if (isEnabled()) {
+            FunctionCounter.builder(REQUESTS_COUNTER, hits, LongAdder::sum).tag("result", "hit").register(registry);
+            FunctionCounter.builder(REQUESTS_COUNTER, misses, LongAdder::sum).tag("result", "miss").register(registry);
+            Gauge.builder(SIZE_GAUGE, this, cache -> cache.getStatistics().size()).register(registry);
+        }
+    }
+
+    ValidationResultCache(int maxSize, Clock clock) {
+        this.clock = clock;
+        int segmentCount = Math.max(0, Math.min(MAX_SEGMENTS, maxSize));
+        int segmentSize = segmentCount == 0 ? 0 : (maxSize + segmentCount - 1) / segmentCount;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    public boolean isEnabled() {
+        return segments.length > 0;
+    }
+
+    /**
+     * Returns the cached errors for the object, resp. for the update of the current object by the edited one, or
+     * caches the errors of the validation.
+     *
+     * @param currentObject the current object of an update, null for a new object
+     * @param validation    validates the object, it must not have side effects
+     * @return a modifiable list of the errors
+     */
+    public List<String> getErrors(ValidationRules<?> rules, Object currentObject, Object editedObject,
+            PermissionSet permissions, Supplier<List<String>> validation) {
+        CompiledValidationRules<?> compiledRules = CompiledValidationRules.get(rules);
+        if (!isEnabled() || compiledRules == null) {
+            return validation.get();
+        }
+        LocalDate day = compiledRules.isTimeRelative() || CalendarRules.hasRules(rules) ? LocalDate.now(clock) : null;
+        Key key = new Key(rules, permissions, day, dependencyValues(compiledRules, rules, editedObject),
+                currentObject == null ? null : dependencyValues(compiledRules, rules, currentObject));
+        Segment segment = segments[Math.floorMod(key.hash ^ (key.hash >>> 16), segments.length)];
+        List<String> cached = segment.get(key);
+        if (cached != null) {
+            hits.increment();
+            return new ArrayList<>(cached);
+        }
+        misses.increment();
+        List<String> errors = validation.get();
+        segment.put(key, List.copyOf(errors));
+        return errors;
+    }
+
+    public Statistics getStatistics() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return new Statistics(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    // The key must not change when the object does, so mutable values are copied
+    private static Object[] dependencyValues(CompiledValidationRules<?> compiledRules, ValidationRules<?> rules,
+            Object object) {
+        Object[] values = compiledRules.dependencyValues(object);
+        Object[] calendarValues = CalendarRules.dependencyValues(rules, object);
+        Object[] snapshot = Arrays.copyOf(values, values.length + calendarValues.length);
+        System.arraycopy(calendarValues, 0, snapshot, values.length, calendarValues.length);
+        for (int i = 0; i < snapshot.length; i++) {
+            if (snapshot[i] instanceof Collection<?> collection) {
+                snapshot[i] = new ArrayList<>(collection);
+            } else if (snapshot[i] instanceof Date date) {
+                snapshot[i] = new Date(date.getTime());
+            }
+        }
+        return snapshot;
+    }
+
+    private static final class Key {
+
+        private final ValidationRules<?> rules;
+        private final PermissionSet permissions;
+        private final LocalDate day;
+        private final Object[] editedValues;
+        private final Object[] currentValues;
+        // Hashing the values is the costly part of a lookup, so it's done once
+        private final int hash;
+
+        Key(ValidationRules<?> rules, PermissionSet permissions, LocalDate day, Object[] editedValues,
+                Object[] currentValues) {
+            this.rules = rules;
+            this.permissions = permissions;
+            this.day = day;
+            this.editedValues = editedValues;
+            this.currentValues = currentValues;
+            int h = System.identityHashCode(rules);
+            h = 31 * h + System.identityHashCode(permissions);
+            h = 31 * h + (day == null ? 0 : day.hashCode());
+            h = 31 * h + Arrays.hashCode(editedValues);
+            this.hash = 31 * h + Arrays.hashCode(currentValues);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            // Rules and permission sets are compared by identity, permission sets are interned
+            return other instanceof Key key
+                    && hash == key.hash
+                    && rules == key.rules
+                    && permissions == key.permissions
+                    && Objects.equals(day, key.day)
+                    && Arrays.equals(editedValues, key.editedValues)
+                    && Arrays.equals(currentValues, key.currentValues);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final class Segment {
+
+        private final Map<Key, List<String>> entries;
+
+        Segment(int maxSize) {
+            entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, List<String>> eldest) {
+                    if (size() > maxSize) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized List<String> get(Key key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(Key key, List<String> errors) {
+            entries.put(key, errors);
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+
+}
@@ -2,34 +2,50 @@ package de.swa.clv.demo.validation;
 
 import de.swa.clv.UserPermissions;
 import de.swa.clv.ValidationRules;
+import de.swa.clv.demo.model.PermissionSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import static de.swa.clv.demo.validation.ValidationMetrics.RuleType.*;
+
 @SuppressWarnings("squid:S1214")
 public interface ValidationRulesCheck {
 
     Logger log = LoggerFactory.getLogger(ValidationRulesCheck.class);
 
+    /**
+     * @return the metrics that record the validation times and errors, disabled by default
+     */
+    default ValidationMetrics getValidationMetrics() {
+        return ValidationMetrics.DISABLED;
+    }
+
+    /**
+     * @return the cache of the validation errors, disabled by default
+     */
+    default ValidationResultCache getValidationResultCache() {
+        return ValidationResultCache.DISABLED;
+    }
+
     /**
      * Checks mandatory and content rules for the ValidationRulesGettable.
      *
      * @param object the object against which the rules are checked
      * @param permissions the user permissions
      */
-    default void requireValidationRulesPass(ValidationRulesGettable<?> object, String[] permissions) {
+    default void requireValidationRulesPass(ValidationRulesGettable<?> object, PermissionSet permissions) {
         requireValidationRulesPass(object.getValidationRules(), object, permissions);
     }
 
     // Alternative method for validating objects that don't implement ValidationRulesGettable
-    default void requireValidationRulesPass(ValidationRules<?> rules, Object object, String[] permissions) {
-        UserPermissions userPerms = UserPermissions.of(permissions);
-        List<String> errors = ValidatorProvider.VALIDATOR.validateMandatoryRules(object, userPerms, rules);
-        errors.addAll(ValidatorProvider.VALIDATOR.validateContentRules(object, userPerms, rules));
-        if (!errors.isEmpty()) {
-            log.info("Validation rule errors detected (during insert): {}", errors);
-            throw new ValidationException(errors.toString(), errors);
+    default void requireValidationRulesPass(ValidationRules<?> rules, Object object, PermissionSet permissions) {
+        ValidationResult result = getValidationResult(rules, object, permissions);
+        if (!result.isValid()) {
+            log.info("Validation rule errors detected (during insert): {}", result.getErrors());
+            throw result.toException();
         }
     }
 
@@ -40,17 +56,138 @@ public interface ValidationRulesCheck {
      * @param currentObject the current object against which the immutable and update rules are checked
      */
     default void requireValidationRulesPass(ValidationRulesGettable<?> editedObject,
-            ValidationRulesGettable<?> currentObject, String[] permissions) {
+            ValidationRulesGettable<?> currentObject, PermissionSet permissions) {
+        ValidationResult result = getValidationResult(editedObject, currentObject, permissions);
+        if (!result.isValid()) {
+            log.info("Validation rule errors detected (during update): {}", result.getErrors());
+            throw result.toException();
+        }
+    }
+
+    /**
+     * Checks mandatory and content rules like
+     * {@link #requireValidationRulesPass(ValidationRulesGettable, PermissionSet)}, but returns the result instead of
+     * throwing an exception.
+     */
+    default ValidationResult getValidationResult(ValidationRulesGettable<?> object, PermissionSet permissions) {
+        return getValidationResult(object.getValidationRules(), object, permissions);
+    }
+
+    // Alternative method for validating objects that don't implement ValidationRulesGettable
+    default ValidationResult getValidationResult(ValidationRules<?> rules, Object object, PermissionSet permissions) {
+        return ValidationResult.of(object.getClass(), getValidationErrors(rules, object, permissions));
+    }
+
+    /**
+     * Checks mandatory, immutable, content and update rules like
+     * {@link #requireValidationRulesPass(ValidationRulesGettable, ValidationRulesGettable, PermissionSet)}, but returns
+     * the result instead of throwing an exception.
+     */
+    default ValidationResult getValidationResult(ValidationRulesGettable<?> editedObject,
+            ValidationRulesGettable<?> currentObject, PermissionSet permissions) {
+        return ValidationResult.of(editedObject.getClass(),
+                getValidationErrors(editedObject, currentObject, permissions));
+    }
+
+    /**
+     * Checks mandatory and content rules like
+     * {@link #requireValidationRulesPass(ValidationRulesGettable, PermissionSet)}, but returns the errors instead of
+     * throwing an exception.
+     *
+     * @return the error codes, empty if all rules pass
+     */
+    default List<String> getValidationErrors(ValidationRulesGettable<?> object, PermissionSet permissions) {
+        return getValidationErrors(object.getValidationRules(), object, permissions);
+    }
+
+    /**
+     * Checks mandatory and content rules like
+     * {@link #requireValidationRulesPass(ValidationRules, Object, PermissionSet)}, but returns the errors instead of
+     * throwing an exception. The errors are taken from the {@link #getValidationResultCache()} if it has them.
+     *
+     * @return the error codes, empty if all rules pass
+     */
+    default List<String> getValidationErrors(ValidationRules<?> rules, Object object, PermissionSet permissions) {
+        List<String> errors = getValidationResultCache().getErrors(rules, null, object, permissions,
+                () -> validateRules(rules, object, permissions));
+        getValidationMetrics().countErrors(errors);
+        return errors;
+    }
+
+    private List<String> validateRules(ValidationRules<?> rules, Object object, PermissionSet permissions) {
+        ValidationMetrics metrics = getValidationMetrics();
+        Class<?> type = object.getClass();
+        CompiledValidationRules<?> compiledRules = CompiledValidationRules.get(rules);
+        List<String> errors;
+        long start = metrics.start();
+        if (compiledRules != null) {
+            errors = compiledRules.validateMandatoryRules(object, permissions);
+            start = metrics.recordRules(MANDATORY, type, start);
+            errors.addAll(compiledRules.validateContentRules(object, permissions));
+        } else {
+            UserPermissions userPerms = permissions.toUserPermissions();
+            errors = ValidatorProvider.VALIDATOR.validateMandatoryRules(object, userPerms, rules);
+            start = metrics.recordRules(MANDATORY, type, start);
+            errors.addAll(ValidatorProvider.VALIDATOR.validateContentRules(object, userPerms, rules));
+        }
+        CalendarRules.validate(rules, object, errors);
+        metrics.recordRules(CONTENT, type, start);
+        return errors;
+    }
+
+    /**
+     * Checks mandatory, immutable, content and update rules like
+     * {@link #requireValidationRulesPass(ValidationRulesGettable, ValidationRulesGettable, PermissionSet)}, but returns
+     * the errors instead of throwing an exception.
+     * <p>
+     * With compiled rules the immutable and update rules that can't fail for the unchanged properties are skipped
+     * (see {@link CompiledValidationRules#validateChangedRules(Object, Object, PermissionSet)}). The errors are taken
+     * from the {@link #getValidationResultCache()} if it has them.
+     *
+     * @return the error codes, empty if all rules pass
+     */
+    default List<String> getValidationErrors(ValidationRulesGettable<?> editedObject,
+            ValidationRulesGettable<?> currentObject, PermissionSet permissions) {
         ValidationRules<?> rules = currentObject.getValidationRules();
-        UserPermissions userPerms = UserPermissions.of(permissions);
-        List<String> errors = ValidatorProvider.VALIDATOR.validateMandatoryRules(editedObject, userPerms, rules);
-        errors.addAll(ValidatorProvider.VALIDATOR.validateContentRules(editedObject, userPerms, rules));
-        errors.addAll(ValidatorProvider.VALIDATOR.validateImmutableRules(currentObject, editedObject, userPerms, rules));
-        errors.addAll(ValidatorProvider.VALIDATOR.validateUpdateRules(currentObject, editedObject, userPerms, rules));
-        if (!errors.isEmpty()) {
-            log.info("Validation rule errors detected (during update): {}", errors);
-            throw new ValidationException(errors.toString(), errors);
+        List<String> errors = getValidationResultCache().getErrors(rules, currentObject, editedObject, permissions,
+                () -> validateRules(rules, editedObject, currentObject, permissions));
+        getValidationMetrics().countErrors(errors);
+        return errors;
+    }
+
+    private List<String> validateRules(ValidationRules<?> rules, ValidationRulesGettable<?> editedObject,
+            ValidationRulesGettable<?> currentObject, PermissionSet permissions) {
+        ValidationMetrics metrics = getValidationMetrics();
+        Class<?> type = editedObject.getClass();
+        CompiledValidationRules<?> compiledRules = CompiledValidationRules.get(rules);
+        List<String> errors;
+        long start = metrics.start();
+        if (compiledRules != null) {
+            // the steps of CompiledValidationRules.validateChangedRules()
+            long changed = compiledRules.changedProperties(currentObject, editedObject);
+            errors = compiledRules.validateMandatoryRules(editedObject, permissions, changed, new ArrayList<>());
+            start = metrics.recordRules(MANDATORY, type, start);
+            compiledRules.validateContentRules(editedObject, permissions, changed, errors);
+            CalendarRules.validate(rules, editedObject, errors);
+            start = metrics.recordRules(CONTENT, type, start);
+            compiledRules.validateImmutableRules(currentObject, editedObject, permissions, changed, errors);
+            start = metrics.recordRules(IMMUTABLE, type, start);
+            compiledRules.validateUpdateRules(currentObject, editedObject, permissions, changed, errors);
+        } else {
+            UserPermissions userPerms = permissions.toUserPermissions();
+            errors = ValidatorProvider.VALIDATOR.validateMandatoryRules(editedObject, userPerms, rules);
+            start = metrics.recordRules(MANDATORY, type, start);
+            errors.addAll(ValidatorProvider.VALIDATOR.validateContentRules(editedObject, userPerms, rules));
+            CalendarRules.validate(rules, editedObject, errors);
+            start = metrics.recordRules(CONTENT, type, start);
+            errors.addAll(ValidatorProvider.VALIDATOR.validateImmutableRules(currentObject, editedObject, userPerms,
+                    rules));
+            start = metrics.recordRules(IMMUTABLE, type, start);
+            errors.addAll(ValidatorProvider.VALIDATOR.validateUpdateRules(currentObject, editedObject, userPerms,
+                    rules));
         }
+        metrics.recordRules(UPDATE, type, start);
+        return errors;
     }
 
 }
@@ -15,6 +15,21 @@ let defaultImmutableMessagePrefix = "error.validation.immutable.";
 let defaultContentMessagePrefix = "error.validation.content.";
 let defaultUpdateMessagePrefix = "error.validation.update.";
 
+// The rules are compiled once by setValidationRules, i.e. the normalized conditions top group of each rule, the RegExp
+// objects, the parsed properties and the date values of EQUALS_ANY/NONE constraints are cached. Properties that are not
+// part of the rules (e.g. inflated indexed properties) are cached on first use, up to a limit.
+const MAX_CACHED_PROPERTIES = 10000;
+let conditionsTopGroups = new WeakMap();
+let constraintDateValues = new WeakMap();
+let constraintDateRanges = new WeakMap();
+let regexes = new Map();
+let parsedProperties = new Map();
+let propertyPaths = new Map();
+let indexedPropertyPaths = new Map();
+
+const EQUALS_NOT_NULL_CONSTRAINT = Object.freeze({type: "EQUALS_NOT_NULL"});
+const VALUE_UNCHANGED_CONSTRAINT = Object.freeze({type: "VALUE_UNCHANGED"});
+
 /**
  * Set the validation rules that are used for validation. The rules must be an JSON instance according.
  * to {@link https://github.com/stephan-double-u/cross-language-validation-schema}
@@ -30,6 +45,7 @@ export function setValidationRules(rules) {
         || "updateRules" in rules && !isRealObject(rules.updateRules)) {
         console.error("Rules are not valid. Top level content does not match the schema version %s", SCHEMA_VERSION);
         crossLanguageValidationRules = emptyValidationRules;
+        compileValidationRules(emptyValidationRules);
         return false;
     } else {
         // rule keys are optional; set to empty object for easier access
@@ -46,10 +62,271 @@ export function setValidationRules(rules) {
             rules['updateRules'] = {};
         }
         crossLanguageValidationRules = rules;
+        compileValidationRules(rules);
         return true;
     }
 }
 
+const COMPACT_FORMAT = "clv-compact-1";
+
+/**
+ * Decodes validation rules of the compact format (media type application/vnd.clv.rules.compact+json) into the JSON
+ * representation, which can then be passed to setValidationRules. In the compact format object keys are indexes of
+ * string entries of the table, numbers are indexes of entries (strings, or objects and arrays that occur more than
+ * once), strings are number literals; booleans and null are as is.
+ *
+ * @param compact the parsed compact document
+ * @returns the validation rules
+ */
+export function decodeCompactValidationRules(compact) {
+    if (!isRealObject(compact) || compact.format !== COMPACT_FORMAT || !Array.isArray(compact.table)
+        || !isRealObject(compact.rules)) {
+        throw new Error("Rules are not of the compact format " + COMPACT_FORMAT);
+    }
+    return decodeCompactContainer(compact.rules, compact.table, new Set());
+}
+
+function decodeCompactValue(value, table, decoding) {
+    if (Number.isInteger(value)) {
+        const entry = getCompactTableEntry(table, value);
+        if (typeof entry === 'string') {
+            return entry;
+        }
+        // a table entry that refers to itself would never end
+        if (decoding.has(value)) {
+            throw new Error("Cyclic table entry " + value);
+        }
+        decoding.add(value);
+        const decoded = decodeCompactContainer(entry, table, decoding);
+        decoding.delete(value);
+        return decoded;
+    }
+    if (typeof value === 'string') {
+        const number = JSON.parse(value);
+        if (typeof number !== 'number') {
+            throw new Error("Not a number: " + value);
+        }
+        return number;
+    }
+    if (typeof value === 'object' && value !== null) {
+        return decodeCompactContainer(value, table, decoding);
+    }
+    return value;
+}
+
+// Each reference gets a copy of its entry, so the decoded rules are a tree like the JSON representation
+function decodeCompactContainer(container, table, decoding) {
+    if (Array.isArray(container)) {
+        return container.map(element => decodeCompactValue(element, table, decoding));
+    }
+    if (!isRealObject(container)) {
+        throw new Error("Not an object or array: " + container);
+    }
+    const decoded = {};
+    for (const [keyIndex, value] of Object.entries(container)) {
+        const key = getCompactTableEntry(table, Number(keyIndex));
+        if (typeof key !== 'string') {
+            throw new Error("Not a string entry: " + keyIndex);
+        }
+        decoded[key] = decodeCompactValue(value, table, decoding);
+    }
+    return decoded;
+}
+
+function getCompactTableEntry(table, index) {
+    if (!Number.isInteger(index) || index < 0 || index >= table.length) {
+        throw new Error("No table entry " + index);
+    }
+    return table[index];
+}
+
+function compileValidationRules(rules) {
+    conditionsTopGroups = new WeakMap();
+    constraintDateValues = new WeakMap();
+    regexes = new Map();
+    parsedProperties = new Map();
+    propertyPaths = new Map();
+    indexedPropertyPaths = new Map();
+    for (const typeRules of [rules.mandatoryRules, rules.immutableRules, rules.contentRules, rules.updateRules]) {
+        for (const propertyRules of Object.values(typeRules).filter(isRealObject)) {
+            for (const [property, rulesOfProperty] of Object.entries(propertyRules)) {
+                compileProperty(property);
+                if (Array.isArray(rulesOfProperty)) {
+                    rulesOfProperty.filter(isRealObject).forEach(compileRule);
+                }
+            }
+        }
+    }
+}
+
+function compileRule(rule) {
+    compileConstraint(rule.constraint);
+    for (const conditionsGroup of getConditionsTopGroup(rule).conditionsGroups ?? []) {
+        for (const condition of conditionsGroup.conditions ?? []) {
+            compileProperty(condition.property);
+            compileConstraint(condition.constraint);
+        }
+    }
+}
+
+function compileConstraint(constraint) {
+    if (constraint?.type === 'CALENDAR_NONE' && Array.isArray(constraint.ranges)) {
+        getConstraintDateRanges(constraint);
+        return;
+    }
+    if (constraint === undefined || !Array.isArray(constraint.values)) {
+        return;
+    }
+    switch (constraint.type) {
+        case 'EQUALS_ANY':
+        case 'EQUALS_NONE':
+            getConstraintDateValues(constraint);
+            break;
+        case 'EQUALS_ANY_REF':
+        case 'EQUALS_NONE_REF':
+        case 'QUARTER_ANY_REF':
+        case 'YEAR_ANY_REF':
+            constraint.values.forEach(compileProperty);
+            break;
+        case 'REGEX_ANY':
+        case 'REGEX_NONE':
+            for (const regexString of constraint.values) {
+                try {
+                    getRegex(regexString);
+                } catch (e) {
+                    // is thrown again on validation, as without compilation
+                    console.error("Invalid regex in constraint: ", constraint, e);
+                }
+            }
+            break;
+    }
+}
+
+function compileProperty(property) {
+    if (typeof property !== 'string') {
+        return;
+    }
+    const pureProperty = parseProperty(property).pureProperty;
+    if (pureProperty.indexOf("[") === -1) {
+        getPropertyPath(pureProperty);
+    } else {
+        try {
+            getIndexedPropertyPath(pureProperty);
+        } catch (e) {
+            // is thrown again on validation, as without compilation
+            console.error("Invalid indexed property: ", property, e);
+        }
+    }
+}
+
+function putIntoCache(cache, key, value) {
+    if (cache.size >= MAX_CACHED_PROPERTIES) {
+        cache.clear();
+    }
+    cache.set(key, value);
+    return value;
+}
+
+/*
+ Returns the terminal aggregate function (or null) and the property without it, e.g.
+ "foo[*]#sum" -> {aggregateFunction: "sum", pureProperty: "foo[*]"}
+ */
+function parseProperty(property) {
+    const parsedProperty = parsedProperties.get(property);
+    if (parsedProperty !== undefined) {
+        return parsedProperty;
+    }
+    return putIntoCache(parsedProperties, property, {
+        aggregateFunction: validateAndGetTerminalAggregateFunctionIfExist(property),
+        pureProperty: property.split("#")[0]
+    });
+}
+
+/*
+ Returns the parts of a property with an optional single index, e.g.
+ "articles[0].name" -> [{name: "articles", index: 0}, {name: "name", index: undefined}]
+ */
+function getPropertyPath(propertyName) {
+    const propertyPath = propertyPaths.get(propertyName);
+    if (propertyPath !== undefined) {
+        return propertyPath;
+    }
+    return putIntoCache(propertyPaths, propertyName, propertyName.split(".").map(propertyPart => ({
+        // split up propertyPart into name and optional index, e.g. 'article[0]' into 'article and 0
+        name: propertyPart.split("[")[0],
+        index: propertyPart.endsWith("]") ? /\[(\d+)]/.exec(propertyPart)[1] : undefined
+    })));
+}
+
+/*
+ Returns the parts of a property with index definitions, or null if it is not supported by
+ collectIndexedPropertyValues, e.g.
+ "foo[0,2].bar[*]" -> [{name: "foo", indices: ["0", "2"]}, {name: "bar", start: 0, step: 1}]
+ */
+function getIndexedPropertyPath(property) {
+    let indexedPropertyPath = indexedPropertyPaths.get(property);
+    if (indexedPropertyPath !== undefined) {
+        return indexedPropertyPath;
+    }
+    indexedPropertyPath = [];
+    for (const propertyPart of property.split(".")) {
+        const parts = INDEX_PARTS_REGEX.exec(propertyPart);
+        if (parts === null) {
+            if (propertyPart.indexOf("[") >= 0 || propertyPart.endsWith("]")) {
+                indexedPropertyPath = null;
+                break;
+            }
+            indexedPropertyPath.push({name: propertyPart});
+        } else if (parts[1].indexOf("[") >= 0) {
+            indexedPropertyPath = null;
+            break;
+        } else {
+            const indexPart = parts[2];
+            if (indexPart === "*" || indexPart.indexOf("/") >= 0) {
+                const startStep = indexPart === "*" ? [0, 1] : indexPart.split("/");
+                indexedPropertyPath.push({name: parts[1], start: +startStep[0], step: +startStep[1]});
+            } else if (indexPart.indexOf("-") >= 0) {
+                const interval = indexPart.split("-");
+                const arrayLength = +interval[1] - +interval[0] + 1;
+                const indices = Array(arrayLength).fill(0).map((_, i) => i + +interval[0]);
+                indexedPropertyPath.push({name: parts[1], indices: indices});
+            } else {
+                indexedPropertyPath.push({name: parts[1], indices: indexPart.split(",")});
+            }
+        }
+    }
+    return putIntoCache(indexedPropertyPaths, property, indexedPropertyPath);
+}
+
+function getRegex(regexString) {
+    let regex = regexes.get(regexString);
+    if (regex === undefined) {
+        regex = new RegExp(regexString, "u");
+        regexes.set(regexString, regex);
+    }
+    return regex;
+}
+
+// The time values of the constraint values, NaN for values that are not dates
+function getConstraintDateValues(constraint) {
+    let dateValues = constraintDateValues.get(constraint);
+    if (dateValues === undefined) {
+        dateValues = constraint.values.map(v => +new Date(v));
+        constraintDateValues.set(constraint, dateValues);
+    }
+    return dateValues;
+}
+
+// The time values of the constraint ranges as flat array [from0, to0, from1, to1, ...], NaN for invalid dates
+function getConstraintDateRanges(constraint) {
+    let dateRanges = constraintDateRanges.get(constraint);
+    if (dateRanges === undefined) {
+        dateRanges = constraint.ranges.flatMap(range => [+new Date(range[0]), +new Date(range[1])]);
+        constraintDateRanges.set(constraint, dateRanges);
+    }
+    return dateRanges;
+}
+
 function isRealObject(param) {
     return typeof param === 'object' && !Array.isArray(param) && param !== null;
 }
@@ -184,8 +461,7 @@ export function validateMandatoryPropertyRules(typeName, property, editedEntity,
         return [];
     }
     return matchingRules
-        .filter(rule => !propertyConstraintIsMet({property: property, constraint: {type: "EQUALS_NOT_NULL"}},
-            editedEntity, null))
+        .filter(rule => !propertyConstraintIsMet(property, EQUALS_NOT_NULL_CONSTRAINT, editedEntity, null))
         .map(rule => buildErrorMessage(defaultMandatoryMessagePrefix, null, typeName, rule.errorCodeControl,
             property));
 }
@@ -211,7 +487,7 @@ function getMatchingMandatoryPropertyRules(typeName, property, editedEntity, use
     if (editedEntity === undefined) {
         return undefined;
     }
-    if (validateAndGetTerminalAggregateFunctionIfExist(property)) {
+    if (parseProperty(property).aggregateFunction) {
         console.error("Aggregate functions are not allowed for mandatory property rules: %s", property);
         return undefined;
     }
@@ -233,8 +509,7 @@ export function validateImmutablePropertyRules(typeName, property, currentEntity
         return [];
     }
     return matchingRules
-        .filter(rule => !propertyConstraintIsMet({property: property, constraint: {type: "VALUE_UNCHANGED"}},
-            currentEntity, editedEntity))
+        .filter(rule => !propertyConstraintIsMet(property, VALUE_UNCHANGED_CONSTRAINT, currentEntity, editedEntity))
         .map(rule => buildErrorMessage(defaultImmutableMessagePrefix, null, typeName, rule.errorCodeControl,
             property));
 }
@@ -249,7 +524,7 @@ function getMatchingImmutablePropertyRules(typeName, property, currentEntity, ed
     if (currentEntity === undefined || editedEntity === undefined) {
         return undefined;
     }
-    if (validateAndGetTerminalAggregateFunctionIfExist(property)) {
+    if (parseProperty(property).aggregateFunction) {
         console.error("Aggregate functions are not allowed for immutable property rules: %s", property);
         return undefined;
     }
@@ -286,8 +561,7 @@ export function validateContentPropertyRules(typeName, property, editedEntity, u
     }
     return matchingRules
         .filter(rule => rule.constraint !== undefined && rule.constraint.type !== undefined)
-        .filter(rule => !propertyConstraintIsMet({property: property, constraint: rule.constraint},
-            editedEntity, null))
+        .filter(rule => !propertyConstraintIsMet(property, rule.constraint, editedEntity, null))
         .map(rule => buildErrorMessage(defaultContentMessagePrefix, rule.constraint.type.toLowerCase(), typeName,
             rule.errorCodeControl, property));
 }
@@ -316,8 +590,7 @@ export function validateUpdatePropertyRules(typeName, property, currentEntity, e
     }
     return matchingRules
         .filter(rule => rule.constraint !== undefined && rule.constraint.type !== undefined)
-        .filter(rule => !propertyConstraintIsMet({property: property, constraint: rule.constraint},
-            editedEntity, currentEntity))
+        .filter(rule => !propertyConstraintIsMet(property, rule.constraint, editedEntity, currentEntity))
         .map(rule => buildErrorMessage(defaultUpdateMessagePrefix, rule.constraint.type.toLowerCase(), typeName,
             rule.errorCodeControl, property));
 }
@@ -392,8 +665,8 @@ function getMatchingRules(typeRules, property, thisEntity, thatEntity, userPerms
         return [{}];
     }
     return propertyRules
-        .filter(rule => rule.permissions === undefined || arePermissionsMatching(rule.permissions, userPerms))
-        .filter(rule => allConditionsAreMet(getConditionsTopGroup(rule), thisEntity, thatEntity));
+        .filter(rule => (rule.permissions === undefined || arePermissionsMatching(rule.permissions, userPerms))
+            && allConditionsAreMet(getConditionsTopGroup(rule), thisEntity, thatEntity));
 }
 
 function arePermissionsMatching(conditionPerms, userPerms) {
@@ -403,14 +676,19 @@ function arePermissionsMatching(conditionPerms, userPerms) {
     if (userPerms === undefined) {
         userPerms = [];
     }
-    let matchingPerms = userPerms.filter(value => conditionPerms.values.includes(value));
+    let matchingPermsCount = 0;
+    for (const userPerm of userPerms) {
+        if (conditionPerms.values.includes(userPerm)) {
+            matchingPermsCount++;
+        }
+    }
     switch (conditionPerms?.type) {
         case 'ALL':
-            return matchingPerms.length === userPerms.length;
+            return matchingPermsCount === userPerms.length;
         case 'ANY':
-            return matchingPerms.length > 0;
+            return matchingPermsCount > 0;
         case 'NONE':
-            return matchingPerms.length === 0;
+            return matchingPermsCount === 0;
         default:
             console.error("Permissions type not supported: ", conditionPerms.type)
             return false;
@@ -421,8 +699,18 @@ function arePermissionsMatching(conditionPerms, userPerms) {
  * A rule may contain (a) a conditionsTopGroup object, (b) a _conditionsGroup_ object, (c) a single _condition_ object
  * or (d) no condition object at all. For cases (b), (c) and (d) a conditionsTopGroup object is created as a wrapper for
  * easier validation. See: {@link allConditionsAreMet}
+ * The conditionsTopGroup is created only once per rule.
  */
 function getConditionsTopGroup(propertyRule) {
+    let conditionsTopGroup = conditionsTopGroups.get(propertyRule);
+    if (conditionsTopGroup === undefined) {
+        conditionsTopGroup = createConditionsTopGroup(propertyRule);
+        conditionsTopGroups.set(propertyRule, conditionsTopGroup);
+    }
+    return conditionsTopGroup;
+}
+
+function createConditionsTopGroup(propertyRule) {
     // Default is a 'top group' w/o any 'conditions' which is evaluated to true!
     let topGroupToReturn = {operator:"AND", conditionsGroups:[{operator:"AND",conditions:[]}]};
     let condition = propertyRule.condition;
@@ -480,7 +768,7 @@ function groupConditionsAreMet(conditionsSubGroup, thisEntity, thatEntity) {
     let operator = conditionsSubGroup.operator;
     let conditions = conditionsSubGroup.conditions;
     for (let curCondition of conditions) {
-        let isMet = conditionIsMet(curCondition, thisEntity, thatEntity, false);
+        let isMet = conditionIsMet(curCondition.property, curCondition.constraint, thisEntity, thatEntity, false);
         if (operator === "OR") {
             if (isMet) {
                 return true;
@@ -496,18 +784,18 @@ function groupConditionsAreMet(conditionsSubGroup, thisEntity, thatEntity) {
     return operator === "AND";
 }
 
-function propertyConstraintIsMet(condition, thisEntity, thatEntity) {
-    return conditionIsMet(condition, thisEntity, thatEntity, true);
+function propertyConstraintIsMet(property, constraint, thisEntity, thatEntity) {
+    return conditionIsMet(property, constraint, thisEntity, thatEntity, true);
 }
 
 /**
- * Validates the condition against the thisEntity resp. thatEntity.
+ * Validates the condition, i.e. the constraint for the property, against the thisEntity resp. thatEntity.
  */
-function conditionIsMet(condition, thisEntity, thatEntity, isPropertyConstraint) {
-    if (isConstraintOfAnyType(condition.constraint, "VALUE_CHANGED", "VALUE_UNCHANGED")) {
-        return validateValueComparerConstraint(condition, thisEntity, thatEntity);
+function conditionIsMet(property, constraint, thisEntity, thatEntity, isPropertyConstraint) {
+    if (isConstraintOfAnyType(constraint, "VALUE_CHANGED", "VALUE_UNCHANGED")) {
+        return validateValueComparerConstraint(property, constraint, thisEntity, thatEntity);
     } else {
-        return validateNoneValueComparerConstraint(condition, thisEntity, thatEntity, isPropertyConstraint);
+        return validateNoneValueComparerConstraint(property, constraint, thisEntity, thatEntity, isPropertyConstraint);
     }
 }
 
@@ -520,13 +808,13 @@ function conditionIsMet(condition, thisEntity, thatEntity, isPropertyConstraint)
  * 1. a reference constraint key 'refTarget' equals 'CURRENT_ENTITY'
  * 2. a condition constraint key 'refTarget' equals 'UPDATE_ENTITY'
  */
-function validateNoneValueComparerConstraint(condition, thisEntity, thatEntity, isPropertyConstraint) {
-    const propertyValues = getPropertyValues(condition.property, thisEntity);
+function validateNoneValueComparerConstraint(property, constraint, thisEntity, thatEntity, isPropertyConstraint) {
+    const propertyValues = getPropertyValues(property, thisEntity);
     let targetEntity = thisEntity;
 
-    const isRefConstraint = isConstraintOfAnyType(condition.constraint,
+    const isRefConstraint = isConstraintOfAnyType(constraint,
         'EQUALS_ANY_REF', 'EQUALS_NONE_REF', 'QUARTER_ANY_REF', 'YEAR_ANY_REF');
-    const refTarget = condition.constraint["refTarget"];
+    const refTarget = constraint["refTarget"];
     if (refTarget !== undefined) {
         if (thatEntity === null || !isRefConstraint) {
             console.warn("The key 'refTarget' is only allowed in immutable and update rule reference " +
@@ -541,30 +829,30 @@ function validateNoneValueComparerConstraint(condition, thisEntity, thatEntity,
 
     for (const propValue of propertyValues) {
         if (propValue === undefined) {
-            console.warn("Condition ", condition, "propValue is undefined; return false");
+            console.warn("Condition ", property, constraint, "propValue is undefined; return false");
             return false;
         }
-        if (!constraintIsValid(condition.constraint, propValue, targetEntity)) {
+        if (!constraintIsValid(constraint, propValue, targetEntity)) {
             return false;
         }
     }
     return true;
 }
 
-function validateValueComparerConstraint(condition, thisEntity, thatEntity) {
-    const thisPropertyValues = getPropertyValues(condition.property, thisEntity);
-    const thatPropertyValues = getPropertyValues(condition.property, thatEntity);
+function validateValueComparerConstraint(property, constraint, thisEntity, thatEntity) {
+    const thisPropertyValues = getPropertyValues(property, thisEntity);
+    const thatPropertyValues = getPropertyValues(property, thatEntity);
     if (thisPropertyValues.length !== thatPropertyValues.length) {
-        return isConstraintOfAnyType(condition.constraint, "VALUE_CHANGED")
+        return isConstraintOfAnyType(constraint, "VALUE_CHANGED")
     }
     for (let i = 0; i < thisPropertyValues.length; i++) {
         const thisValue = thisPropertyValues[i];
         const thatValue = thatPropertyValues[i];
         if (thisValue === undefined || thatValue === undefined) {
-            console.warn("Condition ", condition, "property value is undefined; return false");
+            console.warn("Condition ", property, constraint, "property value is undefined; return false");
             return false;
         }
-        if (!constraintIsValid(condition.constraint, thisValue, thatValue)) {
+        if (!constraintIsValid(constraint, thisValue, thatValue)) {
             return false;
         }
     }
@@ -582,10 +870,10 @@ function validateValueComparerConstraint(condition, thisEntity, thatEntity) {
  "foo[*]#distinct", { foo: [1, 3, 5] } -> [true]
  */
 function getPropertyValues(property, object) {
-    const aggregateFunction = validateAndGetTerminalAggregateFunctionIfExist(property);
-    const pureProperty = property.split("#")[0];
-    const propertiesToCheck = inflatePropertyIfMultiIndexed(pureProperty, object);
-    const propertyValues = propertiesToCheck.map(prop => getPropertyValue(prop, object));
+    const {aggregateFunction, pureProperty} = parseProperty(property);
+    const propertyValues = pureProperty.indexOf("[") === -1
+        ? [getPropertyValue(pureProperty, object)]
+        : getIndexedPropertyValues(pureProperty, object);
     if (aggregateFunction === null) {
         return propertyValues;
     }
@@ -602,6 +890,84 @@ function getPropertyValues(property, object) {
     }
 }
 
+/*
+ Returns the same values as getting the value of each property inflated by inflatePropertyIfMultiIndexed, but without
+ building these properties.
+ */
+function getIndexedPropertyValues(property, object) {
+    const indexedPropertyPath = getIndexedPropertyPath(property);
+    if (indexedPropertyPath === null) {
+        return inflatePropertyIfMultiIndexed(property, object).map(prop => getPropertyValue(prop, object));
+    }
+    const propertyValues = [];
+    collectIndexedPropertyValues(indexedPropertyPath, 0, object, propertyValues);
+    return propertyValues;
+}
+
+function collectIndexedPropertyValues(indexedPropertyPath, fromPart, object, propertyValues) {
+    let propertyValue = object;
+    for (let i = fromPart; i < indexedPropertyPath.length; i++) {
+        const {name, indices, start, step} = indexedPropertyPath[i];
+        propertyValue = propertyValue[name];
+        if (propertyValue === null) {
+            pushForEachInflatedProperty(indexedPropertyPath, i, null, propertyValues);
+            return;
+        }
+        if (start !== undefined) {
+            for (const index of startStepIndices(propertyValue, name, start, step)) {
+                collectIndexedPropertyValues(indexedPropertyPath, i + 1, propertyValue[index], propertyValues);
+            }
+            return;
+        }
+        if (indices !== undefined) {
+            for (const index of indices) {
+                if (Array.isArray(propertyValue) && propertyValue.length > index) {
+                    collectIndexedPropertyValues(indexedPropertyPath, i + 1, propertyValue[index], propertyValues);
+                } else {
+                    console.error("Indexed property is not an array:", propertyValue);
+                    pushForEachInflatedProperty(indexedPropertyPath, i + 1, undefined, propertyValues);
+                }
+            }
+            return;
+        }
+    }
+    propertyValues.push(propertyValue);
+}
+
+// Like startStepIter, but for the property value
+function* startStepIndices(propertyValue, property, startIndex, step) {
+    if (propValueIsNullOrUndefined(propertyValue)) {
+        return;
+    }
+    if (Array.isArray(propertyValue)) {
+        for (let i = startIndex; i < propertyValue.length; i++) {
+            if (i >= startIndex && (i - startIndex) % step === 0) {
+                yield i;
+            }
+        }
+    } else {
+        console.error("Should not happen: propertyValue is not an array: " + property);
+    }
+}
+
+// The value of all properties, that the remaining parts would have been inflated to, is the same (null or undefined)
+function pushForEachInflatedProperty(indexedPropertyPath, fromPart, propertyValue, propertyValues) {
+    let count = 1;
+    for (let i = fromPart; i < indexedPropertyPath.length; i++) {
+        const {indices, start} = indexedPropertyPath[i];
+        if (start !== undefined) {
+            // startStepIter yields no index for a null or undefined value
+            return;
+        }
+        if (indices !== undefined) {
+            count *= indices.length;
+        }
+    }
+    for (let i = 0; i < count; i++) {
+        propertyValues.push(propertyValue);
+    }
+}
+
 function sumUpPropertyValues(propertyValues) {
     const sum = propertyValues.reduce((partialSum, a) => partialSum + a, 0);
     console.debug("sumUpPropertyValues: ", propertyValues, sum);
@@ -631,6 +997,7 @@ function validateNullValueAgainstNullEqualsToValue(constraint) {
         case 'EQUALS_NONE':
         case 'EQUALS_NONE_REF':
         case 'REGEX_NONE':
+        case 'CALENDAR_NONE':
             return nullEqualsTo === undefined || nullEqualsTo === true;
         default:
             return nullEqualsTo !== undefined && nullEqualsTo === true;
@@ -669,6 +1036,9 @@ function validateConstraint(constraint, propValue, object) {
         case 'WEEKDAY_ANY':
             isMet =  weekdayConstraintIsMet(constraint, propValue);
             break;
+        case 'CALENDAR_NONE':
+            isMet =  calendarConstraintIsMet(constraint, propValue);
+            break;
         case 'QUARTER_ANY':
         case 'QUARTER_ANY_REF':
             isMet =  quarterConstraintIsMet(constraint, propValue, object);
@@ -693,17 +1063,13 @@ function validateConstraint(constraint, propValue, object) {
  * Single-indexed properties are supported as well, e.g. 'articles[0].accessories[1].name
  */
 function getPropertyValue(propertyName, object) {
-    let propertyParts = propertyName.split(".");
     let propertyValue = object;
-    for (let propertyPart of propertyParts) {
-        // split up propertyPart into name and optional index, e.g. 'article[0]' into 'article and 0
-        let propertyPartName = propertyPart.split("[")[0];
-        propertyValue = propertyValue[propertyPartName];
+    for (const {name, index} of getPropertyPath(propertyName)) {
+        propertyValue = propertyValue[name];
         if (propertyValue === null) {
             return null;
         }
-        if (propertyPart.endsWith("]")) {
-            let index = /\[(\d+)]/.exec(propertyPart)[1];
+        if (index !== undefined) {
             if (Array.isArray(propertyValue)) {
                 if (propertyValue.length > index) {
                     propertyValue = propertyValue[index];
@@ -729,8 +1095,13 @@ export function equalsConstraintIsMet(constraint, propValue) {
         case 'EQUALS_NONE':
             const propAsDate = getStringAsValidDateOrUndefined(propValue);
             if (propAsDate !== undefined) {
-                let matchLength =  constraint.values.map(v => new Date(v))
-                    .filter(valueAsDate => +valueAsDate === +propAsDate).length;
+                const propAsTime = +propAsDate;
+                let matchLength = 0;
+                for (const valueAsTime of getConstraintDateValues(constraint)) {
+                    if (valueAsTime === propAsTime) {
+                        matchLength++;
+                    }
+                }
                 if (constraint.type === 'EQUALS_ANY') {
                     return matchLength > 0;
                 } else {
@@ -781,7 +1152,7 @@ function equalsRefPropertyMatch(refProps, propValue, object) {
     } else {
         equals = refValues.indexOf(propValue) !== -1;
     }
-    console.debug("" + propValue + (equals ? " " : " NOT ") + "equals referenced properties " + refProps);
+    console.debug("%s%sequals referenced properties %s", propValue, equals ? " " : " NOT ", refProps);
     return equals;
 }
 
@@ -796,8 +1167,7 @@ export function regexConstraintIsMet(constraint, propValue) {
                 return false;
             }
             for (const regexString of constraint.values) {
-                const regex = new RegExp(regexString, "u");
-                if (("" + propValue).match(regex)) {
+                if (getRegex(regexString).test("" + propValue)) {
                     return constraint.type === 'REGEX_ANY';
                 }
             }
@@ -971,6 +1341,8 @@ function validateDateMinMax(propAsDate, minDays, maxDays, type) {
         && (maxDaysDate === undefined || propAsDate <= maxDaysDate);
 }
 
+const WEEKDAYS = ['SUNDAY', 'MONDAY', 'TUESDAY', 'WEDNESDAY', 'THURSDAY', 'FRIDAY', 'SATURDAY'];
+
 /**
  * Validates WEEKDAY_ANY constraint.
  */
@@ -985,15 +1357,44 @@ function weekdayConstraintIsMet(constraint, propValue) {
     if (propAsDate === undefined) {
         return false;
     }
-    const weekdays = ['SUNDAY', 'MONDAY', 'TUESDAY', 'WEDNESDAY', 'THURSDAY', 'FRIDAY', 'SATURDAY'];
-    const propAsDateWeekday = weekdays[propAsDate.getDay()]; // 0=Sunday
+    const propAsDateWeekday = WEEKDAYS[propAsDate.getDay()]; // 0=Sunday
 
-    const match = values.filter(day => day === propAsDateWeekday).length !== 0;
-    console.debug("weekdayConstraintIsMet: ", constraint, propAsDate.toISOString(), propAsDateWeekday, " included? ",
-        match);
+    const match = values.includes(propAsDateWeekday);
+    console.debug("weekdayConstraintIsMet: ", constraint, propAsDate, propAsDateWeekday, " included? ", match);
     return match;
 }
 
+/**
+ * Validates CALENDAR_NONE constraint: the date must not be within one of the 'ranges' ([from, to] dates, both
+ * inclusive, ascending and disjoint). The range is found by binary search.
+ */
+function calendarConstraintIsMet(constraint, propValue) {
+    if (!Array.isArray(constraint.ranges)) {
+        console.error("Constraint is missing 'ranges' array property: ", constraint);
+        return false;
+    }
+    const propAsDate = getStringAsValidDateOrUndefined(propValue, true);
+    if (propAsDate === undefined) {
+        return false;
+    }
+    const propAsTime = +propAsDate;
+    const dateRanges = getConstraintDateRanges(constraint);
+    let low = 0;
+    let high = dateRanges.length / 2 - 1;
+    while (low <= high) {
+        const middle = (low + high) >>> 1;
+        if (propAsTime < dateRanges[2 * middle]) {
+            high = middle - 1;
+        } else if (propAsTime > dateRanges[2 * middle + 1]) {
+            low = middle + 1;
+        } else {
+            console.debug("calendarConstraintIsMet: ", constraint, propAsDate, " within range #", middle);
+            return false;
+        }
+    }
+    return true;
+}
+
 /**
  * Validates QUARTER_ANY and QUARTER_ANY_REF constraint.
  */
@@ -1089,9 +1490,11 @@ const deepEquals = (a, b) => {
 };
 
 function getStringAsValidDateOrUndefined(value, logErrorIfInvalid) {
-    const valueAsDate = new Date(value);
-    if (typeof value === 'string' && (valueAsDate instanceof Date) && !isNaN(valueAsDate)) {
-        return valueAsDate;
+    if (typeof value === 'string') {
+        const valueAsDate = new Date(value);
+        if (!isNaN(valueAsDate)) {
+            return valueAsDate;
+        }
     }
     if (logErrorIfInvalid === true) {
         console.error("The value is not a valid date string: ", value)
@@ -1,6 +1,7 @@
 import {
     setValidationRules, isPropertyMandatory, isPropertyImmutable, getAllowedPropertyValues,
-    validateMandatoryRules, validateContentRules, validateImmutableRules, validateUpdateRules
+    validateMandatoryPropertyRules, validateContentPropertyRules, validateImmutablePropertyRules,
+    validateUpdatePropertyRules
 } from './CrossLanguageValidation_ES6.js';
 
 function resetForm() {
@@ -17,10 +18,12 @@ function resetForm() {
 }
 
 function adjustFormMandatory(article) {
-    propertiesToCheck.forEach(propName => {
-        const isMandatory = isPropertyMandatory("article", propName, article, userPerms);
-        document.querySelector('#' + propName + 'Label').className = "mandatory-" + isMandatory;
-    });
+    propertiesToCheck.forEach(propName => adjustFormMandatoryProperty(article, propName));
+}
+
+function adjustFormMandatoryProperty(article, propName) {
+    const isMandatory = isPropertyMandatory("article", propName, article, userPerms);
+    document.querySelector('#' + propName + 'Label').className = "mandatory-" + isMandatory;
 }
 
 function adjustFormImmutable(article) {
@@ -92,23 +95,117 @@ function adjustSubCategoryBox(selectedCategory, articleSubCategory) {
     }
 }
 
-function validate() {
+/*
+ * Validates all rules, or only the rules that depend on the given changed property if there is one.
+ */
+function validate(changedProperty) {
+    if (changedProperty === undefined) {
+        validateAll();
+    } else {
+        validateChanged(changedProperty);
+    }
+}
+
+function validateAll() {
     const forUpdate = !updateButton.disabled;
     console.debug("validate for %s with user perms %s", forUpdate,  JSON.stringify(userPerms));
     toModel(editedArticle);
     adjustFormMandatory(editedArticle);
     adjustSelectBoxes(savedArticle);
 
-    const errors = validateMandatoryRules("article", editedArticle, userPerms);
-    errors.push(...validateContentRules("article", editedArticle, userPerms));
-    if (forUpdate) {
-        errors.push(...validateImmutableRules("article", savedArticle, editedArticle, userPerms));
-        errors.push(...validateUpdateRules("article", savedArticle, editedArticle, userPerms));
+    ruleErrors.clear();
+    for (const ruleType of getRuleTypes(forUpdate)) {
+        for (const property of Object.keys(validationRules[ruleType].article ?? {})) {
+            ruleErrors.set(ruleType + ":" + property, ruleValidators[ruleType](property));
+        }
     }
+    const errors = [...ruleErrors.values()].flat();
     console.debug("validation errors: %s", errors);
     showErrorMessages(errors);
 }
 
+function validateChanged(changedProperty) {
+    const forUpdate = !updateButton.disabled;
+    console.debug("validate %s for %s with user perms %s", changedProperty, forUpdate,  JSON.stringify(userPerms));
+    toModel(editedArticle);
+    const changedProperties = [changedProperty];
+    if (changedProperty === 'category') {
+        // the selected sub-category may not be allowed anymore
+        adjustSubCategoryBox(document.querySelector('#category').value, editedArticle.subCategory);
+        toModel(editedArticle);
+        changedProperties.push('subCategory');
+    }
+
+    const ruleTypes = getRuleTypes(forUpdate);
+    const validatedRules = new Set();
+    const propertiesToShow = new Set();
+    for (const {ruleType, property} of changedProperties.flatMap(p => ruleDependencies.get(p) ?? [])) {
+        const key = ruleType + ":" + property;
+        if (!ruleTypes.includes(ruleType) || validatedRules.has(key)) {
+            continue;
+        }
+        validatedRules.add(key);
+        const errors = ruleValidators[ruleType](property);
+        for (const error of [...(ruleErrors.get(key) ?? []), ...errors]) {
+            propertiesToCheck.filter(prop => isErrorOfProperty(error, prop)).forEach(prop => propertiesToShow.add(prop));
+        }
+        ruleErrors.set(key, errors);
+        if (ruleType === 'mandatoryRules' && propertiesToCheck.includes(property)) {
+            adjustFormMandatoryProperty(editedArticle, property);
+        }
+    }
+    const errors = [...ruleErrors.values()].flat();
+    console.debug("validation errors: %s, validated rules: %s", errors, [...validatedRules]);
+    showErrorMessages(errors, [...propertiesToShow]);
+}
+
+function getRuleTypes(forUpdate) {
+    return forUpdate ? ['mandatoryRules', 'contentRules', 'immutableRules', 'updateRules']
+        : ['mandatoryRules', 'contentRules'];
+}
+
+/*
+ * Maps each (top level) property to the rules that depend on it, i.e. the rules for that property, and the rules whose
+ * conditions or reference constraints refer to it, e.g.
+ * 'category' -> [{ruleType: 'mandatoryRules', property: 'subCategory'}, {ruleType: 'contentRules', property: 'category'}]
+ */
+function buildRuleDependencies(rules) {
+    const dependencies = new Map();
+    for (const ruleType of getRuleTypes(true)) {
+        for (const [property, propertyRules] of Object.entries(rules[ruleType].article ?? {})) {
+            const properties = new Set([getTopLevelProperty(property)]);
+            collectReferencedProperties(propertyRules, properties);
+            for (const dependency of properties) {
+                if (!dependencies.has(dependency)) {
+                    dependencies.set(dependency, []);
+                }
+                dependencies.get(dependency).push({ruleType, property});
+            }
+        }
+    }
+    console.debug("rule dependencies: ", dependencies);
+    return dependencies;
+}
+
+function collectReferencedProperties(node, properties) {
+    if (Array.isArray(node)) {
+        node.forEach(element => collectReferencedProperties(element, properties));
+    } else if (node !== null && typeof node === 'object') {
+        if (typeof node.property === 'string') {
+            properties.add(getTopLevelProperty(node.property));
+        }
+        if (typeof node.type === 'string' && node.type.endsWith('_REF') && Array.isArray(node.values)) {
+            node.values.forEach(refProperty => properties.add(getTopLevelProperty(refProperty)));
+        }
+        Object.values(node).forEach(value => collectReferencedProperties(value, properties));
+    }
+}
+
+// e.g. 'accessories[*].name#distinct' -> 'accessories'
+function getTopLevelProperty(property) {
+    return property.split(/[.[#]/)[0];
+}
+
 function toForm(article) {
     console.debug("toForm: ", article);
     document.querySelector("#id").value = article.id;
@@ -126,8 +223,10 @@ function toForm(article) {
     let i = 0;
     let accessoriesHtml = article.accessories.map(acc =>
         '<div>' +
-        '<input id="accName'+ i +'" type="text" value="' + acc.name + '" style="width: 152px;" onfocusout="validate()"> ' +
-        '<input id="accAmount'+ i +'" type="text" style="width: 176px" value="' + acc.amount + '" onfocusout="validate()"' +
+        '<input id="accName'+ i +'" type="text" value="' + acc.name + '" style="width: 152px;" ' +
+        'onfocusout="validate(\'accessories\')"> ' +
+        '<input id="accAmount'+ i +'" type="text" style="width: 176px" value="' + acc.amount + '" ' +
+        'onfocusout="validate(\'accessories\')"' +
         ' oninput="this.value = this.value.replace(/[^0-9.]/g, \'\').replace(/(\\..*?)\\..*/g, \'$1\');"> ' +
         '<button onclick="removeAccessory('+ i++ +');">–</button>' +
         '</div>');
@@ -169,9 +268,9 @@ function toModel(article) {
     console.info("toModel: ", article);
 }
 
-function showErrorMessages(errors) {
-    propertiesToCheck.forEach(prop => {
-        const propErrCodes = errors.filter(e => e.indexOf(".article." + prop) >= 0);
+function showErrorMessages(errors, properties = propertiesToCheck) {
+    properties.forEach(prop => {
+        const propErrCodes = errors.filter(e => isErrorOfProperty(e, prop));
         const propErrMsgs = propErrCodes.map(errCode => getErrorMessageForCode(errCode));
         if (propErrMsgs.length >= 1 && showOnlyFirstPropError) {
             document.querySelector('#' + prop + 'Err').innerHTML = propErrMsgs[0];
@@ -181,6 +280,10 @@ function showErrorMessages(errors) {
     });
 }
 
+function isErrorOfProperty(errCode, prop) {
+    return errCode.indexOf(".article." + prop) >= 0;
+}
+
 function getErrorMessageForCode(errCode) {
     const errMsg = validationErrorCodeMap[errCode];
     return (errMsg !== undefined) ? errMsg : errCode;
@@ -206,6 +309,8 @@ function simulateConcurrentModification() {
     const timestamp = new Date().toJSON();
     savedArticle.lastModifiedOn = timestamp;
     editedArticle.lastModifiedOn = timestamp;
+    // An ETag of the previous version, as if someone else had updated the article after it has been loaded
+    savedArticleETag = '"' + (Number(savedArticleETag.replaceAll('"', '')) - 1) + '"';
     toForm(editedArticle);
 }
 function toggleShowFirstOrAllErrorsFlag() {
@@ -215,19 +320,42 @@ function toggleShowFirstOrAllErrorsFlag() {
 
 const port = 8080;
 
+// The session of this tab, the backend resolves the permissions of each request by it (see UserSessions). The token and
+// the permissions are kept in the sessionStorage, so that a reload doesn't start another session, and restores the
+// permissions in case the backend has evicted the session in the meantime.
+const userToken = sessionStorage.getItem('clvUserToken') ?? crypto.randomUUID();
+sessionStorage.setItem('clvUserToken', userToken);
+
 const putPermissions = async () => {
     userPerms.length = 0;
     if (perm1.checked) userPerms.push(perm1.name);
     if (perm2.checked) userPerms.push(perm2.name);
+    sessionStorage.setItem('clvUserPerms', JSON.stringify(userPerms));
+    await sendPermissions();
+    validate();
+}
+
+const sendPermissions = async () => {
     console.info("putPermissions: %s", JSON.stringify(userPerms));
     const response = await fetch('http://localhost:' + port + '/user-permissions', {
         method: 'PUT',
         body: JSON.stringify(userPerms),
         headers: {
-            'Content-Type': 'application/json'
+            'Content-Type': 'application/json',
+            'X-User-Token': userToken
         }
     });
-    validate();
+}
+
+function restorePermissions() {
+    const storedPerms = sessionStorage.getItem('clvUserPerms');
+    if (storedPerms === null) {
+        return;
+    }
+    userPerms.push(...JSON.parse(storedPerms));
+    perm1.checked = userPerms.includes(perm1.name);
+    perm2.checked = userPerms.includes(perm2.name);
+    sendPermissions();
 }
 
 const postArticle = async () => {
@@ -237,13 +365,15 @@ const postArticle = async () => {
         method: 'POST',
         body: JSON.stringify(editedArticle),
         headers: {
-            'Content-Type': 'application/json'
+            'Content-Type': 'application/json',
+            'X-User-Token': userToken
         }
     });
     console.info("postArticle status: %s", response.status);
     const responseJson = await response.json();
     if (response.status === 200) {
         savedArticle = responseJson;
+        savedArticleETag = response.headers.get('ETag');
         toForm(savedArticle);
         adjustFormImmutable(savedArticle);
         validate();
@@ -264,24 +394,27 @@ const putArticle = async () => {
         method: 'PUT',
         body: JSON.stringify(editedArticle),
         headers: {
-            'Content-Type': 'application/json'
+            'Content-Type': 'application/json',
+            'X-User-Token': userToken,
+            'If-Match': savedArticleETag
         }
     });
     console.info("putArticle status: %s", response.status);
     const responseJson = await response.json();
     if (response.status === 200) {
         savedArticle = responseJson;
+        savedArticleETag = response.headers.get('ETag');
         toForm(savedArticle);
         adjustFormImmutable(savedArticle);
         validate();
     } else if (response.status === 400) {
         console.info("putArticle 400: validation errors: %s", responseJson);
         showErrorMessages(responseJson);
-        const concurrentModErrCode = "error.validation.immutable.article.lastModifiedOn";
-        if (responseJson.includes(concurrentModErrCode)) {
-            alert("Concurrent Modification Exception!\n" +
-                getErrorMessageForCode(concurrentModErrCode) + "\n" + "Reload the article.")
-        }
+    } else if (response.status === 412) {
+        // The article has been updated since it has been loaded, i.e. the If-Match ETag is outdated
+        console.info("putArticle 412: concurrent modification: %s", responseJson);
+        alert("Concurrent Modification Exception!\n" +
+            getErrorMessageForCode(responseJson[0]) + "\n" + "Reload the article.")
     } else {
         console.error("putArticle: should not happen: %s", response.status);
     }
@@ -303,6 +436,7 @@ const loadArticle = async () => {
     const responseJson = await response.json();
     if (response.status === 200) {
         savedArticle = responseJson;
+        savedArticleETag = response.headers.get('ETag');
         toForm(savedArticle);
         adjustFormImmutable(savedArticle);
         // ugly: have to reset select boxes and reselect current selections before calling validate(); TODO improve
@@ -322,11 +456,16 @@ const loadArticle = async () => {
 const getValidationRules = async () => {
     const response = await fetch('http://localhost:' + port + '/validation-rules');
     const rules = await response.json();
-    setValidationRules(rules);
+    applyValidationRules(rules);
     document.querySelector('#rules').innerHTML = "Loaded rules:<br><code>" + htmlEncode(JSON.stringify(rules)) + "</code>";
     validate();
 }
 
+function applyValidationRules(rules) {
+    validationRules = setValidationRules(rules) ? rules : emptyValidationRules;
+    ruleDependencies = buildRuleDependencies(validationRules);
+}
+
 function htmlEncode(str) {
     return String(str).replace(/&/g, '&amp;').replace(/</g, '&lt;').replace(/>/g, '&gt;').replace(/"/g, '&quot;');
 }
@@ -339,9 +478,59 @@ const getValidationErrorCodeMap = async () => {
     validate();
 }
 
-const getCategoryMapping = async () => {
-    const response = await fetch('http://localhost:' + port + '/category-mapping');
-    categoryMapping = await response.json();
+/*
+ * Loads rules, messages and category mapping with one request. The document of the last visit is stored per language
+ * and applied at once, then it is revalidated by its ETag (i.e. its version) and only replaced if it has changed.
+ */
+const bootstrap = async () => {
+    const storageKey = bootstrapStorageKey + navigator.language;
+    const stored = readStoredBootstrap(storageKey);
+    if (stored !== null) {
+        applyBootstrap(stored.document);
+    }
+    resetForm();
+
+    const headers = stored?.eTag ? {'If-None-Match': stored.eTag} : {};
+    let response;
+    try {
+        response = await fetch('http://localhost:' + port + '/bootstrap', {headers: headers});
+    } catch (e) {
+        console.info("Bootstrap document could not be fetched: %s", e);
+        return;
+    }
+    if (response.status === 304 || !response.ok) {
+        return;
+    }
+    const bootstrapDocument = await response.json();
+    storeBootstrap(storageKey, response.headers.get('ETag'), bootstrapDocument);
+    applyBootstrap(bootstrapDocument);
+    adjustFormImmutable(updateButton.disabled ? newArticle : savedArticle);
+    validate();
+}
+
+function applyBootstrap(bootstrapDocument) {
+    categoryMapping = bootstrapDocument.categoryMapping;
+    validationErrorCodeMap = bootstrapDocument.validationErrorMessages;
+    applyValidationRules(bootstrapDocument.validationRules);
+}
+
+// Storage may be disabled or full, then the document is fetched on every visit
+function readStoredBootstrap(storageKey) {
+    try {
+        const stored = localStorage.getItem(storageKey);
+        return stored !== null ? JSON.parse(stored) : null;
+    } catch (e) {
+        console.info("Stored bootstrap document could not be read: %s", e);
+        return null;
+    }
+}
+
+function storeBootstrap(storageKey, eTag, bootstrapDocument) {
+    try {
+        localStorage.setItem(storageKey, JSON.stringify({eTag: eTag, document: bootstrapDocument}));
+    } catch (e) {
+        console.info("Bootstrap document could not be stored: %s", e);
+    }
 }
 
 function toggleAnimalUseImg() {
@@ -378,6 +567,7 @@ const userPerms = [];
 
 perm1.addEventListener('change', putPermissions);
 perm2.addEventListener('change', putPermissions);
+restorePermissions();
 
 const animalUse = document.querySelector('#animalUse');
 animalUse.addEventListener('change', toggleAnimalUseImg);
@@ -389,11 +579,26 @@ const emptyArticle = '{"id":null,"lastModifiedOn":null,"name":null,"number":null
     '"maintenanceNextDate":null,"category":null,"subCategory":null,"accessories":[]}';
 let newArticle = JSON.parse(emptyArticle);
 let savedArticle = JSON.parse(emptyArticle);
+// The version of savedArticle, sent as If-Match on update
+let savedArticleETag = null;
 let editedArticle = JSON.parse(emptyArticle);
 
 const propertiesToCheck = ['name', 'number', 'status', 'animalUse', 'everLeftWarehouse', 'medicalSet', 'accessories',
     'maintenanceNextDate', 'maintenanceIntervalMonth', 'category', 'subCategory']
 //const propertiesToCheck = ['maintenanceNextDate', 'maintenanceIntervalMonth']
+const emptyValidationRules = {mandatoryRules: {}, immutableRules: {}, contentRules: {}, updateRules: {}};
+let validationRules = emptyValidationRules;
+let ruleDependencies = new Map();
+// The errors of the last validation per rule type and property, in the order of a validation of all rules
+const ruleErrors = new Map();
+const ruleValidators = {
+    mandatoryRules: property => validateMandatoryPropertyRules("article", property, editedArticle, userPerms),
+    contentRules: property => validateContentPropertyRules("article", property, editedArticle, userPerms),
+    immutableRules: property => validateImmutablePropertyRules("article", property, savedArticle, editedArticle,
+        userPerms),
+    updateRules: property => validateUpdatePropertyRules("article", property, savedArticle, editedArticle, userPerms)
+};
+const bootstrapStorageKey = 'clv-demo-bootstrap:';
 let categoryMapping = {};
 let validationErrorCodeMap = {};
 let showOnlyFirstPropError = false;
@@ -401,5 +606,4 @@ let showOnlyFirstPropError = false;
 window.validate = validate;
 window.removeAccessory = removeAccessory;
 
-getCategoryMapping();
-resetForm();
+bootstrap();
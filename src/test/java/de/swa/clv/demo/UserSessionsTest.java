@@ -0,0 +1,77 @@
+package de.swa.clv.demo;
+
+import de.swa.clv.demo.model.PermissionSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSessionsTest {
+
+    private final UserSessions userSessions = new UserSessions(2);
+
+    @Test
+    void sessionsHaveTheirOwnPermissions() {
+        PermissionSet manager = PermissionSet.of("MANAGER");
+        userSessions.setPermissions("token-1", manager);
+        userSessions.setPermissions("token-2", PermissionSet.EMPTY);
+
+        assertSame(manager, userSessions.resolve("token-1").getPermissions());
+        assertSame(PermissionSet.EMPTY, userSessions.resolve("token-2").getPermissions());
+        assertSame(User.ANONYMOUS, userSessions.resolve("token-3"));
+        assertSame(User.ANONYMOUS, userSessions.resolve(null));
+    }
+
+    @Test
+    void changedPermissionsReplaceTheUser() {
+        userSessions.setPermissions("token", PermissionSet.of("MANAGER"));
+        User before = userSessions.resolve("token");
+
+        userSessions.setPermissions("token", PermissionSet.EMPTY);
+
+        assertSame(PermissionSet.of("MANAGER"), before.getPermissions());
+        assertSame(PermissionSet.EMPTY, userSessions.resolve("token").getPermissions());
+    }
+
+    @Test
+    void newSessionEvictsTheLeastRecentlyUsedOne() {
+        AtomicLong nanoTime = new AtomicLong();
+        UserSessions sessions = new UserSessions(2, nanoTime::incrementAndGet);
+        sessions.setPermissions("token-1", PermissionSet.EMPTY);
+        sessions.setPermissions("token-2", PermissionSet.EMPTY);
+        sessions.resolve("token-1");
+
+        sessions.setPermissions("token-3", PermissionSet.of("MANAGER"));
+
+        assertSame(User.ANONYMOUS, sessions.resolve("token-2"));
+        assertSame(PermissionSet.EMPTY, sessions.resolve("token-1").getPermissions());
+        assertSame(PermissionSet.of("MANAGER"), sessions.resolve("token-3").getPermissions());
+
+        sessions.setPermissions("token-2", PermissionSet.EMPTY);
+
+        assertSame(User.ANONYMOUS, sessions.resolve("token-1"));
+        assertSame(PermissionSet.of("MANAGER"), sessions.resolve("token-3").getPermissions());
+    }
+
+    @Test
+    void changingPermissionsEvictsNoSession() {
+        userSessions.setPermissions("token-1", PermissionSet.EMPTY);
+        userSessions.setPermissions("token-2", PermissionSet.EMPTY);
+
+        userSessions.setPermissions("token-1", PermissionSet.of("MANAGER"));
+
+        assertSame(PermissionSet.of("MANAGER"), userSessions.resolve("token-1").getPermissions());
+        assertSame(PermissionSet.EMPTY, userSessions.resolve("token-2").getPermissions());
+    }
+
+    @Test
+    void invalidTokensAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> userSessions.setPermissions(null, PermissionSet.EMPTY));
+        assertThrows(IllegalArgumentException.class, () -> userSessions.setPermissions("", PermissionSet.EMPTY));
+        assertThrows(IllegalArgumentException.class, () -> userSessions.setPermissions("a b", PermissionSet.EMPTY));
+        assertThrows(IllegalArgumentException.class,
+                () -> userSessions.setPermissions("x".repeat(UserSessions.MAX_TOKEN_LENGTH + 1), PermissionSet.EMPTY));
+    }
+
+}
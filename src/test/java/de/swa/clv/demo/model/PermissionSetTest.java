@@ -0,0 +1,37 @@
+package de.swa.clv.demo.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PermissionSetTest {
+
+    @Test
+    void setsAreInterned() {
+        PermissionSet permissions = PermissionSet.of("DecommissionAssets", "MANAGER", "MANAGER");
+
+        assertSame(PermissionSet.of(Permission.MANAGER, Permission.DecommissionAssets), permissions);
+        assertSame(permissions.toUserPermissions(), PermissionSet.of("MANAGER", "DecommissionAssets")
+                .toUserPermissions());
+        assertSame(PermissionSet.EMPTY, PermissionSet.of((String[]) null));
+        assertSame(PermissionSet.EMPTY, PermissionSet.of(new String[0]));
+    }
+
+    @Test
+    void unknownPermissionIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PermissionSet.of("MANAGER", "ADMIN"));
+        assertThrows(IllegalArgumentException.class, () -> PermissionSet.of((String) null));
+    }
+
+    @Test
+    void containsPermissions() {
+        PermissionSet permissions = PermissionSet.of(Permission.MANAGER);
+
+        assertTrue(permissions.contains(Permission.MANAGER));
+        assertFalse(permissions.contains(Permission.DecommissionAssets));
+        assertTrue(permissions.containsAny(PermissionSet.bitOf("MANAGER") | PermissionSet.bitOf("unknown")));
+        assertFalse(permissions.containsAny(PermissionSet.bitOf(Permission.DecommissionAssets)));
+        assertArrayEquals(new String[] {"MANAGER"}, permissions.toArray());
+    }
+
+}
@@ -0,0 +1,48 @@
+package de.swa.clv.demo.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentBitmapTest {
+
+    private final ConcurrentBitmap bitmap = new ConcurrentBitmap();
+
+    @Test
+    void nextSetBitSkipsEmptyChunks() {
+        bitmap.set(3);
+        bitmap.set(70_000);
+        bitmap.set(5_000_000);
+
+        assertEquals(3, bitmap.nextSetBit(0));
+        assertEquals(3, bitmap.nextSetBit(3));
+        assertEquals(70_000, bitmap.nextSetBit(4));
+        assertEquals(5_000_000, bitmap.nextSetBit(70_001));
+        assertEquals(-1, bitmap.nextSetBit(5_000_001));
+        assertEquals(-1, bitmap.nextSetBit(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void nextSetBitOfEmptyBitmapIsNotFound() {
+        assertEquals(-1, bitmap.nextSetBit(0));
+        bitmap.set(100_000);
+        bitmap.clear(100_000);
+
+        assertEquals(-1, bitmap.nextSetBit(0));
+    }
+
+    @Test
+    void clearKeepsOtherBitsOfWordFindable() {
+        bitmap.set(128);
+        bitmap.set(130);
+        bitmap.set(1_000_000);
+        bitmap.clear(128);
+
+        assertEquals(130, bitmap.nextSetBit(0));
+        bitmap.clear(130);
+        assertEquals(1_000_000, bitmap.nextSetBit(0));
+        assertFalse(bitmap.get(128));
+        assertTrue(bitmap.get(1_000_000));
+    }
+
+}
@@ -0,0 +1,399 @@
+package de.swa.clv.demo.repository;
+
+import de.swa.clv.demo.model.Article;
+import de.swa.clv.demo.model.Category;
+import de.swa.clv.demo.model.Status;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static de.swa.clv.demo.repository.ArticleRepository.WriteResult.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryArticleRepositoryTest {
+
+    private static final int THREADS = 32;
+    private static final int OPERATIONS_PER_THREAD = 2_000;
+
+    private final InMemoryArticleRepository repository = new InMemoryArticleRepository();
+
+    @Test
+    void compareAndSetFailsForOutdatedArticle() {
+        Article current = repository.findById(1).orElseThrow();
+        Article firstUpdate = copyWithNumber(current, "first");
+        Article secondUpdate = copyWithNumber(current, "second");
+
+        assertEquals(OK, repository.compareAndSet(current, firstUpdate));
+        assertEquals(CONFLICT, repository.compareAndSet(current, secondUpdate));
+        assertSame(firstUpdate, repository.findById(1).orElseThrow());
+    }
+
+    @Test
+    void namesAreUniqueIgnoringCase() {
+        Article first = newArticle(repository.nextId());
+        first.setName("Laryngoscope");
+        Article second = newArticle(repository.nextId());
+        second.setName("LARYNGOSCOPE");
+
+        assertEquals(OK, repository.insert(first));
+        assertEquals(NAME_NOT_UNIQUE, repository.insert(second));
+        assertEquals(first.getId(), repository.findIdByName("laryngoscope").orElseThrow());
+        assertTrue(repository.findById(second.getId()).isEmpty());
+    }
+
+    @Test
+    void renamingReleasesOldName() {
+        Article current = repository.findById(1).orElseThrow();
+        Article renamed = copyWithNumber(current, current.getNumber());
+        renamed.setName("Renamed");
+
+        assertEquals(OK, repository.compareAndSet(current, renamed));
+        assertTrue(repository.findIdByName(current.getName()).isEmpty());
+        assertEquals(1, repository.findIdByName("renamed").orElseThrow());
+
+        Article other = newArticle(repository.nextId());
+        other.setName(current.getName());
+        assertEquals(OK, repository.insert(other));
+    }
+
+    @Test
+    void renamingToExistingNameFails() {
+        Article other = newArticle(repository.nextId());
+        repository.insert(other);
+        Article current = repository.findById(1).orElseThrow();
+        Article renamed = copyWithNumber(current, current.getNumber());
+        renamed.setName(other.getName().toUpperCase());
+
+        assertEquals(NAME_NOT_UNIQUE, repository.compareAndSet(current, renamed));
+        assertSame(current, repository.findById(1).orElseThrow());
+        assertEquals(1, repository.findIdByName(current.getName()).orElseThrow());
+    }
+
+    @Test
+    void concurrentInsertsWithSameNameStoreOnlyOne() throws Exception {
+        List<Integer> insertedIds = runConcurrently(() -> {
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                Article article = newArticle(repository.nextId());
+                article.setName("Name " + i);
+                if (repository.insert(article) == OK) {
+                    ids.add(article.getId());
+                }
+            }
+            return ids;
+        });
+
+        assertEquals(OPERATIONS_PER_THREAD, insertedIds.size());
+        assertEquals(1 + OPERATIONS_PER_THREAD, repository.count());
+    }
+
+    @Test
+    void concurrentInsertsAreNotLost() throws Exception {
+        int initialCount = repository.count();
+
+        List<Integer> insertedIds = runConcurrently(() -> {
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                Article article = newArticle(repository.nextId());
+                assertEquals(OK, repository.insert(article));
+                ids.add(article.getId());
+            }
+            return ids;
+        });
+
+        assertEquals(THREADS * OPERATIONS_PER_THREAD, new HashSet<>(insertedIds).size());
+        assertEquals(initialCount + THREADS * OPERATIONS_PER_THREAD, repository.count());
+        insertedIds.forEach(id -> assertTrue(repository.findById(id).isPresent()));
+    }
+
+    @Test
+    void concurrentCompareAndSetUpdatesAreNotLost() throws Exception {
+        Article initial = repository.findById(1).orElseThrow();
+        repository.compareAndSet(initial, copyWithNumber(initial, "0"));
+
+        // Each thread increments the counter stored in 'number' with a read-modify-CAS loop
+        runConcurrently(() -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                boolean stored;
+                do {
+                    Article current = repository.findById(1).orElseThrow();
+                    int counter = Integer.parseInt(current.getNumber());
+                    Article incremented = copyWithNumber(current, String.valueOf(counter + 1));
+                    stored = repository.compareAndSet(current, incremented) == OK;
+                } while (!stored);
+            }
+            return List.of();
+        });
+
+        assertEquals(String.valueOf(THREADS * OPERATIONS_PER_THREAD),
+                repository.findById(1).orElseThrow().getNumber());
+    }
+
+    @Test
+    void concurrentRenamesOfSameVersionKeepNamesUnique() throws Exception {
+        Article initial = repository.findById(1).orElseThrow();
+        Article named = copyWithNumber(initial, initial.getNumber());
+        named.setName("Name 0");
+        repository.compareAndSet(initial, named);
+
+        // Half of the threads rename "Name n" to "Name n+1", so the ones that read the same version rename it to the
+        // same name. The others try to insert a new article with the current name of article 1.
+        AtomicInteger threadIndex = new AtomicInteger();
+        runConcurrently(() -> {
+            boolean renaming = threadIndex.getAndIncrement() % 2 == 0;
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                Article current = repository.findById(1).orElseThrow();
+                if (renaming) {
+                    Article renamed = copyWithNumber(current, current.getNumber());
+                    renamed.setName("Name " + (Integer.parseInt(current.getName().substring(5)) + 1));
+                    repository.compareAndSet(current, renamed);
+                } else {
+                    Article article = newArticle(repository.nextId());
+                    article.setName(current.getName());
+                    // Legal only if article 1 has been renamed in the meantime, it never gets a name again
+                    if (repository.insert(article) == OK) {
+                        assertNotEquals(current.getName(), repository.findById(1).orElseThrow().getName());
+                    }
+                }
+            }
+            return List.of();
+        });
+
+        Set<String> names = new HashSet<>();
+        for (Article article : repository.findAll()) {
+            assertTrue(names.add(article.getName()), article.getName());
+            assertEquals(article.getId(), repository.findIdByName(article.getName()).orElseThrow());
+        }
+    }
+
+    @Test
+    void readsDuringConcurrentWritesDoNotFail() throws Exception {
+        runConcurrently(() -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD / 10; i++) {
+                repository.insert(newArticle(repository.nextId()));
+                assertTrue(repository.findAll().stream().anyMatch(article -> article.getStatus() == Status.NEW));
+            }
+            return List.of();
+        });
+    }
+
+    @Test
+    void findFiltersByIndexedProperties() {
+        for (int i = 0; i < 300; i++) {
+            Article article = newArticle(repository.nextId());
+            article.setStatus(i % 3 == 0 ? Status.ACTIVE : Status.NEW);
+            article.setCategory(i % 2 == 0 ? Category.ENDOSCOPY : Category.IMAGING_SYSTEM);
+            article.setAnimalUse(i % 5 == 0);
+            repository.insert(article);
+        }
+        ArticleQuery query = new ArticleQuery(Set.of(Status.ACTIVE), Set.of(Category.ENDOSCOPY), null, false,
+                null, null, null);
+
+        List<Article> found = repository.find(query, null).toList();
+
+        List<Article> expected = repository.findAll().stream()
+                .filter(query::matches)
+                .sorted((a, b) -> Integer.compare(a.getId(), b.getId()))
+                .toList();
+        // 40 of the inserted ones and the sample article
+        assertEquals(41, expected.size());
+        assertEquals(expected, found);
+    }
+
+    @Test
+    void findJoinsSelectedValuesAndFlags() {
+        for (int i = 0; i < 300; i++) {
+            Article article = newArticle(repository.nextId());
+            article.setStatus(Status.values()[i % Status.values().length]);
+            article.setCategory(i % 7 == 0 ? null : Category.values()[i % Category.values().length]);
+            article.setAnimalUse(i % 5 == 0);
+            article.setEverLeftWarehouse(i % 3 == 0);
+            repository.insert(article);
+        }
+        ArticleQuery query = new ArticleQuery(Set.of(Status.ACTIVE, Status.NEW),
+                Set.of(Category.ENDOSCOPY, Category.IMAGING_SYSTEM), null, true, false, null, null);
+
+        List<Article> found = repository.find(query, null).toList();
+
+        List<Article> expected = repository.findAll().stream()
+                .filter(query::matches)
+                .sorted((a, b) -> Integer.compare(a.getId(), b.getId()))
+                .toList();
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, found);
+    }
+
+    @Test
+    void findOnlyVisitsCandidatesOfSelectedValues() {
+        ArticleIndexes indexes = new ArticleIndexes();
+        Map<Integer, Article> articles = new HashMap<>();
+        for (int id = 0; id < 500_000; id++) {
+            Article article = newArticle(id);
+            article.setStatus(id % 100_000 == 99_999 ? Status.ACTIVE : Status.NEW);
+            articles.put(id, article);
+            indexes.update(null, article);
+        }
+        ArticleQuery query = new ArticleQuery(Set.of(Status.ACTIVE), null, null, null, null, null, null);
+        AtomicInteger lookups = new AtomicInteger();
+
+        List<Integer> found = indexes.find(query, null, id -> {
+            lookups.incrementAndGet();
+            return articles.get(id);
+        }).map(Article::getId).toList();
+
+        assertEquals(List.of(99_999, 199_999, 299_999, 399_999, 499_999), found);
+        assertEquals(5, lookups.get());
+    }
+
+    @Test
+    void findContinuesAfterCursorInIdOrder() {
+        for (int i = 0; i < 200; i++) {
+            repository.insert(newArticle(repository.nextId()));
+        }
+        ArticleQuery query = new ArticleQuery(Set.of(Status.NEW), null, null, null, null, null, null);
+
+        List<Integer> ids = new ArrayList<>();
+        ArticleQuery.Cursor cursor = null;
+        List<Article> page;
+        do {
+            page = repository.find(query, cursor).limit(64).toList();
+            page.forEach(article -> ids.add(article.getId()));
+            if (!page.isEmpty()) {
+                cursor = query.parseCursor(query.cursorAfter(page.get(page.size() - 1)).toString());
+            }
+        } while (!page.isEmpty());
+
+        assertEquals(200, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i + 2, ids.get(i));
+        }
+    }
+
+    @Test
+    void findWithDateRangeOrdersByMaintenanceNextDate() {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < 100; i++) {
+            Article article = newArticle(repository.nextId());
+            article.setMaintenanceNextDate(start.plusDays(99 - i / 2));
+            repository.insert(article);
+        }
+        ArticleQuery query = new ArticleQuery(null, null, null, null, null, start.plusDays(60), start.plusDays(69));
+
+        List<Article> firstPage = repository.find(query, null).limit(5).toList();
+        ArticleQuery.Cursor cursor = query.cursorAfter(firstPage.get(4));
+        List<Article> secondPage = repository.find(query, cursor).toList();
+
+        assertEquals(start.plusDays(62) + "_76", cursor.toString());
+        assertEquals(List.of(80, 81, 78, 79, 76), firstPage.stream().map(Article::getId).toList());
+        assertEquals(15, secondPage.size());
+        assertEquals(77, secondPage.get(0).getId());
+        assertEquals(start.plusDays(69), secondPage.get(14).getMaintenanceNextDate());
+    }
+
+    @Test
+    void findReflectsUpdates() {
+        Article current = repository.findById(1).orElseThrow();
+        Article updated = copyWithNumber(current, current.getNumber());
+        updated.setStatus(Status.INACTIVE);
+        updated.setMaintenanceNextDate(LocalDate.of(2030, 1, 1));
+        ArticleQuery byStatus = new ArticleQuery(Set.of(current.getStatus()), null, null, null, null, null, null);
+        ArticleQuery byOldDate = new ArticleQuery(null, null, null, null, null, current.getMaintenanceNextDate(),
+                current.getMaintenanceNextDate());
+
+        assertEquals(OK, repository.compareAndSet(current, updated));
+
+        assertEquals(0, repository.find(byStatus, null).count());
+        assertEquals(0, repository.find(byOldDate, null).count());
+        ArticleQuery byNewStatus = new ArticleQuery(Set.of(Status.INACTIVE), null, null, null, null, null,
+                LocalDate.of(2030, 1, 1));
+        assertEquals(List.of(updated), repository.find(byNewStatus, null).toList());
+    }
+
+    @Test
+    void findDuringConcurrentUpdatesOnlyReturnsMatchingArticles() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            repository.insert(newArticle(repository.nextId()));
+        }
+        ArticleQuery query = new ArticleQuery(Set.of(Status.ACTIVE), null, null, null, null, null, null);
+
+        // Half of the threads toggle the status, the others query and check each result
+        AtomicInteger threadIndex = new AtomicInteger();
+        runConcurrently(() -> {
+            boolean writer = threadIndex.getAndIncrement() % 2 == 0;
+            for (int i = 0; i < OPERATIONS_PER_THREAD / 10; i++) {
+                if (writer) {
+                    Article current = repository.findById(2 + i % 1000).orElseThrow();
+                    Article updated = copyWithNumber(current, current.getNumber());
+                    updated.setStatus(current.getStatus() == Status.NEW ? Status.ACTIVE : Status.NEW);
+                    repository.compareAndSet(current, updated);
+                } else {
+                    int previousId = 0;
+                    for (Article article : repository.find(query, null).toList()) {
+                        assertEquals(Status.ACTIVE, article.getStatus());
+                        assertTrue(article.getId() > previousId);
+                        previousId = article.getId();
+                    }
+                }
+            }
+            return List.of();
+        });
+
+        assertEquals(repository.findAll().stream().filter(query::matches).count(),
+                repository.find(query, null).count());
+    }
+
+    private static <T> List<T> runConcurrently(Callable<List<T>> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        try {
+            List<Future<List<T>>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    startGate.await();
+                    return task.call();
+                }));
+            }
+            startGate.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<List<T>> future : futures) {
+                results.addAll(future.get(60, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Article newArticle(int id) {
+        Article article = new Article();
+        article.setId(id);
+        article.setName("Article " + id);
+        article.setNumber("N-" + id);
+        article.setStatus(Status.NEW);
+        return article;
+    }
+
+    private static Article copyWithNumber(Article article, String number) {
+        Article copy = new Article(article.getId(), article.getName(), number, article.getStatus(),
+                article.getMaintenanceIntervalMonth(), article.getMaintenanceNextDate(), article.getCategory(),
+                article.getSubCategory(), article.getAccessories(), article.getLastModifiedOn());
+        copy.setAnimalUse(article.isAnimalUse());
+        copy.setEverLeftWarehouse(article.isEverLeftWarehouse());
+        copy.setMedicalSet(article.getMedicalSet());
+        return copy;
+    }
+
+}
@@ -0,0 +1,294 @@
+package de.swa.clv.demo.repository;
+
+import de.swa.clv.demo.model.Accessory;
+import de.swa.clv.demo.model.Article;
+import de.swa.clv.demo.model.Category;
+import de.swa.clv.demo.model.Status;
+import de.swa.clv.demo.model.SubCategory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static de.swa.clv.demo.repository.ArticleRepository.WriteResult.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournaledArticleRepositoryTest {
+
+    // Small segments, so the tests roll over the journal
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    private final List<JournaledArticleRepository> openRepositories = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        openRepositories.forEach(JournaledArticleRepository::shutdown);
+    }
+
+    @Test
+    void writesSurviveRestartWithEachDurability() throws IOException {
+        for (ArticleJournal.Durability durability : ArticleJournal.Durability.values()) {
+            Path journalDirectory = directory.resolve(durability.name());
+            JournaledArticleRepository repository = open(journalDirectory, durability);
+            Article created = newArticle(repository.nextId());
+            assertEquals(OK, repository.insert(created));
+            Article updated = copyWithName(created, "Updated " + created.getId());
+            updated.setVersion(created.getVersion() + 1);
+            assertEquals(OK, repository.compareAndSet(created, updated));
+            List<Article> expected = sorted(repository.findAll());
+            repository.shutdown();
+
+            JournaledArticleRepository reopened = open(journalDirectory, durability);
+
+            assertSameArticles(expected, sorted(reopened.findAll()));
+            assertEquals(1, reopened.findById(updated.getId()).orElseThrow().getVersion());
+            assertEquals(updated.getId(), reopened.findIdByName("updated " + updated.getId()).orElseThrow());
+            assertTrue(reopened.findIdByName(created.getName()).isEmpty());
+            assertTrue(reopened.nextId() > updated.getId());
+        }
+    }
+
+    @Test
+    void recordsWithoutVersionAreReadWithVersionZero() throws IOException {
+        Article article = newArticle(7);
+        article.setVersion(3);
+        byte[] encoded = encoded(article);
+        // The version is the last field, records written before articles had a version end before it
+        ByteBuffer withoutVersion = ByteBuffer.wrap(encoded, 0, encoded.length - Long.BYTES).slice();
+
+        Article read = ArticleCodec.read(withoutVersion);
+
+        assertEquals(0, read.getVersion());
+        assertEquals(article.getName(), read.getName());
+        assertEquals(3, ArticleCodec.read(ByteBuffer.wrap(encoded)).getVersion());
+    }
+
+    @Test
+    void freshJournalStartsWithSampleArticleOnlyOnce() throws IOException {
+        JournaledArticleRepository repository = open(directory, ArticleJournal.Durability.BATCH);
+        assertEquals(1, repository.count());
+        repository.shutdown();
+
+        assertEquals(1, open(directory, ArticleJournal.Durability.BATCH).count());
+    }
+
+    @Test
+    void snapshotReplacesSnapshotsAndSegmentsBeforeThePreviousOne() throws IOException {
+        JournaledArticleRepository repository = open(directory, ArticleJournal.Durability.BATCH);
+        for (int i = 0; i < 100; i++) {
+            repository.insert(newArticle(repository.nextId()));
+        }
+        assertTrue(files("journal-").size() > 1);
+
+        assertTrue(repository.snapshot());
+        assertFalse(repository.snapshot());
+        // Without a previous snapshot the whole journal is kept for a full replay
+        assertEquals(1, files("snapshot-").size());
+        assertEquals("journal-0000000000000000.log", files("journal-").get(0).getFileName().toString());
+
+        Article current = repository.findById(50).orElseThrow();
+        repository.compareAndSet(current, copyWithName(current, "After snapshot"));
+        assertTrue(repository.snapshot());
+        repository.insert(newArticle(repository.nextId()));
+        assertTrue(repository.snapshot());
+        List<Path> snapshots = files("snapshot-");
+        assertEquals(2, snapshots.size());
+        assertEquals(sequence(snapshots.get(0)), sequence(files("journal-").get(0)));
+        List<Article> expected = sorted(repository.findAll());
+        repository.shutdown();
+
+        assertSameArticles(expected, sorted(open(directory, ArticleJournal.Durability.BATCH).findAll()));
+    }
+
+    @Test
+    void unreadableSnapshotFallsBackToThePreviousOne() throws IOException {
+        JournaledArticleRepository repository = open(directory, ArticleJournal.Durability.BATCH);
+        for (int i = 0; i < 50; i++) {
+            repository.insert(newArticle(repository.nextId()));
+        }
+        repository.snapshot();
+        Article current = repository.findById(20).orElseThrow();
+        repository.compareAndSet(current, copyWithName(current, "Between snapshots"));
+        repository.snapshot();
+        repository.insert(newArticle(repository.nextId()));
+        List<Article> expected = sorted(repository.findAll());
+        repository.shutdown();
+        List<Path> snapshots = files("snapshot-");
+        corruptLastByte(snapshots.get(snapshots.size() - 1));
+
+        assertSameArticles(expected, sorted(open(directory, ArticleJournal.Durability.BATCH).findAll()));
+    }
+
+    @Test
+    void unreadableOnlySnapshotFallsBackToFullReplay() throws IOException {
+        JournaledArticleRepository repository = open(directory, ArticleJournal.Durability.BATCH);
+        for (int i = 0; i < 50; i++) {
+            repository.insert(newArticle(repository.nextId()));
+        }
+        repository.snapshot();
+        repository.insert(newArticle(repository.nextId()));
+        List<Article> expected = sorted(repository.findAll());
+        repository.shutdown();
+        corruptLastByte(files("snapshot-").get(0));
+
+        assertSameArticles(expected, sorted(open(directory, ArticleJournal.Durability.BATCH).findAll()));
+    }
+
+    @Test
+    void closedRepositoryRejectsWrites() throws IOException {
+        JournaledArticleRepository repository = open(directory, ArticleJournal.Durability.BATCH);
+        repository.shutdown();
+
+        assertThrows(IllegalStateException.class, () -> repository.insert(newArticle(repository.nextId())));
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    void tornRecordAtEndIsIgnored() throws IOException {
+        JournaledArticleRepository repository = open(directory, ArticleJournal.Durability.WRITE);
+        repository.insert(newArticle(repository.nextId()));
+        List<Article> expected = sorted(repository.findAll());
+        repository.insert(newArticle(repository.nextId()));
+        repository.shutdown();
+        corruptLastByte(files("journal-").get(0));
+
+        JournaledArticleRepository reopened = open(directory, ArticleJournal.Durability.WRITE);
+
+        assertSameArticles(expected, sorted(reopened.findAll()));
+        Article article = newArticle(reopened.nextId());
+        assertEquals(OK, reopened.insert(article));
+        reopened.shutdown();
+        assertTrue(open(directory, ArticleJournal.Durability.WRITE).findById(article.getId()).isPresent());
+    }
+
+    @Test
+    void concurrentWritesAreRecoveredAsLastStored() throws Exception {
+        JournaledArticleRepository repository = open(directory, ArticleJournal.Durability.BATCH);
+        for (int i = 0; i < 10; i++) {
+            repository.insert(newArticle(repository.nextId()));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int threadNumber = thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        int id = 1 + (i + threadNumber) % 11;
+                        Article current = repository.findById(id).orElseThrow();
+                        // names released by one article are taken by another, which must not clash on recovery
+                        repository.compareAndSet(current, copyWithName(current, "Name " + (threadNumber + i) % 15));
+                        if (i % 50 == 0) {
+                            repository.snapshot();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        List<Article> expected = sorted(repository.findAll());
+        repository.shutdown();
+
+        assertSameArticles(expected, sorted(open(directory, ArticleJournal.Durability.BATCH).findAll()));
+    }
+
+    private JournaledArticleRepository open(Path journalDirectory, ArticleJournal.Durability durability)
+            throws IOException {
+        JournaledArticleRepository repository = new JournaledArticleRepository(
+                new ArticleJournal.Settings(journalDirectory, durability, SEGMENT_SIZE),
+                Duration.ofMillis(10), Duration.ZERO);
+        openRepositories.add(repository);
+        return repository;
+    }
+
+    private List<Path> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(prefix)).sorted().toList();
+        }
+    }
+
+    private static String sequence(Path file) {
+        return file.getFileName().toString().replaceAll("\\D", "");
+    }
+
+    // Flips the last non-zero byte, i.e. damages the last record of the segment or snapshot
+    private static void corruptLastByte(Path segment) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            for (long position = file.length() - 1; position >= 0; position--) {
+                file.seek(position);
+                int b = file.read();
+                if (b != 0) {
+                    file.seek(position);
+                    file.write(b ^ 0xFF);
+                    return;
+                }
+            }
+        }
+        fail("Segment is empty");
+    }
+
+    private static List<Article> sorted(Iterable<Article> articles) {
+        List<Article> list = new ArrayList<>();
+        articles.forEach(list::add);
+        list.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+        return list;
+    }
+
+    private static void assertSameArticles(List<Article> expected, List<Article> actual) throws IOException {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(encoded(expected.get(i)), encoded(actual.get(i)), "article " + expected.get(i).getId());
+        }
+    }
+
+    private static byte[] encoded(Article article) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ArticleCodec.write(article, new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static Article newArticle(int id) {
+        Article article = new Article(id, "Article " + id, "N-" + id, Status.NEW, (short) 6,
+                LocalDate.of(2030, 1, id % 28 + 1), Category.ENDOSCOPY, SubCategory.LARYNGOSCOPE,
+                List.of(new Accessory("Accessory " + id, 2)), new Date());
+        article.setMedicalSet(id % 2 == 0 ? "Set " + id : null);
+        article.setAnimalUse(id % 3 == 0);
+        return article;
+    }
+
+    private static Article copyWithName(Article article, String name) {
+        Article copy = new Article(article.getId(), name, article.getNumber(), article.getStatus(),
+                article.getMaintenanceIntervalMonth(), article.getMaintenanceNextDate(), article.getCategory(),
+                article.getSubCategory(), article.getAccessories(), article.getLastModifiedOn());
+        copy.setAnimalUse(article.isAnimalUse());
+        copy.setEverLeftWarehouse(article.isEverLeftWarehouse());
+        copy.setMedicalSet(article.getMedicalSet());
+        return copy;
+    }
+
+}
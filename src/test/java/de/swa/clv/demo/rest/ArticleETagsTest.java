@@ -0,0 +1,32 @@
+package de.swa.clv.demo.rest;
+
+import de.swa.clv.demo.model.Article;
+import org.junit.jupiter.api.Test;
+
+import static de.swa.clv.demo.rest.ArticleETags.NO_VERSION;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArticleETagsTest {
+
+    @Test
+    void eTagIsVersionOfArticle() {
+        Article article = new Article();
+        article.setVersion(42);
+
+        assertEquals("\"42\"", ArticleETags.of(article));
+        assertEquals(42, ArticleETags.versionOf(ArticleETags.of(article)));
+        assertEquals(0, ArticleETags.versionOf(" \"0\" "));
+    }
+
+    @Test
+    void onlySingleStrongVersionTagsMatch() {
+        assertEquals(NO_VERSION, ArticleETags.versionOf("*"));
+        assertEquals(NO_VERSION, ArticleETags.versionOf("W/\"42\""));
+        assertEquals(NO_VERSION, ArticleETags.versionOf("\"41\", \"42\""));
+        assertEquals(NO_VERSION, ArticleETags.versionOf("\"-1\""));
+        assertEquals(NO_VERSION, ArticleETags.versionOf("\"\""));
+        assertEquals(NO_VERSION, ArticleETags.versionOf("42"));
+        assertEquals(NO_VERSION, ArticleETags.versionOf("\"99999999999999999999\""));
+    }
+
+}
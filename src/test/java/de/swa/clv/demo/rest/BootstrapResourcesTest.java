@@ -0,0 +1,46 @@
+package de.swa.clv.demo.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.swa.clv.demo.service.ValidationMessageCatalog;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BootstrapResourcesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ValidationMessageCatalog validationMessageCatalog =
+            new ValidationMessageCatalog(objectMapper, List.of("en", "de"));
+    private final BootstrapResources bootstrapResources = new BootstrapResources(objectMapper,
+            validationMessageCatalog);
+
+    @Test
+    void documentBundlesRulesMessagesAndCategoryMapping() throws IOException {
+        JsonNode document = objectMapper.readTree(bootstrapResources.get("de").getJson());
+
+        assertEquals(objectMapper.readTree(AllInOneController.VALIDATION_RULES.get().getJson()),
+                document.get("validationRules"));
+        assertEquals(objectMapper.readTree(validationMessageCatalog.getMessages("de").getJson()),
+                document.get("validationErrorMessages"));
+        assertEquals(objectMapper.valueToTree(AllInOneController.CATEGORY_MAPPING), document.get("categoryMapping"));
+    }
+
+    @Test
+    void documentPerLocaleWithOwnETag() {
+        CachedJsonResource german = bootstrapResources.get("de-DE,de;q=0.9");
+        CachedJsonResource english = bootstrapResources.get(null);
+
+        assertSame(german, bootstrapResources.get("de"));
+        assertNotEquals(german.getETag(), english.getETag());
+        assertEquals("de", german.toResponse(null, null).getHeaders().getFirst(HttpHeaders.CONTENT_LANGUAGE));
+        assertEquals(HttpStatus.NOT_MODIFIED, german.toResponse(german.getETag(), null).getStatusCode());
+        assertEquals(HttpStatus.OK, english.toResponse(german.getETag(), null).getStatusCode());
+    }
+
+}
@@ -0,0 +1,113 @@
+package de.swa.clv.demo.rest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedJsonResourceTest {
+
+    private static final String JSON = "{\"schemaVersion\":\"0.12\",\"mandatoryRules\":{\"article\":{\"name\":[]}}}";
+
+    private final CachedJsonResource resource = CachedJsonResource.of(JSON);
+
+    @Test
+    void eTagIsStrongAndDependsOnContentOnly() {
+        assertTrue(resource.getETag().startsWith("\""));
+        assertEquals(resource.getETag(), CachedJsonResource.of(JSON).getETag());
+        assertNotEquals(resource.getETag(), CachedJsonResource.of(JSON + " ").getETag());
+    }
+
+    @Test
+    void plainResponseWithoutConditionalHeaders() {
+        ResponseEntity<byte[]> response = resource.toResponse(null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(resource.getETag(), response.getHeaders().getFirst(HttpHeaders.ETAG));
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(JSON, new String(response.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void gzipResponseIfAccepted() throws IOException {
+        ResponseEntity<byte[]> response = resource.toResponse(null, "gzip, deflate, br");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertNotEquals(resource.getETag(), response.getHeaders().getFirst(HttpHeaders.ETAG));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            assertEquals(JSON, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void notModifiedIfETagMatches() {
+        String gzipETag = resource.toResponse(null, "gzip").getHeaders().getFirst(HttpHeaders.ETAG);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, resource.toResponse(resource.getETag(), null).getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, resource.toResponse("W/" + gzipETag, "gzip").getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, resource.toResponse("\"other\", " + resource.getETag(), null)
+                .getStatusCode());
+        assertNull(resource.toResponse(resource.getETag(), null).getBody());
+    }
+
+    @Test
+    void okIfETagDoesNotMatch() {
+        assertEquals(HttpStatus.OK, resource.toResponse("\"outdated\"", null).getStatusCode());
+    }
+
+    @Test
+    void languageSpecificResponseVariesByAcceptLanguage() {
+        CachedJsonResource germanResource = CachedJsonResource.of(JSON, Locale.GERMAN);
+
+        HttpHeaders headers = germanResource.toResponse(null, null).getHeaders();
+        assertEquals("de", headers.getFirst(HttpHeaders.CONTENT_LANGUAGE));
+        assertTrue(headers.getVary().contains(HttpHeaders.ACCEPT_LANGUAGE));
+        assertTrue(germanResource.toResponse(germanResource.getETag(), null).getHeaders().getVary()
+                .contains(HttpHeaders.ACCEPT_LANGUAGE));
+        assertNull(resource.toResponse(null, null).getHeaders().getFirst(HttpHeaders.CONTENT_LANGUAGE));
+    }
+
+    @Test
+    void negotiatedResponseHasItsMediaTypeAndVariesByAccept() {
+        MediaType compactType = MediaType.parseMediaType(CompactRulesFormat.MEDIA_TYPE);
+        CachedJsonResource compactResource = CachedJsonResource.of(JSON, compactType);
+
+        HttpHeaders headers = compactResource.toResponse(null, null).getHeaders();
+        assertEquals(compactType, headers.getContentType());
+        assertTrue(headers.getVary().contains(HttpHeaders.ACCEPT));
+        assertFalse(resource.toResponse(null, null).getHeaders().getVary().contains(HttpHeaders.ACCEPT));
+    }
+
+    @Test
+    void gzipIsNotUsedIfRejected() {
+        assertFalse(CachedJsonResource.acceptsGzip("gzip;q=0, identity"));
+        assertFalse(CachedJsonResource.acceptsGzip("deflate"));
+        assertTrue(CachedJsonResource.acceptsGzip("deflate, GZIP;q=0.5"));
+    }
+
+    @Test
+    void gzipQualityIsParsed() {
+        assertFalse(CachedJsonResource.acceptsGzip("gzip; Q=0.000"));
+        assertFalse(CachedJsonResource.acceptsGzip("*, gzip;q=0"));
+        assertFalse(CachedJsonResource.acceptsGzip("*;q=0"));
+        assertFalse(CachedJsonResource.acceptsGzip("identity"));
+        assertFalse(CachedJsonResource.acceptsGzip("identity;q=1, *;q=0"));
+        assertFalse(CachedJsonResource.acceptsGzip(""));
+        assertFalse(CachedJsonResource.acceptsGzip("gzip;q=invalid"));
+        assertTrue(CachedJsonResource.acceptsGzip("*;q=0, gzip"));
+        assertTrue(CachedJsonResource.acceptsGzip("gzip;level=1;q=0.1"));
+        assertTrue(CachedJsonResource.acceptsGzip("br;q=1.0, *;q=0.5"));
+        assertTrue(CachedJsonResource.acceptsGzip("x-gzip"));
+    }
+
+}
@@ -0,0 +1,63 @@
+package de.swa.clv.demo.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.swa.clv.demo.model.AccessoryRules;
+import de.swa.clv.demo.model.Article;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactRulesFormatTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void decodedRulesEqualTheJsonRules() throws IOException {
+        ValidationRulesResource rules = new ValidationRulesResource(Article.rules, AccessoryRules.rules);
+        byte[] json = rules.get(null).getJson();
+        byte[] compact = rules.get(CompactRulesFormat.MEDIA_TYPE).getJson();
+
+        assertEquals(objectMapper.readTree(json), CompactRulesFormat.decode(objectMapper.readTree(compact)));
+        assertTrue(compact.length < json.length * 3 / 4, compact.length + " vs. " + json.length);
+    }
+
+    @Test
+    void allValueTypesAreDecoded() throws IOException {
+        JsonNode json = objectMapper.readTree("{\"values\":[\"1\",1,-2.5e-3,12345678901,true,false,null,\"\",{},[]],"
+                + "\"a\":{\"values\":[\"1\",\"x\"]},\"b\":{\"values\":[\"1\",\"x\"]},\"1\":\"values\"}");
+
+        JsonNode compact = CompactRulesFormat.encode(json);
+
+        assertEquals(json, CompactRulesFormat.decode(compact));
+        // the string "1", the number 1 and the repeated object are no literals but table entries
+        assertTrue(compact.get("table").toString().contains("{"));
+    }
+
+    @Test
+    void invalidDocumentsAreRejected() throws IOException {
+        assertThrows(IllegalArgumentException.class,
+                () -> CompactRulesFormat.decode(objectMapper.readTree("{\"schemaVersion\":\"0.12\"}")));
+        // the entry 1 refers to itself
+        JsonNode cyclic = objectMapper.readTree(
+                "{\"format\":\"clv-compact-1\",\"table\":[\"a\",{\"0\":1}],\"rules\":{\"0\":1}}");
+        assertThrows(IllegalArgumentException.class, () -> CompactRulesFormat.decode(cyclic));
+        JsonNode noNumber = objectMapper.readTree(
+                "{\"format\":\"clv-compact-1\",\"table\":[\"a\"],\"rules\":{\"0\":\"a\"}}");
+        assertThrows(IllegalArgumentException.class, () -> CompactRulesFormat.decode(noNumber));
+    }
+
+    @Test
+    void compactFormatIsOnlyServedIfPreferred() {
+        assertTrue(CompactRulesFormat.isPreferred(CompactRulesFormat.MEDIA_TYPE));
+        assertTrue(CompactRulesFormat.isPreferred(CompactRulesFormat.MEDIA_TYPE + ", application/json;q=0.5"));
+        assertTrue(CompactRulesFormat.isPreferred(CompactRulesFormat.MEDIA_TYPE + ", */*"));
+        assertFalse(CompactRulesFormat.isPreferred(null));
+        assertFalse(CompactRulesFormat.isPreferred("*/*"));
+        assertFalse(CompactRulesFormat.isPreferred("application/json, " + CompactRulesFormat.MEDIA_TYPE + ";q=0.9"));
+        assertFalse(CompactRulesFormat.isPreferred(CompactRulesFormat.MEDIA_TYPE + ";q=0"));
+    }
+
+}
@@ -0,0 +1,51 @@
+package de.swa.clv.demo.rest;
+
+import de.swa.clv.demo.model.AccessoryRules;
+import de.swa.clv.demo.model.Article;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValidationRulesResourceTest {
+
+    @Test
+    void resourcesAreKeptWhileTheCalendarsAreUnchanged() {
+        AtomicReference<Duration> offset = new AtomicReference<>(Duration.ZERO);
+        Clock clock = new Clock() {
+
+            @Override
+            public ZoneId getZone() {
+                return ZoneId.systemDefault();
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.now().plus(offset.get());
+            }
+        };
+        ValidationRulesResource resource = new ValidationRulesResource(clock, Article.rules, AccessoryRules.rules);
+        CachedJsonResource json = resource.get();
+        CachedJsonResource compact = resource.get(CompactRulesFormat.MEDIA_TYPE);
+
+        assertSame(json, resource.get());
+        assertSame(json, resource.get(null));
+        assertSame(compact, resource.get(CompactRulesFormat.MEDIA_TYPE));
+
+        // The next day the calendars are checked, as they haven't rolled over the resources are kept
+        offset.set(Duration.ofDays(1));
+        assertSame(json, resource.get());
+        assertSame(compact, resource.get(CompactRulesFormat.MEDIA_TYPE));
+    }
+
+}
@@ -0,0 +1,133 @@
+package de.swa.clv.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.swa.clv.demo.User;
+import de.swa.clv.demo.repository.ArticleRepository;
+import de.swa.clv.demo.repository.InMemoryArticleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+@ExtendWith(MockitoExtension.class)
+class ArticleImportServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Spy
+    private ArticleRepository articleRepository = new InMemoryArticleRepository();
+
+    @InjectMocks
+    private ArticleService articleService;
+
+    private ArticleImportService articleImportService;
+
+    @BeforeEach
+    void setUp() {
+        articleImportService = new ArticleImportService(articleService, objectMapper, 4, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        articleImportService.shutdown();
+    }
+
+    @Test
+    void importNdjson() throws IOException {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            ndjson.append(validArticleJson("Article " + i)).append('\n');
+        }
+
+        List<ArticleImportService.ImportResult> results = importArticles(ndjson.toString());
+
+        assertEquals(100, results.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, results.get(i).index());
+            assertNotNull(results.get(i).id());
+            assertNull(results.get(i).errors());
+        }
+        assertEquals(101, articleRepository.count());
+    }
+
+    @Test
+    void importJsonArrayWithInvalidArticles() throws IOException {
+        String json = "[" + validArticleJson("Valid") + ","
+                + "{\"name\":\"Missing number\",\"status\":\"NEW\"},"
+                + "{\"name\":\"Unknown status\",\"number\":\"N1\",\"status\":\"NOT_A_STATUS\"},"
+                + validArticleJson("diagnostic video colonoscope") + "]";
+
+        List<ArticleImportService.ImportResult> results = importArticles(json);
+
+        assertEquals(4, results.size());
+        assertNotNull(results.get(0).id());
+        assertEquals(List.of("error.validation.mandatory.article.number"), results.get(1).errors());
+        assertEquals(List.of(ArticleImportService.UNREADABLE_ITEM_ERROR_CODE), results.get(2).errors());
+        assertEquals(List.of("error.validation.content.not-unique.article.name"), results.get(3).errors());
+    }
+
+    @Test
+    void importStopsAtSyntaxError() throws IOException {
+        String ndjson = validArticleJson("First") + "\n{\"name\": ]\n" + validArticleJson("Never read");
+
+        List<ArticleImportService.ImportResult> results = importArticles(ndjson);
+
+        assertEquals(2, results.size());
+        assertNotNull(results.get(0).id());
+        assertEquals(List.of(ArticleImportService.UNREADABLE_ITEM_ERROR_CODE), results.get(1).errors());
+    }
+
+    @Test
+    void rejectedArticlesAreReportedAsFailed() throws IOException {
+        articleImportService.shutdown();
+        String ndjson = validArticleJson("First") + "\n" + validArticleJson("Second") + "\n";
+
+        List<ArticleImportService.ImportResult> results = importArticles(ndjson);
+
+        assertEquals(2, results.size());
+        results.forEach(result ->
+                assertEquals(List.of(ArticleImportService.FAILED_ITEM_ERROR_CODE), result.errors()));
+    }
+
+    @Test
+    void failedArticleIsReportedWithErrorCode() throws IOException {
+        doThrow(new IllegalStateException("Journal is closed")).when(articleRepository).insert(any());
+
+        List<ArticleImportService.ImportResult> results = importArticles(validArticleJson("Not stored"));
+
+        assertEquals(List.of(ArticleImportService.FAILED_ITEM_ERROR_CODE), results.get(0).errors());
+    }
+
+    private List<ArticleImportService.ImportResult> importArticles(String body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        articleImportService.importArticles(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out,
+                new User());
+        List<ArticleImportService.ImportResult> results = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readValue(line, ArticleImportService.ImportResult.class));
+        }
+        // results are written in completion order
+        results.sort(Comparator.comparingInt(ArticleImportService.ImportResult::index));
+        return results;
+    }
+
+    private static String validArticleJson(String name) {
+        return "{\"name\":\"" + name + "\",\"number\":\"N-" + name.hashCode() + "\",\"status\":\"NEW\"}";
+    }
+
+}
@@ -0,0 +1,63 @@
+package de.swa.clv.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.swa.clv.demo.model.Article;
+import de.swa.clv.demo.model.Status;
+import de.swa.clv.demo.repository.ArticleQuery;
+import de.swa.clv.demo.repository.InMemoryArticleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArticleQueryServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final InMemoryArticleRepository articleRepository = new InMemoryArticleRepository();
+    private final ArticleQueryService articleQueryService = new ArticleQueryService(articleRepository, objectMapper);
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 5; i++) {
+            Article article = new Article();
+            article.setId(articleRepository.nextId());
+            article.setName("Article " + article.getId());
+            article.setStatus(Status.NEW);
+            articleRepository.insert(article);
+        }
+    }
+
+    @Test
+    void pagesEndWithoutNextCursor() throws IOException {
+        ArticleQuery query = new ArticleQuery(Set.of(Status.NEW), null, null, null, null, null, null);
+
+        JsonNode firstPage = writeArticles(query, null, 3);
+        assertEquals(3, firstPage.get("articles").size());
+        assertEquals(2, firstPage.get("articles").get(0).get("id").asInt());
+        assertEquals("4", firstPage.get("nextCursor").asText());
+
+        JsonNode lastPage = writeArticles(query, query.parseCursor(firstPage.get("nextCursor").asText()), 3);
+        assertEquals(2, lastPage.get("articles").size());
+        assertEquals(6, lastPage.get("articles").get(1).get("id").asInt());
+        assertFalse(lastPage.has("nextCursor"));
+    }
+
+    @Test
+    void limitIsClamped() throws IOException {
+        assertEquals(1, writeArticles(ArticleQuery.ALL, null, 0).get("articles").size());
+        assertEquals(6, writeArticles(ArticleQuery.ALL, null, Integer.MAX_VALUE).get("articles").size());
+        assertEquals(6, writeArticles(ArticleQuery.ALL, null, null).get("articles").size());
+    }
+
+    private JsonNode writeArticles(ArticleQuery query, ArticleQuery.Cursor after, Integer limit) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        articleQueryService.writeArticles(query, after, limit, out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+}
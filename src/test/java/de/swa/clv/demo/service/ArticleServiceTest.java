@@ -1,15 +1,23 @@
 package de.swa.clv.demo.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import de.swa.clv.demo.User;
 import de.swa.clv.demo.model.Accessory;
 import de.swa.clv.demo.model.Article;
 import de.swa.clv.demo.model.Category;
+import de.swa.clv.demo.model.Status;
+import de.swa.clv.demo.repository.ArticleRepository;
+import de.swa.clv.demo.repository.InMemoryArticleRepository;
 import de.swa.clv.demo.validation.ValidationException;
+import de.swa.clv.demo.validation.ValidationResult;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -18,6 +26,12 @@ import static org.junit.jupiter.api.Assertions.*;
 @ExtendWith(MockitoExtension.class)
 class ArticleServiceTest {
 
+    @Spy
+    private ArticleRepository articleRepository = new InMemoryArticleRepository();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     @InjectMocks
     private ArticleService articleService;
 
@@ -43,11 +57,11 @@ class ArticleServiceTest {
                 new Accessory("Acc2", 20)));
         User user = new User();
 
-        ValidationException validationErrors = assertThrows(ValidationException.class,
-                () -> articleService.createArticle(article, user));
+        ArticleService.ArticleResult result = articleService.createArticle(article, user);
 
-        List<String> fieldErrors = validationErrors.getFieldErrors();
-        assertNotNull(fieldErrors);
+        assertFalse(result.isValid());
+        assertNull(result.article());
+        List<String> fieldErrors = result.validation().getErrors();
         System.out.println(fieldErrors);
         assertEquals(13, fieldErrors.size());
         assertTrue(fieldErrors.contains("error.validation.mandatory.article.name"));
@@ -64,4 +78,103 @@ class ArticleServiceTest {
         assertTrue(fieldErrors.contains("error.validation.content.range.article.accessories[0/1].amount#sum"));
         assertTrue(fieldErrors.contains("error.validation.content.size.article.accessories"));
     }
+
+    @Test
+    void validateNewArticleDoesNotStoreOrThrow() {
+        Article article = new Article();
+        article.setName("diagnostic video colonoscope");
+        article.setNumber("N-1");
+        article.setStatus(Status.NEW);
+        int count = articleRepository.count();
+
+        ValidationResult result = articleService.validateNewArticle(article, new User());
+
+        assertFalse(result.isValid());
+        assertEquals(List.of("error.validation.content.not-unique.article.name"), result.getErrors());
+        assertEquals(count, articleRepository.count());
+    }
+
+    @Test
+    void validateEditedArticle() {
+        Article current = articleRepository.findById(1).orElseThrow();
+        Article edited = new Article(null, current.getName(), current.getNumber(), Status.NEW,
+                current.getMaintenanceIntervalMonth(), current.getMaintenanceNextDate(), current.getCategory(),
+                current.getSubCategory(), current.getAccessories(), current.getLastModifiedOn());
+
+        ValidationResult result = articleService.validateEditedArticle(edited, 1, new User()).orElseThrow();
+
+        assertFalse(result.isValid());
+        // ACTIVE -> NEW is not allowed
+        assertEquals(List.of("error.validation.update.equals_any.article.status"), result.getErrors());
+        assertSame(current, articleRepository.findById(1).orElseThrow());
+        assertTrue(articleService.validateEditedArticle(edited, 42, new User()).isEmpty());
+    }
+
+    @Test
+    void updateIncrementsVersion() {
+        Article current = articleRepository.findById(1).orElseThrow();
+
+        Article updated = articleService.updateArticle(copyWithNumber(current, "N-2"), 0, new User()).orElseThrow();
+
+        assertEquals(1, updated.getVersion());
+        assertSame(updated, articleRepository.findById(1).orElseThrow());
+        assertThrows(StaleArticleException.class,
+                () -> articleService.updateArticle(copyWithNumber(current, "N-3"), 0, new User()));
+        assertEquals("N-2", articleRepository.findById(1).orElseThrow().getNumber());
+    }
+
+    @Test
+    void staleUpdateFailsBeforeValidation() {
+        Article current = articleRepository.findById(1).orElseThrow();
+        Article edited = copyWithNumber(current, null); // violates the mandatory rule of number
+
+        StaleArticleException exception = assertThrows(StaleArticleException.class,
+                () -> articleService.updateArticle(edited, 5, new User()));
+
+        assertEquals(List.of("error.validation.immutable.article.lastModifiedOn"), exception.getFieldErrors());
+        assertEquals(0, exception.getStackTrace().length);
+        assertSame(current, articleRepository.findById(1).orElseThrow());
+    }
+
+    @Test
+    void patchOnlyChangesPatchedProperties() throws IOException {
+        Article current = articleRepository.findById(1).orElseThrow();
+        ObjectNode patch = (ObjectNode) objectMapper.readTree("{\"everLeftWarehouse\":true,\"id\":42}");
+
+        Article patched = articleService.patchArticle(1, patch, 0, new User()).orElseThrow();
+
+        assertSame(patched, articleRepository.findById(1).orElseThrow());
+        assertEquals(1, patched.getId());
+        assertEquals(1, patched.getVersion());
+        assertTrue(patched.isEverLeftWarehouse());
+        assertEquals(current.getName(), patched.getName());
+        assertSame(current.getAccessories(), patched.getAccessories());
+        assertFalse(current.isEverLeftWarehouse());
+    }
+
+    @Test
+    void patchFailsLikeFullUpdate() throws IOException {
+        Article current = articleRepository.findById(1).orElseThrow();
+        Article edited = new Article(current);
+        edited.setStatus(Status.NEW);
+        edited.setNumber(null);
+        List<String> expectedErrors = articleService.validateEditedArticle(edited, 1, new User()).orElseThrow()
+                .getErrors();
+        ObjectNode patch = (ObjectNode) objectMapper.readTree("{\"status\":\"NEW\",\"number\":null}");
+
+        ArticleService.ArticleResult result = articleService.patchArticle(1, patch, 0, new User());
+
+        assertEquals(2, expectedErrors.size());
+        assertEquals(expectedErrors, result.validation().getErrors());
+        ValidationException exception = assertThrows(ValidationException.class, result::orElseThrow);
+        assertEquals(expectedErrors, exception.getFieldErrors());
+        assertEquals(0, exception.getStackTrace().length);
+        assertSame(current, articleRepository.findById(1).orElseThrow());
+    }
+
+    private static Article copyWithNumber(Article article, String number) {
+        return new Article(article.getId(), article.getName(), number, article.getStatus(),
+                article.getMaintenanceIntervalMonth(), article.getMaintenanceNextDate(), article.getCategory(),
+                article.getSubCategory(), article.getAccessories(), article.getLastModifiedOn());
+    }
 }
@@ -0,0 +1,74 @@
+package de.swa.clv.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValidationMessageCatalogTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ValidationMessageCatalog catalog = new ValidationMessageCatalog(objectMapper, List.of("en", "de"));
+
+    @Test
+    void everyEmittableErrorCodeHasAMessageInEachLocale() throws IOException {
+        List<String> errorCodes = ValidationMessageCatalog.emittableErrorCodes();
+
+        assertTrue(errorCodes.contains("error.validation.content.equals_any.article.category"));
+        assertTrue(errorCodes.contains("error.validation.mandatory.accessory.name"));
+        for (String acceptLanguage : List.of("en", "de")) {
+            Map<String, String> messages = messages(acceptLanguage);
+            errorCodes.forEach(errorCode -> assertTrue(messages.containsKey(errorCode), errorCode));
+        }
+    }
+
+    @Test
+    void missingMessageFailsAtStartup() {
+        List<String> errorCodes = List.of("error.validation.mandatory.article.name", "error.validation.unknown");
+
+        assertThrows(IllegalStateException.class,
+                () -> new ValidationMessageCatalog(objectMapper, List.of(Locale.ENGLISH), errorCodes));
+    }
+
+    @Test
+    void missingLocaleBundleFailsAtStartup() {
+        List<Locale> locales = List.of(Locale.ENGLISH, Locale.FRENCH);
+
+        assertThrows(IllegalStateException.class, () -> new ValidationMessageCatalog(objectMapper, locales, List.of()));
+    }
+
+    @Test
+    void placeholdersAreResolved() throws IOException {
+        assertEquals("The sum of the quantities is too large (max 20).",
+                messages("en").get("error.validation.content.range.article.accessories[0/1].amount#sum"));
+        assertEquals("Zubehörnamen müssen '^[\\p{L}][\\p{L}\\p{N} ]*$' entsprechen 🙂.",
+                messages("de").get("error.validation.content.regex_any.article.accessories[*].name"));
+    }
+
+    @Test
+    void localeIsChosenByAcceptLanguage() {
+        assertEquals(Locale.GERMAN, catalog.lookupLocale("de-DE,de;q=0.9,en;q=0.8"));
+        assertEquals(Locale.ENGLISH, catalog.lookupLocale("fr-CH, fr;q=0.9, en;q=0.8"));
+        assertEquals(Locale.ENGLISH, catalog.lookupLocale("fr"));
+        assertEquals(Locale.ENGLISH, catalog.lookupLocale(null));
+        assertEquals(Locale.ENGLISH, catalog.lookupLocale("not a language range"));
+        assertSame(catalog.getMessages("de"), catalog.getMessages("de-AT"));
+        assertEquals(Locale.GERMAN, catalog.getMessages("de").getContentLanguage());
+    }
+
+    @Test
+    void messageMapEqualsTheServedMessages() throws IOException {
+        assertEquals(messages("de"), catalog.getMessageMap("de-AT"));
+        assertEquals(messages("en"), catalog.getMessageMap(null));
+    }
+
+    private Map<String, String> messages(String acceptLanguage) throws IOException {
+        return objectMapper.readValue(catalog.getMessages(acceptLanguage).getJson(), Map.class);
+    }
+
+}
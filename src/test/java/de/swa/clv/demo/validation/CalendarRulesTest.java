@@ -0,0 +1,99 @@
+package de.swa.clv.demo.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.swa.clv.demo.model.AccessoryRules;
+import de.swa.clv.demo.model.Article;
+import de.swa.clv.demo.model.PermissionSet;
+import de.swa.clv.demo.model.Status;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalendarRulesTest {
+
+    private static final String VACATION_ERROR_CODE =
+            "error.validation.content.equals_none.article.maintenanceNextDate";
+
+    private final ValidationRulesCheck validationRulesCheck = new ValidationRulesCheck() {
+    };
+
+    @Test
+    void vacationDaysAreTheUpcomingAugustDays() {
+        List<DayCalendar.DateRange> ranges = Article.COMPANY_VACATION_DAYS.current().ranges();
+
+        long days = 0;
+        for (DayCalendar.DateRange range : ranges) {
+            assertEquals(Month.AUGUST, range.from().getMonth());
+            assertEquals(Month.AUGUST, range.to().getMonth());
+            assertTrue(range.from().isAfter(LocalDate.now()));
+            days += range.to().toEpochDay() - range.from().toEpochDay() + 1;
+        }
+        assertEquals(31, days);
+    }
+
+    @Test
+    void dateOnVacationDayFails() {
+        LocalDate vacationDay = Article.COMPANY_VACATION_DAYS.current().ranges().get(0).from();
+        LocalDate workingDay = vacationDay.minusDays(1);
+
+        assertTrue(Article.COMPANY_VACATION_DAYS.contains(vacationDay));
+        assertEquals(List.of(VACATION_ERROR_CODE), CalendarRules.validate(Article.rules, article(vacationDay),
+                new ArrayList<>()));
+        assertEquals(List.of(), CalendarRules.validate(Article.rules, article(workingDay), new ArrayList<>()));
+        assertEquals(List.of(), CalendarRules.validate(Article.rules, article(null), new ArrayList<>()));
+        assertTrue(validationRulesCheck.getValidationErrors(article(vacationDay), PermissionSet.EMPTY)
+                .contains(VACATION_ERROR_CODE));
+    }
+
+    @Test
+    void errorIsAddedAtThePositionOfTheRule() {
+        LocalDate vacationDay = Article.COMPANY_VACATION_DAYS.current().ranges().get(0).from();
+        String weekdayErrorCode = "error.validation.content.weekday_any.article.maintenanceNextDate";
+        String futureDaysErrorCode = "error.validation.content.future_days.article.maintenanceNextDate";
+        String categoryErrorCode = "error.validation.content.equals_any.article.category";
+
+        assertEquals(List.of(weekdayErrorCode, VACATION_ERROR_CODE, futureDaysErrorCode, categoryErrorCode),
+                CalendarRules.validate(Article.rules, article(vacationDay),
+                        new ArrayList<>(List.of(weekdayErrorCode, futureDaysErrorCode, categoryErrorCode))));
+        assertEquals(List.of(weekdayErrorCode, VACATION_ERROR_CODE),
+                CalendarRules.validate(Article.rules, article(vacationDay), new ArrayList<>(List.of(weekdayErrorCode))));
+    }
+
+    @Test
+    void rulesAreSerializedAsRanges() throws IOException {
+        JsonNode root = new ObjectMapper().readTree(ClientRules.serializeToJson(Article.rules,
+                AccessoryRules.rules));
+
+        JsonNode rules = root.path("contentRules").path("article").path("maintenanceNextDate");
+        assertEquals("WEEKDAY_ANY", rules.get(0).path("constraint").path("type").asText());
+        assertEquals("CALENDAR_NONE", rules.get(1).path("constraint").path("type").asText());
+        assertEquals("FUTURE_DAYS", rules.get(2).path("constraint").path("type").asText());
+        assertEquals(VACATION_ERROR_CODE, rules.get(1).path("errorCodeControl").path("code").asText());
+        JsonNode constraint = rules.get(1).get("constraint");
+        LocalDate firstDay = LocalDate.parse(constraint.path("ranges").get(0).get(0).asText());
+        LocalDate lastDay = LocalDate.parse(constraint.path("ranges").get(constraint.path("ranges").size() - 1)
+                .get(1).asText());
+        assertTrue(Article.COMPANY_VACATION_DAYS.contains(firstDay));
+        assertTrue(Article.COMPANY_VACATION_DAYS.contains(lastDay));
+        assertEquals(List.of(VACATION_ERROR_CODE), CalendarRules.getErrorCodes(Article.rules));
+        assertEquals(List.of(), CalendarRules.getErrorCodes(AccessoryRules.rules));
+    }
+
+    private static Article article(LocalDate maintenanceNextDate) {
+        Article article = new Article();
+        article.setName("Laryngoscope");
+        article.setNumber("L-1");
+        article.setStatus(Status.NEW);
+        article.setMaintenanceIntervalMonth((short) 6);
+        article.setMaintenanceNextDate(maintenanceNextDate);
+        return article;
+    }
+
+}
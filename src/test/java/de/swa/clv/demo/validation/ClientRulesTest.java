@@ -0,0 +1,32 @@
+package de.swa.clv.demo.validation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.swa.clv.demo.model.AccessoryRules;
+import de.swa.clv.demo.model.Article;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientRulesTest {
+
+    @Test
+    void serverOnlyRulesAreNotServed() throws IOException {
+        JsonNode root = new ObjectMapper().readTree(ClientRules.serializeToJson(Article.rules,
+                AccessoryRules.rules));
+
+        assertFalse(root.path("contentRules").path("article").has("subCategory"));
+        assertTrue(root.path("contentRules").path("article").has("category"));
+        assertTrue(CompiledValidationRules.get(Article.rules).getErrorCodes()
+                .contains("error.validation.content.equals_any_ref.article.subCategory"));
+    }
+
+    @Test
+    void rulesWithoutCalendarAndServerOnlyRulesAreServedAsSerialized() {
+        assertEquals(SerializedRules.serializeToJson(AccessoryRules.rules),
+                ClientRules.serializeToJson(AccessoryRules.rules));
+    }
+
+}
@@ -0,0 +1,157 @@
+package de.swa.clv.demo.validation;
+
+import de.swa.clv.UserPermissions;
+import de.swa.clv.demo.model.Accessory;
+import de.swa.clv.demo.model.AccessoryRules;
+import de.swa.clv.demo.model.Article;
+import de.swa.clv.demo.model.Category;
+import de.swa.clv.demo.model.PermissionSet;
+import de.swa.clv.demo.model.Status;
+import de.swa.clv.demo.model.SubCategory;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static de.swa.clv.demo.validation.ValidatorProvider.VALIDATOR;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential test: the compiled rules must give exactly the same error lists as the generic validator, and the
+ * change-aware validation of updates the same as the validation of all rules.
+ */
+class CompiledValidationRulesTest {
+
+    private static final int CORPUS_SIZE = 20_000;
+
+    private final RandomArticles randomArticles = new RandomArticles(4711);
+
+    @Test
+    void rulesAreCompiled() {
+        assertNotNull(CompiledValidationRules.get(Article.rules));
+        assertNotNull(CompiledValidationRules.get(AccessoryRules.rules));
+    }
+
+    @Test
+    void newArticlesGiveSameErrorsAsValidator() {
+        CompiledValidationRules<?> compiledRules = CompiledValidationRules.get(Article.rules);
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            Article article = randomArticles.next();
+            PermissionSet permissions = randomArticles.nextPermissions();
+            UserPermissions userPermissions = permissions.toUserPermissions();
+
+            assertEquals(VALIDATOR.validateMandatoryRules(article, userPermissions, Article.rules),
+                    compiledRules.validateMandatoryRules(article, permissions), sample(i));
+            assertEquals(VALIDATOR.validateContentRules(article, userPermissions, Article.rules),
+                    compiledRules.validateContentRules(article, permissions), sample(i));
+        }
+    }
+
+    @Test
+    void editedArticlesGiveSameErrorsAsValidator() {
+        CompiledValidationRules<?> compiledRules = CompiledValidationRules.get(Article.rules);
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            Article current = randomArticles.next();
+            Article edited = randomArticles.nextEdited(current);
+            PermissionSet permissions = randomArticles.nextPermissions();
+            UserPermissions userPermissions = permissions.toUserPermissions();
+
+            assertEquals(VALIDATOR.validateMandatoryRules(edited, userPermissions, Article.rules),
+                    compiledRules.validateMandatoryRules(edited, permissions), sample(i));
+            assertEquals(VALIDATOR.validateContentRules(edited, userPermissions, Article.rules),
+                    compiledRules.validateContentRules(edited, permissions), sample(i));
+            assertEquals(VALIDATOR.validateImmutableRules(current, edited, userPermissions, Article.rules),
+                    compiledRules.validateImmutableRules(current, edited, permissions), sample(i));
+            assertEquals(VALIDATOR.validateUpdateRules(current, edited, userPermissions, Article.rules),
+                    compiledRules.validateUpdateRules(current, edited, permissions), sample(i));
+        }
+    }
+
+    @Test
+    void accessoriesGiveSameErrorsAsValidator() {
+        CompiledValidationRules<?> compiledRules = CompiledValidationRules.get(AccessoryRules.rules);
+        for (int i = 0; i < CORPUS_SIZE / 10; i++) {
+            Accessory accessory = randomArticles.nextAccessory();
+            UserPermissions userPermissions = PermissionSet.EMPTY.toUserPermissions();
+
+            assertEquals(VALIDATOR.validateMandatoryRules(accessory, userPermissions, AccessoryRules.rules),
+                    compiledRules.validateMandatoryRules(accessory, PermissionSet.EMPTY), sample(i));
+            assertEquals(VALIDATOR.validateContentRules(accessory, userPermissions, AccessoryRules.rules),
+                    compiledRules.validateContentRules(accessory, PermissionSet.EMPTY), sample(i));
+        }
+    }
+
+    @Test
+    void changedRulesGiveSameErrorsAsAllRules() {
+        CompiledValidationRules<?> compiledRules = CompiledValidationRules.get(Article.rules);
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            Article current = randomArticles.nextStored();
+            Article edited = randomArticles.nextEdited(current);
+            PermissionSet permissions = randomArticles.nextPermissions();
+
+            List<String> allErrors = compiledRules.validateMandatoryRules(edited, permissions);
+            allErrors.addAll(compiledRules.validateContentRules(edited, permissions));
+            allErrors.addAll(compiledRules.validateImmutableRules(current, edited, permissions));
+            allErrors.addAll(compiledRules.validateUpdateRules(current, edited, permissions));
+            assertEquals(allErrors, compiledRules.validateChangedRules(current, edited, permissions), sample(i));
+        }
+    }
+
+    @Test
+    void changedConditionAndRefPropertiesAreDependencies() {
+        CompiledValidationRules<?> compiledRules = CompiledValidationRules.get(Article.rules);
+        Article current = new Article(1, "Name 42", "N-1", Status.ACTIVE, null, null, Category.ENDOSCOPY,
+                SubCategory.SINUSCOPE, List.of(), new Date(0));
+        Article edited = new Article(1, "Name 42", "N-1", Status.ACTIVE, (short) 3, null, Category.IMAGING_SYSTEM,
+                SubCategory.SINUSCOPE, List.of(), new Date(0));
+
+        assertEquals(List.of("error.validation.mandatory.article.maintenanceNextDate",
+                        "error.validation.content.equals_any_ref.article.subCategory"),
+                compiledRules.validateChangedRules(current, edited, PermissionSet.EMPTY));
+    }
+
+    @Test
+    void invalidCurrentArticleGivesSameErrorsAsAllRules() {
+        // e.g. stored before the name rule was added: the unchanged name doesn't pass the content rules
+        CompiledValidationRules<?> compiledRules = CompiledValidationRules.get(Article.rules);
+        Article current = new Article(1, "ab", "N-1", Status.ACTIVE, null, null, null, null, List.of(), new Date(0));
+        Article edited = new Article(1, "ab", "N-1", Status.INACTIVE, null, null, null, null, List.of(), new Date(0));
+
+        List<String> allErrors = compiledRules.validateMandatoryRules(edited, PermissionSet.EMPTY);
+        allErrors.addAll(compiledRules.validateContentRules(edited, PermissionSet.EMPTY));
+        allErrors.addAll(compiledRules.validateImmutableRules(current, edited, PermissionSet.EMPTY));
+        allErrors.addAll(compiledRules.validateUpdateRules(current, edited, PermissionSet.EMPTY));
+        assertEquals(List.of("error.validation.content.regex_any.article.name"), allErrors);
+        assertEquals(allErrors, compiledRules.validateChangedRules(current, edited, PermissionSet.EMPTY));
+    }
+
+    @Test
+    void invalidArticleGivesAllErrors() {
+        Article article = new Article();
+        article.setAccessories(List.of(new Accessory("...", 0)));
+
+        List<String> errors = CompiledValidationRules.get(Article.rules).validateContentRules(article,
+                PermissionSet.EMPTY);
+
+        assertEquals(List.of("error.validation.content.regex_any.article.name",
+                "error.validation.content.equals_any.article.status#initial",
+                "error.validation.content.regex_any.article.accessories[*].name",
+                "error.validation.content.range.article.accessories[*].amount"), errors);
+    }
+
+    @Test
+    void duplicateAccessoryNamesGiveSameErrorsAsValidator() {
+        Article article = new Article();
+        article.setAccessories(List.of(new Accessory("Acc1", 1), new Accessory("Acc1", 1)));
+        UserPermissions userPermissions = PermissionSet.EMPTY.toUserPermissions();
+
+        assertEquals(VALIDATOR.validateContentRules(article, userPermissions, Article.rules),
+                CompiledValidationRules.get(Article.rules).validateContentRules(article, PermissionSet.EMPTY));
+    }
+
+    private static Supplier<String> sample(int index) {
+        return () -> "Sample #" + index + " of the corpus";
+    }
+
+}
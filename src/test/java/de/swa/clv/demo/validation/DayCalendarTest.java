@@ -0,0 +1,86 @@
+package de.swa.clv.demo.validation;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DayCalendarTest {
+
+    private static final LocalDate AUGUST_1 = LocalDate.of(2025, 8, 1);
+
+    @Test
+    void containsOnlyTheGivenDays() {
+        DayCalendar calendar = DayCalendar.of(List.of(AUGUST_1, AUGUST_1.plusDays(1), AUGUST_1.plusDays(100)));
+
+        assertTrue(calendar.contains(AUGUST_1));
+        assertTrue(calendar.contains(AUGUST_1.plusDays(1)));
+        assertTrue(calendar.contains(AUGUST_1.plusDays(100)));
+        assertFalse(calendar.contains(AUGUST_1.minusDays(1)));
+        assertFalse(calendar.contains(AUGUST_1.plusDays(2)));
+        assertFalse(calendar.contains(AUGUST_1.plusDays(101)));
+        assertFalse(calendar.contains(AUGUST_1.plusYears(1000)));
+        assertFalse(DayCalendar.EMPTY.contains(AUGUST_1));
+    }
+
+    @Test
+    void rangesAreConsecutiveDays() {
+        DayCalendar calendar = DayCalendar.of(List.of(AUGUST_1.plusDays(63), AUGUST_1, AUGUST_1.plusDays(64),
+                AUGUST_1.plusDays(1), AUGUST_1.plusDays(65)));
+
+        assertEquals(List.of(new DayCalendar.DateRange(AUGUST_1, AUGUST_1.plusDays(1)),
+                new DayCalendar.DateRange(AUGUST_1.plusDays(63), AUGUST_1.plusDays(65))), calendar.ranges());
+        assertEquals(List.of(), DayCalendar.EMPTY.ranges());
+    }
+
+    @Test
+    void calendarsWithSameDaysAreEqual() {
+        DayCalendar calendar = DayCalendar.of(List.of(AUGUST_1, AUGUST_1.plusDays(3)));
+
+        assertEquals(calendar, DayCalendar.of(List.of(AUGUST_1.plusDays(3), AUGUST_1, AUGUST_1)));
+        assertEquals(calendar.hashCode(), DayCalendar.of(List.of(AUGUST_1.plusDays(3), AUGUST_1)).hashCode());
+        assertNotEquals(calendar, DayCalendar.of(List.of(AUGUST_1.plusDays(1), AUGUST_1.plusDays(4))));
+        assertEquals(DayCalendar.EMPTY, DayCalendar.of(List.of()));
+    }
+
+    @Test
+    void tooLongSpanIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> DayCalendar.of(List.of(AUGUST_1, AUGUST_1.plusYears(200))));
+    }
+
+    @Test
+    void rollingCalendarIsComputedAgainOnDateRollover() {
+        MutableClock clock = new MutableClock(AUGUST_1.minusDays(1));
+        AtomicInteger computations = new AtomicInteger();
+        // The upcoming day 1st of a month
+        RollingCalendar rollingCalendar = new RollingCalendar(clock, today -> {
+            computations.incrementAndGet();
+            return DayCalendar.of(List.of(today.withDayOfMonth(1).plusMonths(1)));
+        });
+
+        DayCalendar july = rollingCalendar.current();
+        assertTrue(rollingCalendar.contains(AUGUST_1));
+        assertSame(july, rollingCalendar.current());
+        assertEquals(1, computations.get());
+        assertEquals(0, rollingCalendar.generation());
+
+        clock.day = AUGUST_1;
+        assertFalse(rollingCalendar.contains(AUGUST_1));
+        assertTrue(rollingCalendar.contains(AUGUST_1.plusMonths(1)));
+        assertEquals(2, computations.get());
+        assertEquals(1, rollingCalendar.generation());
+
+        clock.day = AUGUST_1.plusDays(1);
+        DayCalendar august = rollingCalendar.current();
+        assertSame(august, rollingCalendar.current());
+        assertNotSame(july, august);
+        assertEquals(3, computations.get());
+        // Same days as the day before
+        assertEquals(1, rollingCalendar.generation());
+    }
+
+}
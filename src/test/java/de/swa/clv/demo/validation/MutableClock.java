@@ -0,0 +1,32 @@
+package de.swa.clv.demo.validation;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+// A clock at the start of a day that the test can change
+final class MutableClock extends Clock {
+
+    volatile LocalDate day;
+
+    MutableClock(LocalDate day) {
+        this.day = day;
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return this;
+    }
+
+    @Override
+    public Instant instant() {
+        return day.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+}
@@ -0,0 +1,137 @@
+package de.swa.clv.demo.validation;
+
+import de.swa.clv.demo.model.Accessory;
+import de.swa.clv.demo.model.Article;
+import de.swa.clv.demo.model.Category;
+import de.swa.clv.demo.model.Permission;
+import de.swa.clv.demo.model.PermissionSet;
+import de.swa.clv.demo.model.Status;
+import de.swa.clv.demo.model.SubCategory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+// Generates articles that hit the rules of Article from both sides, i.e. valid and invalid values for each property
+class RandomArticles {
+
+    private static final String[] NAMES = {null, "", "ab", "abc", " Leading blank", "Trailing blank ",
+            "Diagnostic Video Colonoscope", "A name that is longer than 30 chars", "Äöü Ñame", "Name 42"};
+    private static final String[] NUMBERS = {null, "", "DVC-H123T/Z", "N-1"};
+    private static final String[] ACCESSORY_NAMES = {null, "", "Biopsy Forcep", "Polyp Traps", "1st Trap", "Zange",
+            "Schlinge ä", "Trap!"};
+    private static final String[] VALID_NAMES = {"abc", "Diagnostic Video Colonoscope", "Äöü Ñame", "Name 42"};
+    private static final String[] VALID_ACCESSORY_NAMES = {"Biopsy Forcep", "Polyp Traps", "Zange", "Schlinge ä"};
+    private static final Date LAST_MODIFIED_ON = new Date(1_700_000_000_000L);
+
+    private final Random random;
+
+    RandomArticles(long seed) {
+        this.random = new Random(seed);
+    }
+
+    Article next() {
+        Article article = new Article(random.nextBoolean() ? null : 1 + random.nextInt(3), pick(NAMES),
+                pick(NUMBERS), pickOrNull(Status.values()), nextInterval(), nextDate(), pickOrNull(Category.values()),
+                pickOrNull(SubCategory.values()), nextAccessories(),
+                random.nextInt(4) == 0 ? new Date() : LAST_MODIFIED_ON);
+        article.setAnimalUse(random.nextBoolean());
+        article.setEverLeftWarehouse(random.nextBoolean());
+        article.setMedicalSet(random.nextBoolean() ? null : "Set " + random.nextInt(2));
+        return article;
+    }
+
+    /**
+     * An article like the ones in the repository, i.e. one with an id and (mostly) valid values. Whether it really
+     * passes the rules is left to the caller, e.g. its maintenance date may be on a weekend.
+     */
+    Article nextStored() {
+        Category category = pickOrNull(Category.values());
+        LocalDate maintenanceNextDate = random.nextBoolean() ? null : LocalDate.now().plusDays(random.nextInt(400));
+        List<String> accessoryNames = new ArrayList<>(Arrays.asList(VALID_ACCESSORY_NAMES));
+        Collections.shuffle(accessoryNames, random);
+        List<Accessory> accessories = new ArrayList<>();
+        for (String accessoryName : accessoryNames.subList(0, random.nextInt(4))) {
+            accessories.add(new Accessory(accessoryName, 1 + random.nextInt(10)));
+        }
+        return new Article(1 + random.nextInt(3), pick(VALID_NAMES), pick(NUMBERS), pick(Status.values()),
+                maintenanceNextDate == null ? null : (short) (1 + random.nextInt(24)), maintenanceNextDate, category,
+                category == null ? null : pick(category.getSubCategories().toArray(new SubCategory[0])), accessories,
+                LAST_MODIFIED_ON);
+    }
+
+    /**
+     * A copy of the article in which each property is changed with a probability of 1/3.
+     */
+    Article nextEdited(Article current) {
+        Article edited = new Article(current.getId(), current.getName(), current.getNumber(), current.getStatus(),
+                current.getMaintenanceIntervalMonth(), current.getMaintenanceNextDate(), current.getCategory(),
+                current.getSubCategory(), current.getAccessories(), current.getLastModifiedOn());
+        edited.setAnimalUse(current.isAnimalUse());
+        edited.setEverLeftWarehouse(current.isEverLeftWarehouse());
+        edited.setMedicalSet(current.getMedicalSet());
+        Article other = next();
+        if (changeProperty()) edited.setName(other.getName());
+        if (changeProperty()) edited.setNumber(other.getNumber());
+        if (changeProperty()) edited.setStatus(other.getStatus());
+        if (changeProperty()) edited.setMaintenanceIntervalMonth(other.getMaintenanceIntervalMonth());
+        if (changeProperty()) edited.setMaintenanceNextDate(other.getMaintenanceNextDate());
+        if (changeProperty()) edited.setCategory(other.getCategory());
+        if (changeProperty()) edited.setSubCategory(other.getSubCategory());
+        if (changeProperty()) edited.setAccessories(other.getAccessories());
+        if (changeProperty()) edited.setLastModifiedOn(other.getLastModifiedOn());
+        if (changeProperty()) edited.setAnimalUse(other.isAnimalUse());
+        if (changeProperty()) edited.setEverLeftWarehouse(other.isEverLeftWarehouse());
+        if (changeProperty()) edited.setMedicalSet(other.getMedicalSet());
+        return edited;
+    }
+
+    Accessory nextAccessory() {
+        return new Accessory(pick(ACCESSORY_NAMES), random.nextInt(14) - 2);
+    }
+
+    PermissionSet nextPermissions() {
+        return PermissionSet.of(Arrays.stream(Permission.values()).filter(permission -> random.nextBoolean())
+                .toArray(Permission[]::new));
+    }
+
+    private boolean changeProperty() {
+        return random.nextInt(3) == 0;
+    }
+
+    private Short nextInterval() {
+        return random.nextInt(3) == 0 ? null : (short) random.nextInt(25);
+    }
+
+    // Mostly around the allowed range of 1 to 365 days in the future, sometimes in the (vacation) month of August
+    private LocalDate nextDate() {
+        LocalDate today = LocalDate.now();
+        return switch (random.nextInt(4)) {
+            case 0 -> null;
+            case 1 -> LocalDate.of(today.getYear() + random.nextInt(2), 8, 1 + random.nextInt(31));
+            default -> today.plusDays(random.nextInt(400) - 20L);
+        };
+    }
+
+    private List<Accessory> nextAccessories() {
+        List<Accessory> accessories = new ArrayList<>();
+        int size = random.nextInt(6);
+        for (int i = 0; i < size; i++) {
+            accessories.add(nextAccessory());
+        }
+        return accessories;
+    }
+
+    private <T> T pick(T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private <T> T pickOrNull(T[] values) {
+        return random.nextInt(values.length + 1) == 0 ? null : pick(values);
+    }
+
+}
@@ -0,0 +1,58 @@
+package de.swa.clv.demo.validation;
+
+import de.swa.clv.ValidationRules;
+import de.swa.clv.demo.model.Accessory;
+import de.swa.clv.demo.model.AccessoryRules;
+import de.swa.clv.demo.model.Article;
+import de.swa.clv.demo.model.Category;
+import de.swa.clv.demo.model.Permission;
+import de.swa.clv.demo.model.Status;
+import de.swa.clv.demo.model.SubCategory;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerializedRulesTest {
+
+    // With the Maven build the rules are read from target/classes/clv-rules
+    @Test
+    void servedRulesEqualTheSerializedRules() {
+        assertEquals(ValidationRules.serializeToJson(Article.rules, AccessoryRules.rules),
+                SerializedRules.serializeToJson(Article.rules, AccessoryRules.rules));
+    }
+
+    @Test
+    void unnamedRulesAreSerialized() {
+        ValidationRules<Accessory> rules = new ValidationRules<>(Accessory.class);
+        rules.mandatory("name");
+
+        assertEquals(rules.serializeToJson(), SerializedRules.serializeToJson(rules));
+    }
+
+    @Test
+    void fingerprintDependsOnTheClassFiles() {
+        String fingerprint = SerializedRules.fingerprint(Article.class.getName(), AccessoryRules.class.getName());
+
+        assertEquals(64, fingerprint.length());
+        assertEquals(fingerprint,
+                SerializedRules.fingerprint(Article.class.getName(), AccessoryRules.class.getName()));
+        assertNotEquals(fingerprint, SerializedRules.fingerprint(Article.class.getName()));
+        assertEquals("", SerializedRules.fingerprint("de.swa.clv.demo.model.NoSuchRules"));
+    }
+
+    @Test
+    void fingerprintCoversTheModelPackageAndTheLibrary() throws Exception {
+        Path classesDirectory = Path.of(Article.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+
+        List<String> classNames = SerializedRulesGenerator.fingerprintedClasses(classesDirectory);
+
+        assertTrue(classNames.containsAll(List.of(Article.class.getName(), AccessoryRules.class.getName(),
+                Category.class.getName(), SubCategory.class.getName(), Status.class.getName(),
+                Permission.class.getName(), ValidationRules.class.getName())));
+        assertEquals(64, SerializedRules.fingerprint(classNames.toArray(String[]::new)).length());
+    }
+
+}
@@ -0,0 +1,69 @@
+package de.swa.clv.demo.validation;
+
+import de.swa.clv.demo.model.Article;
+import de.swa.clv.demo.model.PermissionSet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValidationMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void recordsRuleTypesAndErrors() {
+        ValidationMetrics metrics = new ValidationMetrics(registry, true);
+
+        List<String> errors = validationRulesCheck(metrics).getValidationErrors(new Article(), PermissionSet.EMPTY);
+
+        assertTrue(errors.contains("error.validation.mandatory.article.name"));
+        assertEquals(1, registry.get(ValidationMetrics.RULES_TIMER).tag("ruleType", "mandatory")
+                .tag("type", "Article").timer().count());
+        assertEquals(1, registry.get(ValidationMetrics.RULES_TIMER).tag("ruleType", "content")
+                .tag("type", "Article").timer().count());
+        assertEquals(1.0, registry.get(ValidationMetrics.ERRORS_COUNTER)
+                .tag("code", "error.validation.mandatory.article.name").counter().count());
+    }
+
+    @Test
+    void recordsEndpoints() {
+        ValidationMetrics metrics = new ValidationMetrics(registry, true);
+
+        metrics.recordEndpoint("POST /article", metrics.start());
+        metrics.recordEndpoint("POST /article", metrics.start());
+
+        assertEquals(2, registry.get(ValidationMetrics.ENDPOINT_TIMER).tag("endpoint", "POST /article").timer()
+                .count());
+    }
+
+    @Test
+    void recordsNothingIfDisabled() {
+        ValidationMetrics metrics = new ValidationMetrics(registry, true);
+        metrics.setEnabled(false);
+
+        validationRulesCheck(metrics).getValidationErrors(new Article(), PermissionSet.EMPTY);
+        metrics.recordEndpoint("POST /article", metrics.start());
+
+        assertNull(registry.find(ValidationMetrics.RULES_TIMER).timer());
+        assertNull(registry.find(ValidationMetrics.ENDPOINT_TIMER).timer());
+        assertNull(registry.find(ValidationMetrics.ERRORS_COUNTER).counter());
+    }
+
+    @Test
+    void disabledMetricsCantBeEnabled() {
+        assertThrows(IllegalStateException.class, () -> ValidationMetrics.DISABLED.setEnabled(true));
+    }
+
+    private static ValidationRulesCheck validationRulesCheck(ValidationMetrics metrics) {
+        return new ValidationRulesCheck() {
+            @Override
+            public ValidationMetrics getValidationMetrics() {
+                return metrics;
+            }
+        };
+    }
+
+}
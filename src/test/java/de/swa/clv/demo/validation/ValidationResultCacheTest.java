@@ -0,0 +1,107 @@
+package de.swa.clv.demo.validation;
+
+import de.swa.clv.demo.model.Accessory;
+import de.swa.clv.demo.model.Article;
+import de.swa.clv.demo.model.PermissionSet;
+import de.swa.clv.demo.model.Status;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValidationResultCacheTest {
+
+    private final MutableClock clock = new MutableClock(LocalDate.of(2025, 3, 3));
+    private final ValidationResultCache cache = new ValidationResultCache(100, clock);
+    private final AtomicInteger validations = new AtomicInteger();
+
+    @Test
+    void equalArticlesAreValidatedOnce() {
+        List<String> errors = getErrors(article("Name"), PermissionSet.EMPTY);
+        List<String> cachedErrors = getErrors(article("Name"), PermissionSet.EMPTY);
+
+        assertEquals(1, validations.get());
+        assertEquals(errors, cachedErrors);
+        assertNotSame(errors, cachedErrors);
+        cachedErrors.add("modifiable");
+        assertEquals(new ValidationResultCache.Statistics(1, 1, 0, 1), cache.getStatistics());
+    }
+
+    @Test
+    void otherValuesOrPermissionsAreValidatedAgain() {
+        getErrors(article("Name"), PermissionSet.EMPTY);
+        getErrors(article("Other name"), PermissionSet.EMPTY);
+        getErrors(article("Name"), PermissionSet.of("MANAGER"));
+        // An update of an equal article
+        cache.getErrors(Article.rules, article("Name"), article("Name"), PermissionSet.EMPTY, this::validate);
+
+        assertEquals(4, validations.get());
+    }
+
+    @Test
+    void timeRelativeResultsAreValidOnTheirDayOnly() {
+        getErrors(article("Name"), PermissionSet.EMPTY);
+        clock.day = clock.day.plusDays(1);
+        getErrors(article("Name"), PermissionSet.EMPTY);
+
+        assertEquals(2, validations.get());
+    }
+
+    @Test
+    void changingTheArticleDoesNotChangeTheCachedKey() {
+        Article article = article("Name");
+        List<Accessory> accessories = new ArrayList<>(List.of(new Accessory("Zange", 1)));
+        article.setAccessories(accessories);
+        getErrors(article, PermissionSet.EMPTY);
+
+        accessories.add(new Accessory("Schlinge", 1));
+        getErrors(article, PermissionSet.EMPTY);
+        article.setAccessories(List.of(new Accessory("Zange", 1)));
+        getErrors(article, PermissionSet.EMPTY);
+
+        assertEquals(2, validations.get());
+    }
+
+    @Test
+    void leastRecentlyUsedResultIsEvicted() {
+        ValidationResultCache smallCache = new ValidationResultCache(1, clock);
+        smallCache.getErrors(Article.rules, null, article("A"), PermissionSet.EMPTY, this::validate);
+        smallCache.getErrors(Article.rules, null, article("B"), PermissionSet.EMPTY, this::validate);
+        smallCache.getErrors(Article.rules, null, article("B"), PermissionSet.EMPTY, this::validate);
+        smallCache.getErrors(Article.rules, null, article("A"), PermissionSet.EMPTY, this::validate);
+
+        assertEquals(3, validations.get());
+        assertEquals(new ValidationResultCache.Statistics(1, 3, 2, 1), smallCache.getStatistics());
+    }
+
+    @Test
+    void disabledCacheAlwaysValidates() {
+        ValidationResultCache disabled = ValidationResultCache.DISABLED;
+        disabled.getErrors(Article.rules, null, article("Name"), PermissionSet.EMPTY, this::validate);
+        disabled.getErrors(Article.rules, null, article("Name"), PermissionSet.EMPTY, this::validate);
+
+        assertFalse(disabled.isEnabled());
+        assertEquals(2, validations.get());
+    }
+
+    private List<String> getErrors(Article article, PermissionSet permissions) {
+        return cache.getErrors(Article.rules, null, article, permissions, this::validate);
+    }
+
+    private List<String> validate() {
+        validations.incrementAndGet();
+        return new ArrayList<>(List.of("error.validation.mandatory.article.number"));
+    }
+
+    private static Article article(String name) {
+        Article article = new Article();
+        article.setName(name);
+        article.setStatus(Status.NEW);
+        return article;
+    }
+
+}
@@ -0,0 +1,60 @@
+package de.swa.clv.demo.validation;
+
+import de.swa.clv.demo.model.Article;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValidationResultTest {
+
+    private static final String NAME_MANDATORY = "error.validation.mandatory.article.name";
+    private static final String STATUS_INITIAL = "error.validation.content.equals_any.article.status#initial";
+    private static final String AMOUNT_SUM = "error.validation.content.range.article.accessories[0/1].amount#sum";
+    private static final String NAME_REGEX = "error.validation.content.regex_any.article.name";
+    private static final String UNREADABLE = "error.import.unreadable";
+
+    @Test
+    void errorsAreGroupedByProperty() {
+        ValidationResult result = ValidationResult.of(Article.class,
+                List.of(NAME_MANDATORY, STATUS_INITIAL, AMOUNT_SUM, NAME_REGEX, UNREADABLE));
+
+        assertFalse(result.isValid());
+        assertEquals(List.of(NAME_MANDATORY, STATUS_INITIAL, AMOUNT_SUM, NAME_REGEX, UNREADABLE), result.getErrors());
+        Map<String, List<ValidationResult.FieldError>> fieldErrors = result.getFieldErrors();
+        assertEquals(List.of("name", "status", "accessories[0/1].amount", ""), List.copyOf(fieldErrors.keySet()));
+        assertEquals(List.of(new ValidationResult.FieldError(NAME_MANDATORY, null),
+                new ValidationResult.FieldError(NAME_REGEX, null)), fieldErrors.get("name"));
+    }
+
+    @Test
+    void messagesAreResolved() {
+        ValidationResult result = ValidationResult.of(Article.class, List.of(NAME_MANDATORY, STATUS_INITIAL))
+                .withMessages(Map.of(NAME_MANDATORY, "Name is required")::get);
+
+        Map<String, List<ValidationResult.FieldError>> fieldErrors = result.getFieldErrors();
+        assertEquals("Name is required", fieldErrors.get("name").get(0).message());
+        assertNull(fieldErrors.get("status").get(0).message());
+    }
+
+    @Test
+    void noErrorsAreValid() {
+        ValidationResult result = ValidationResult.of(Article.class, List.of());
+
+        assertSame(ValidationResult.VALID, result);
+        assertTrue(result.getFieldErrors().isEmpty());
+        assertSame(result, result.withMessages(code -> "message"));
+    }
+
+    @Test
+    void exceptionIsStackless() {
+        ValidationException exception = ValidationResult.of(Article.class, List.of(NAME_MANDATORY)).toException();
+
+        assertEquals(List.of(NAME_MANDATORY), exception.getFieldErrors());
+        assertEquals("[" + NAME_MANDATORY + "]", exception.getMessage());
+        assertEquals(0, exception.getStackTrace().length);
+    }
+
+}